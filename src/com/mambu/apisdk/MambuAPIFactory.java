@@ -8,15 +8,20 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.services.AccountingService;
 import com.mambu.apisdk.services.ActivitiesService;
 import com.mambu.apisdk.services.ClientsService;
+import com.mambu.apisdk.services.CustomFieldUpdateService;
 import com.mambu.apisdk.services.DocumentsService;
+import com.mambu.apisdk.services.EntityCache;
 import com.mambu.apisdk.services.IntelligenceService;
 import com.mambu.apisdk.services.LoansService;
+import com.mambu.apisdk.services.OrganizationCache;
 import com.mambu.apisdk.services.OrganizationService;
+import com.mambu.apisdk.services.ReferenceDataService;
 import com.mambu.apisdk.services.RepaymentsService;
 import com.mambu.apisdk.services.SavingsService;
 import com.mambu.apisdk.services.SearchService;
 import com.mambu.apisdk.services.TasksService;
 import com.mambu.apisdk.services.UsersService;
+import com.mambu.apisdk.util.HttpClientSettings;
 
 /**
  * Factory for creating Mambu API Services in a singleton fashion.
@@ -44,7 +49,8 @@ public class MambuAPIFactory {
 	private static Integer INVALID_BASIC_AUTHORIZATION = 1;
 
 	/***
-	 * Set up the Guice Module with data required for accessing the remote server
+	 * Set up the Guice Module with data required for accessing the remote server. The services obtained from a
+	 * previous set up keep working: call close() before setting up again to release their pooled connections
 	 * 
 	 * @param domain
 	 *            the domain where the server is found
@@ -54,7 +60,37 @@ public class MambuAPIFactory {
 	 *            the password used by the user
 	 */
 	public static void setUp(String domain, String username, String password) {
-		injector = Guice.createInjector(new MambuAPIModule(domain, username, password));
+		setUp(domain, username, password, new HttpClientSettings());
+	}
+
+	/***
+	 * Set up the Guice Module with data required for accessing the remote server and with custom settings for the
+	 * pooled HTTP connections. The services obtained from a previous set up keep working: call close() before
+	 * setting up again to release their pooled connections
+	 * 
+	 * @param domain
+	 *            the domain where the server is found
+	 * @param username
+	 *            the name of the user
+	 * @param password
+	 *            the password used by the user
+	 * @param httpClientSettings
+	 *            settings for the HTTP connections pool
+	 */
+	public static void setUp(String domain, String username, String password, HttpClientSettings httpClientSettings) {
+		injector = Guice.createInjector(new MambuAPIModule(domain, username, password, httpClientSettings));
+	}
+
+	/***
+	 * Release the resources (e.g. pooled HTTP connections) held by the services of the current set up. The factory
+	 * must be set up again before getting new services
+	 */
+	public static void close() {
+		if (injector == null) {
+			return;
+		}
+		injector.getInstance(MambuAPIService.class).close();
+		injector = null;
 	}
 
 	/***
@@ -205,6 +241,67 @@ public class MambuAPIFactory {
 		return injector.getInstance(DocumentsService.class);
 	}
 
+	/***
+	 * Get an instance of the CustomFieldUpdateService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static CustomFieldUpdateService getCustomFieldUpdateService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(CustomFieldUpdateService.class);
+	}
+
+	/***
+	 * Get an instance of the ReferenceDataService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static ReferenceDataService getReferenceDataService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(ReferenceDataService.class);
+	}
+
+	/***
+	 * Get the EntityCache of this factory's tenant. The same instance is returned on each call
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static EntityCache getEntityCache() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(EntityCache.class);
+	}
+
+	/***
+	 * Get the OrganizationCache of this factory's tenant. The same instance is returned on each call
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static OrganizationCache getOrganizationCache() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(OrganizationCache.class);
+	}
+
+	/***
+	 * Get the MambuAPIService shared by all services of this factory, e.g. to set its retry policy or its reference
+	 * data cache
+	 * 
+	 * @return the MambuAPIService
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static MambuAPIService getMambuAPIService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(MambuAPIService.class);
+	}
+
 	/***
 	 * Get an instance of the ActivitiesService class
 	 * 
@@ -7,6 +7,9 @@ import com.google.inject.AbstractModule;
 import com.mambu.apisdk.model.Domain;
 import com.mambu.apisdk.model.Password;
 import com.mambu.apisdk.model.Username;
+import com.mambu.apisdk.util.AsyncRequestExecutor;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl;
+import com.mambu.apisdk.util.HttpClientSettings;
 import com.mambu.apisdk.util.RequestExecutor;
 import com.mambu.apisdk.util.RequestExecutorImpl;
 
@@ -21,6 +24,7 @@ public class MambuAPIModule extends AbstractModule {
 	private final String username;
 	private final String password;
 	private final String domain;
+	private final HttpClientSettings httpClientSettings;
 
 	/***
 	 * Constructor required for setting up the date used for the wrapper to connect to the remote server
@@ -34,9 +38,31 @@ public class MambuAPIModule extends AbstractModule {
 	 */
 	public MambuAPIModule(String domain, String username, String password) {
 
+		this(domain, username, password, new HttpClientSettings());
+
+	}
+
+	/***
+	 * Constructor for setting up the wrapper with custom settings for the HTTP transport
+	 * 
+	 * @param domain
+	 *            the domain of the server
+	 * @param username
+	 *            the username required for the connection
+	 * @param password
+	 *            the password required for the connection
+	 * @param httpClientSettings
+	 *            settings for the pooled HTTP connections
+	 */
+	public MambuAPIModule(String domain, String username, String password, HttpClientSettings httpClientSettings) {
+
+		if (httpClientSettings == null) {
+			throw new IllegalArgumentException("HttpClientSettings must not be null");
+		}
 		this.domain = domain;
 		this.username = username;
 		this.password = password;
+		this.httpClientSettings = httpClientSettings;
 
 	}
 
@@ -50,7 +76,9 @@ public class MambuAPIModule extends AbstractModule {
 		bindConstant().annotatedWith(Password.class).to(password);
 		bindConstant().annotatedWith(Domain.class).to(domain);
 
+		bind(HttpClientSettings.class).toInstance(httpClientSettings);
 		bind(RequestExecutor.class).to(RequestExecutorImpl.class);
+		bind(AsyncRequestExecutor.class).to(AsyncRequestExecutorImpl.class);
 
 	}
 
@@ -2,6 +2,14 @@ package com.mambu.apisdk;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -9,9 +17,21 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.model.Domain;
 import com.mambu.apisdk.model.Password;
 import com.mambu.apisdk.model.Username;
+import com.mambu.apisdk.util.ApiCallback;
+import com.mambu.apisdk.util.AsyncRequestExecutor;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl.DaemonThreadFactory;
+import com.mambu.apisdk.util.CircuitBreakerPolicy;
+import com.mambu.apisdk.util.HttpClientSettings;
 import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.ReferenceDataCache;
+import com.mambu.apisdk.util.RequestCoalescer;
 import com.mambu.apisdk.util.RequestExecutor;
 import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.apisdk.util.ResponseCache;
+import com.mambu.apisdk.util.ResponseStreamHandler;
+import com.mambu.apisdk.util.RetryPolicy;
+import com.mambu.apisdk.util.TransferMetrics;
 import com.mambu.apisdk.util.URLHelper;
 
 /**
@@ -24,7 +44,23 @@ import com.mambu.apisdk.util.URLHelper;
 public class MambuAPIService {
 
 	private RequestExecutor executor;
+	private AsyncRequestExecutor asyncExecutor;
 	private URLHelper urlHelper;
+	// Policy for retrying failed requests, used by the ServiceExecutor. No retries by default
+	private volatile RetryPolicy retryPolicy = RetryPolicy.noRetries();
+	// Policy for failing fast when the tenant is degraded, used by the ServiceExecutor. Disabled by default
+	private volatile CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.disabled();
+	// Whether the ServiceExecutor coalesces concurrent identical GET requests. Disabled by default
+	private volatile boolean requestCoalescingEnabled = false;
+	// Identical GET requests in flight, coalesced only among the services of this MambuAPIService
+	private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+	// Cache for the reference data returned by the GET requests. Null if not cached
+	private volatile ReferenceDataCache referenceDataCache = null;
+	// Thread pool for parsing responses of the asynchronous requests, created on first use
+	private ThreadPoolExecutor parsingExecutor = null;
+	private final static int PARSING_QUEUE_SIZE = 1000;
+	// Run by close(), e.g. to stop the background threads of the caches using this service
+	private final List<Runnable> closeTasks = new CopyOnWriteArrayList<Runnable>();
 
 	/**
 	 * Creates a Mambu API Service class
@@ -36,12 +72,36 @@ public class MambuAPIService {
 	 * @param domainName
 	 *            based domain name for the tenant (eg: mytenant.mambu.com)
 	 */
-	@Inject
 	public MambuAPIService(@Domain String domainName, @Username String username, @Password String password,
 			RequestExecutor executor, URLHelper urlHelper) {
 
+		this(domainName, username, password, executor, new AsyncRequestExecutorImpl(executor,
+				new HttpClientSettings()), urlHelper);
+	}
+
+	/**
+	 * Creates a Mambu API Service class with an asynchronous request executor
+	 * 
+	 * @param username
+	 *            username to connect with to the apis
+	 * @param password
+	 *            password to connect with to the apis
+	 * @param domainName
+	 *            based domain name for the tenant (eg: mytenant.mambu.com)
+	 * @param executor
+	 *            request executor
+	 * @param asyncExecutor
+	 *            asynchronous request executor
+	 * @param urlHelper
+	 *            url helper
+	 */
+	@Inject
+	public MambuAPIService(@Domain String domainName, @Username String username, @Password String password,
+			RequestExecutor executor, AsyncRequestExecutor asyncExecutor, URLHelper urlHelper) {
+
 		this.urlHelper = urlHelper;
 		this.executor = executor;
+		this.asyncExecutor = asyncExecutor;
 
 		executor.setAuthorization(username, password);
 	}
@@ -124,6 +184,216 @@ public class MambuAPIService {
 		return executor.executeRequest(urlString, method, contentTypeFormat);
 	}
 
+	/**
+	 * Executes the request for a given url, some parameters using a specified method and contentType format and passes
+	 * the content of the successful response to the handler, without reading it into a String
+	 * 
+	 * @param urlString
+	 * @param params
+	 * @param method
+	 * @param contentTypeFormat
+	 * @param handler
+	 *            handler for the response content stream
+	 * 
+	 * @return the result returned by the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public <T> T executeRequest(String urlString, ParamsMap params, Method method,
+			RequestExecutor.ContentType contentTypeFormat, ResponseStreamHandler<T> handler) throws MambuApiException {
+		return executor.executeRequest(urlString, params, method, contentTypeFormat, handler);
+	}
+
+	/**
+	 * Executes the request asynchronously for a given url, some parameters using a specified method and a specified
+	 * contentType format. The request is executed in the background, the calling thread is not blocked
+	 * 
+	 * @param urlString
+	 * @param params
+	 * @param method
+	 * @param contentTypeFormat
+	 * @param callback
+	 *            callback to be notified when the request completes. Can be null
+	 * 
+	 * @return future response String. Future's get() throws ExecutionException with the MambuApiException as its
+	 *         cause if the request failed
+	 */
+	public Future<String> executeRequestAsync(String urlString, ParamsMap params, Method method,
+			RequestExecutor.ContentType contentTypeFormat, ApiCallback<String> callback) {
+		return asyncExecutor.executeRequest(urlString, params, method, contentTypeFormat, callback);
+	}
+
+	/**
+	 * Get the policy for retrying the failed API requests
+	 * 
+	 * @return retry policy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Set the policy for retrying the failed API requests. The failed requests are not retried by default (see
+	 * RetryPolicy.noRetries())
+	 * 
+	 * @param retryPolicy
+	 *            retry policy. Must not be null
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		if (retryPolicy == null) {
+			throw new IllegalArgumentException("RetryPolicy must not be null");
+		}
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Get the policy for rejecting the API requests to the degraded end points
+	 * 
+	 * @return circuit breaker policy
+	 */
+	public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+		return circuitBreakerPolicy;
+	}
+
+	/**
+	 * Set the policy for rejecting the API requests to the degraded end points. The requests are never rejected by
+	 * default (see CircuitBreakerPolicy.disabled())
+	 * 
+	 * @param circuitBreakerPolicy
+	 *            circuit breaker policy. Must not be null
+	 */
+	public void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+		if (circuitBreakerPolicy == null) {
+			throw new IllegalArgumentException("CircuitBreakerPolicy must not be null");
+		}
+		this.circuitBreakerPolicy = circuitBreakerPolicy;
+	}
+
+	public boolean isRequestCoalescingEnabled() {
+		return requestCoalescingEnabled;
+	}
+
+	/**
+	 * Get the coalescer of the identical GET requests made by the services of this MambuAPIService
+	 * 
+	 * @return request coalescer
+	 */
+	public RequestCoalescer getRequestCoalescer() {
+		return requestCoalescer;
+	}
+
+	/**
+	 * Set whether concurrent identical GET requests are coalesced. When enabled, a GET request made while an identical
+	 * request (the same URL, params and the returned type) is in flight is not sent: the caller waits for the request
+	 * in flight and gets the same result object. The callers must not modify the returned objects if they can be
+	 * shared. Disabled by default
+	 * 
+	 * @param requestCoalescingEnabled
+	 *            true to coalesce concurrent identical GET requests
+	 */
+	public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+		this.requestCoalescingEnabled = requestCoalescingEnabled;
+	}
+
+	/**
+	 * Get the cache for the reference data (products, transaction channels, currencies and custom fields)
+	 * 
+	 * @return reference data cache or null if the reference data is not cached
+	 */
+	public ReferenceDataCache getReferenceDataCache() {
+		return referenceDataCache;
+	}
+
+	/**
+	 * Set the cache for the reference data (products, transaction channels, currencies and custom fields). The cache
+	 * is used by all services of this MambuAPIService
+	 * 
+	 * @param referenceDataCache
+	 *            reference data cache. Null to disable caching (default)
+	 */
+	public void setReferenceDataCache(ReferenceDataCache referenceDataCache) {
+		this.referenceDataCache = referenceDataCache;
+	}
+
+	/**
+	 * Get the metrics of the responses received by this service's request executor, e.g. to compare the received and
+	 * the decoded bytes of the compressed responses
+	 * 
+	 * @return transfer metrics
+	 */
+	public TransferMetrics getTransferMetrics() {
+		return executor.getTransferMetrics();
+	}
+
+	/**
+	 * Get the cache of the entity reads of this service's request executor, e.g. to check its statistics. Enabled with
+	 * HttpClientSettings.setResponseCacheEnabled()
+	 * 
+	 * @return response cache or null if the responses are not cached
+	 */
+	public ResponseCache getResponseCache() {
+		return executor.getResponseCache();
+	}
+
+	/**
+	 * Get the thread pool for parsing the responses of the asynchronous requests, so that they are not parsed on the
+	 * I/O threads. Bounded: when all threads are busy and the queue is full, or after this service was closed, the
+	 * response is parsed on the thread which received it
+	 * 
+	 * @return parsing executor
+	 */
+	public synchronized Executor getParsingExecutor() {
+		if (parsingExecutor == null) {
+			final int threads = Runtime.getRuntime().availableProcessors();
+			parsingExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(PARSING_QUEUE_SIZE), new DaemonThreadFactory(
+							"Mambu-ResponseParser-"), new RejectedExecutionHandler() {
+						@Override
+						public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+							task.run();
+						}
+					});
+			parsingExecutor.allowCoreThreadTimeOut(true);
+		}
+		return parsingExecutor;
+	}
+
+	/**
+	 * Add a task to be run when this service is closed, e.g. to stop a background thread making requests with this
+	 * service
+	 * 
+	 * @param closeTask
+	 *            task to run. Must not throw exceptions
+	 */
+	public void addCloseTask(Runnable closeTask) {
+		if (closeTask == null) {
+			throw new IllegalArgumentException("Close task must not be null");
+		}
+		closeTasks.add(closeTask);
+	}
+
+	/**
+	 * Close this service and release resources held by its request executors (e.g. pooled HTTP connections and
+	 * threads) and by the caches using it (see addCloseTask() and setReferenceDataCache()). Services using this
+	 * MambuAPIService must not be used after it was closed
+	 */
+	public void close() {
+		for (Runnable closeTask : closeTasks) {
+			closeTask.run();
+		}
+		ReferenceDataCache cache = referenceDataCache;
+		if (cache != null) {
+			cache.close();
+		}
+		asyncExecutor.close();
+		executor.close();
+		synchronized (this) {
+			if (parsingExecutor != null) {
+				parsingExecutor.shutdown();
+			}
+		}
+	}
+
 	/**
 	 * Creates the URL for the request executor
 	 * 
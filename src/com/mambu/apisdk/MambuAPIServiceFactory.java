@@ -15,6 +15,7 @@ import com.mambu.apisdk.services.SavingsService;
 import com.mambu.apisdk.services.SearchService;
 import com.mambu.apisdk.services.TasksService;
 import com.mambu.apisdk.services.UsersService;
+import com.mambu.apisdk.util.HttpClientSettings;
 
 /**
  * Factory for creating Mambu API Service objects that have fixed a tenant's Mambu credentials
@@ -51,6 +52,36 @@ public final class MambuAPIServiceFactory {
 		return new MambuAPIServiceFactory(injector);
 	}
 
+	/***
+	 * Set up the Guice Module with data required for accessing the remote server and with custom settings for the
+	 * pooled HTTP connections, returning a factory object to retrieve Mambu API services that have Mambu credentials
+	 * built-in
+	 * 
+	 * @param domain
+	 *            the domain where the server is found
+	 * @param username
+	 *            the name of the user
+	 * @param password
+	 *            the password used by the user
+	 * @param httpClientSettings
+	 *            settings for the HTTP connections pool
+	 * 
+	 * @return factory object to create API service objects which are bound to the given credentials
+	 */
+	public static MambuAPIServiceFactory getFactory(String domain, String username, String password,
+			HttpClientSettings httpClientSettings) {
+		Injector injector = Guice.createInjector(new MambuAPIModule(domain, username, password, httpClientSettings));
+		return new MambuAPIServiceFactory(injector);
+	}
+
+	/***
+	 * Release the resources (e.g. pooled HTTP connections) held by the services created by this factory. Services
+	 * obtained from this factory must not be used after the factory was closed
+	 */
+	public void close() {
+		injector.getInstance(MambuAPIService.class).close();
+	}
+
 	/***
 	 * Get an instance of the ClientService class, non-static version of {@link MambuAPIFactory#getClientService()}
 	 * 
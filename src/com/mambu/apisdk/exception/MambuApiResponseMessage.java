@@ -1,6 +1,6 @@
 package com.mambu.apisdk.exception;
 
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 import com.mambu.apisdk.util.APIExceptionData;
 import com.mambu.apisdk.util.GsonUtils;
 
@@ -71,7 +71,7 @@ public class MambuApiResponseMessage {
 			obj = (MambuApiResponseMessage) GsonUtils.createGson().fromJson(mambuResponse,
 					MambuApiResponseMessage.class);
 
-		} catch (JsonSyntaxException e) {
+		} catch (JsonParseException e) {
 			returnCode = -1;
 			returnStatus = "";
 			errorSource = "";
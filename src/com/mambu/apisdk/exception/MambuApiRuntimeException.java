@@ -0,0 +1,23 @@
+package com.mambu.apisdk.exception;
+
+/**
+ * Unchecked wrapper for MambuApiException. It is thrown where the API calls are made from methods which cannot throw
+ * checked exceptions, e.g. by the iterators fetching the pages of the results lazily
+ */
+public class MambuApiRuntimeException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public MambuApiRuntimeException(MambuApiException e) {
+		super(e.getErrorMessage(), e);
+	}
+
+	/**
+	 * Get the wrapped MambuApiException
+	 * 
+	 * @return the MambuApiException thrown by the API call
+	 */
+	public MambuApiException getMambuApiException() {
+		return (MambuApiException) getCause();
+	}
+}
@@ -0,0 +1,79 @@
+package com.mambu.apisdk.model;
+
+/**
+ * A class representing one custom field update of a batch posted with CustomFieldUpdateService.updateCustomFields():
+ * the new value of a custom field of a client, a group, a loan account, a savings account, a branch, a centre or a
+ * user
+ */
+public class CustomFieldUpdate {
+
+	/**
+	 * Types of the entities with the custom fields which can be updated
+	 */
+	public enum EntityType {
+		CLIENT, GROUP, LOAN_ACCOUNT, SAVINGS_ACCOUNT, BRANCH, CENTRE, USER
+	}
+
+	private EntityType entityType;
+	private String entityId;
+	private String customFieldId;
+	private String value;
+
+	public CustomFieldUpdate() {
+	}
+
+	/**
+	 * @param entityType
+	 *            the type of the entity
+	 * @param entityId
+	 *            the encoded key or id of the entity (the user name for the users)
+	 * @param customFieldId
+	 *            the encoded key or id of the custom field to be updated
+	 * @param value
+	 *            the new value of the custom field
+	 */
+	public CustomFieldUpdate(EntityType entityType, String entityId, String customFieldId, String value) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.customFieldId = customFieldId;
+		this.value = value;
+	}
+
+	public EntityType getEntityType() {
+		return entityType;
+	}
+
+	public void setEntityType(EntityType entityType) {
+		this.entityType = entityType;
+	}
+
+	public String getEntityId() {
+		return entityId;
+	}
+
+	public void setEntityId(String entityId) {
+		this.entityId = entityId;
+	}
+
+	public String getCustomFieldId() {
+		return customFieldId;
+	}
+
+	public void setCustomFieldId(String customFieldId) {
+		this.customFieldId = customFieldId;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public void setValue(String value) {
+		this.value = value;
+	}
+
+	@Override
+	public String toString() {
+		return "CustomFieldUpdate [entityType=" + entityType + ", entityId=" + entityId + ", customFieldId="
+				+ customFieldId + ", value=" + value + "]";
+	}
+}
@@ -0,0 +1,86 @@
+package com.mambu.apisdk.model;
+
+import com.mambu.accounts.shared.model.TransactionDetails;
+
+/**
+ * A class representing one repayment of a bulk repayment posted with LoansService.makeLoanRepayments(). It holds the
+ * parameters of LoansService.makeLoanRepayment(): the account, the amount, the date, the notes and the transaction
+ * details
+ */
+public class RepaymentCommand {
+
+	private String accountId;
+	private String amount;
+	private String date;
+	private String notes;
+	private TransactionDetails transactionDetails;
+
+	public RepaymentCommand() {
+	}
+
+	/**
+	 * @param accountId
+	 *            account ID
+	 * @param amount
+	 *            transaction amount
+	 * @param date
+	 *            transaction date
+	 * @param notes
+	 *            transaction notes
+	 * @param transactionDetails
+	 *            transaction details, including transaction channel and channel fields
+	 */
+	public RepaymentCommand(String accountId, String amount, String date, String notes,
+			TransactionDetails transactionDetails) {
+		this.accountId = accountId;
+		this.amount = amount;
+		this.date = date;
+		this.notes = notes;
+		this.transactionDetails = transactionDetails;
+	}
+
+	public String getAccountId() {
+		return accountId;
+	}
+
+	public void setAccountId(String accountId) {
+		this.accountId = accountId;
+	}
+
+	public String getAmount() {
+		return amount;
+	}
+
+	public void setAmount(String amount) {
+		this.amount = amount;
+	}
+
+	public String getDate() {
+		return date;
+	}
+
+	public void setDate(String date) {
+		this.date = date;
+	}
+
+	public String getNotes() {
+		return notes;
+	}
+
+	public void setNotes(String notes) {
+		this.notes = notes;
+	}
+
+	public TransactionDetails getTransactionDetails() {
+		return transactionDetails;
+	}
+
+	public void setTransactionDetails(TransactionDetails transactionDetails) {
+		this.transactionDetails = transactionDetails;
+	}
+
+	@Override
+	public String toString() {
+		return "RepaymentCommand [accountId=" + accountId + ", amount=" + amount + ", date=" + date + "]";
+	}
+}
@@ -0,0 +1,184 @@
+package com.mambu.apisdk.model;
+
+import com.mambu.accounts.shared.model.TransactionDetails;
+import com.mambu.apisdk.util.APIData.ACCOUNT_TYPE;
+
+/**
+ * A class representing one transaction of a bulk of savings transactions posted with
+ * SavingsService.makeTransactions(): a deposit, a withdrawal or a transfer. It holds the parameters of
+ * SavingsService.makeDeposit(), makeWithdrawal() or makeTransfer(), depending on its type. Use the deposit(),
+ * withdrawal() and transfer() factory methods to create it
+ */
+public class SavingsTransactionCommand {
+
+	public enum Type {
+		DEPOSIT, WITHDRAWAL, TRANSFER
+	}
+
+	private Type type;
+	private String accountId;
+	private String amount;
+	private String date;
+	private String notes;
+	private TransactionDetails transactionDetails;
+	private String destinationAccountKey;
+	private ACCOUNT_TYPE destinationAccountType;
+
+	public SavingsTransactionCommand() {
+	}
+
+	/**
+	 * Create a deposit to an account
+	 * 
+	 * @param accountId
+	 *            account ID
+	 * @param amount
+	 *            transaction amount
+	 * @param date
+	 *            transaction date
+	 * @param notes
+	 *            transaction notes
+	 * @param transactionDetails
+	 *            transaction details, including transaction channel and channel fields
+	 * @return the deposit
+	 */
+	public static SavingsTransactionCommand deposit(String accountId, String amount, String date, String notes,
+			TransactionDetails transactionDetails) {
+		return create(Type.DEPOSIT, accountId, amount, date, notes, transactionDetails);
+	}
+
+	/**
+	 * Create a withdrawal from an account
+	 * 
+	 * @param accountId
+	 *            account ID
+	 * @param amount
+	 *            transaction amount
+	 * @param date
+	 *            transaction date
+	 * @param notes
+	 *            transaction notes
+	 * @param transactionDetails
+	 *            transaction details, including transaction channel and channel fields
+	 * @return the withdrawal
+	 */
+	public static SavingsTransactionCommand withdrawal(String accountId, String amount, String date, String notes,
+			TransactionDetails transactionDetails) {
+		return create(Type.WITHDRAWAL, accountId, amount, date, notes, transactionDetails);
+	}
+
+	/**
+	 * Create a transfer from an account
+	 * 
+	 * @param fromAccountId
+	 *            the id of the account the amount to transfer from
+	 * @param destinationAccountKey
+	 *            the id of the account to transfer to
+	 * @param destinationAccountType
+	 *            (ACCOUNT_TYPE.LOAN or ACCOUNT_TYPE.SAVINGS)
+	 * @param amount
+	 *            amount to transfer
+	 * @param notes
+	 *            transaction notes
+	 * @return the transfer
+	 */
+	public static SavingsTransactionCommand transfer(String fromAccountId, String destinationAccountKey,
+			ACCOUNT_TYPE destinationAccountType, String amount, String notes) {
+		SavingsTransactionCommand command = create(Type.TRANSFER, fromAccountId, amount, null, notes, null);
+		command.setDestinationAccountKey(destinationAccountKey);
+		command.setDestinationAccountType(destinationAccountType);
+		return command;
+	}
+
+	private static SavingsTransactionCommand create(Type type, String accountId, String amount, String date,
+			String notes, TransactionDetails transactionDetails) {
+		SavingsTransactionCommand command = new SavingsTransactionCommand();
+		command.setType(type);
+		command.setAccountId(accountId);
+		command.setAmount(amount);
+		command.setDate(date);
+		command.setNotes(notes);
+		command.setTransactionDetails(transactionDetails);
+		return command;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	/**
+	 * @return the id of the account the transaction is posted to. For the transfers, the account the amount is
+	 *         transferred from
+	 */
+	public String getAccountId() {
+		return accountId;
+	}
+
+	public void setAccountId(String accountId) {
+		this.accountId = accountId;
+	}
+
+	public String getAmount() {
+		return amount;
+	}
+
+	public void setAmount(String amount) {
+		this.amount = amount;
+	}
+
+	/**
+	 * @return the transaction date. Not used by the transfers
+	 */
+	public String getDate() {
+		return date;
+	}
+
+	public void setDate(String date) {
+		this.date = date;
+	}
+
+	public String getNotes() {
+		return notes;
+	}
+
+	public void setNotes(String notes) {
+		this.notes = notes;
+	}
+
+	/**
+	 * @return the transaction details. Not used by the transfers
+	 */
+	public TransactionDetails getTransactionDetails() {
+		return transactionDetails;
+	}
+
+	public void setTransactionDetails(TransactionDetails transactionDetails) {
+		this.transactionDetails = transactionDetails;
+	}
+
+	public String getDestinationAccountKey() {
+		return destinationAccountKey;
+	}
+
+	public void setDestinationAccountKey(String destinationAccountKey) {
+		this.destinationAccountKey = destinationAccountKey;
+	}
+
+	public ACCOUNT_TYPE getDestinationAccountType() {
+		return destinationAccountType;
+	}
+
+	public void setDestinationAccountType(ACCOUNT_TYPE destinationAccountType) {
+		this.destinationAccountType = destinationAccountType;
+	}
+
+	@Override
+	public String toString() {
+		return "SavingsTransactionCommand [type=" + type + ", accountId=" + accountId + ", amount=" + amount
+				+ ", date=" + date + "]";
+	}
+}
@@ -14,6 +14,8 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.ItemHandler;
+import com.mambu.apisdk.util.PagedIterable;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 
@@ -112,6 +114,62 @@ public class AccountingService {
 	public List<GLJournalEntry> getGLJournalEntries(Date fromDate, Date toDate, int offset, int limit)
 			throws MambuApiException {
 
+		ParamsMap params = makeParamsForGLJournalEntries(fromDate, toDate, offset, limit);
+
+		return serviceExecutor.execute(getGLJournalEntries, params);
+	}
+
+	/**
+	 * Requests GLJournalEntries of a specific date-range and passes them to the handler one by one as they are read
+	 * from the response stream. Use this method for large pages: the list of entries is never held in memory
+	 * 
+	 * @param fromDate
+	 *            range starting from
+	 * @param toDate
+	 *            range ending at
+	 * @param offset
+	 *            offset to start pagination
+	 * @param limit
+	 *            page-size
+	 * @param handler
+	 *            handler for the GLJournalEntries
+	 * 
+	 * @return the number of entries passed to the handler
+	 * 
+	 * @throws MambuApiException
+	 *             in case of an error
+	 */
+	public int getGLJournalEntries(Date fromDate, Date toDate, int offset, int limit,
+			ItemHandler<GLJournalEntry> handler) throws MambuApiException {
+
+		ParamsMap params = makeParamsForGLJournalEntries(fromDate, toDate, offset, limit);
+
+		return serviceExecutor.executeStreaming(getGLJournalEntries, params, handler);
+	}
+
+	/**
+	 * Returns all GLJournalEntries of a specific date-range. The entries are requested lazily, one page at a time, as
+	 * the returned iterable is iterated
+	 * 
+	 * @param fromDate
+	 *            range starting from
+	 * @param toDate
+	 *            range ending at
+	 * @param pageSize
+	 *            number of entries to request per page
+	 * 
+	 * @return iterable over all GLJournalEntries
+	 */
+	public PagedIterable<GLJournalEntry> getGLJournalEntriesAll(Date fromDate, Date toDate, int pageSize) {
+
+		ParamsMap params = makeParamsForGLJournalEntries(fromDate, toDate, 0, pageSize);
+
+		return serviceExecutor.executePaged(getGLJournalEntries, params, pageSize);
+	}
+
+	// Validate input and make params map for getting GLJournalEntries
+	private ParamsMap makeParamsForGLJournalEntries(Date fromDate, Date toDate, int offset, int limit) {
+
 		if (fromDate == null || toDate == null) {
 			throw new IllegalArgumentException("fromDate and toDate must not be null");
 		}
@@ -122,6 +180,6 @@ public class AccountingService {
 		params.put(APIData.OFFSET, Integer.toString(offset));
 		params.put(APIData.LIMIT, Integer.toString(limit));
 
-		return serviceExecutor.execute(getGLJournalEntries, params);
+		return params;
 	}
 }
@@ -11,6 +11,7 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.PagedIterable;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.apisdk.util.ServiceHelper;
@@ -80,6 +81,55 @@ public class ActivitiesService {
 	public List<JSONActivity> getActivities(Date fromDate, Date toDate, Class mambuEntity, String entityId)
 			throws MambuApiException {
 
+		ParamsMap params = makeParamsForActivities(fromDate, toDate, mambuEntity, entityId);
+
+		return serviceExecutor.execute(getJSONActivityList, params);
+	}
+
+	/***
+	 * A convenience method to GET All activities within a specified date interval
+	 * 
+	 * @param fromDate
+	 *            starting date for the time interval (mandatory).Only the full date without time is used, the date is
+	 *            inclusive
+	 * @param toDate
+	 *            end date for the time interval (mandatory). Only the full date without time is used,the date is
+	 *            inclusive
+	 * 
+	 * @return a list of JSONActivities
+	 * 
+	 * @throws MambuApiException
+	 */
+	public List<JSONActivity> getActivities(Date fromDate, Date toDate) throws MambuApiException {
+		return getActivities(fromDate, toDate, null, null);
+	}
+
+	/***
+	 * GET all activities within a specified date interval. The activities are requested lazily, one page at a time, as
+	 * the returned iterable is iterated
+	 * 
+	 * @param fromDate
+	 *            starting date for the time interval (mandatory). Only the full date without time is used, the date is
+	 *            inclusive
+	 * @param toDate
+	 *            end date for the time interval (mandatory). Only the full date without time is used, the date is
+	 *            inclusive
+	 * @param pageSize
+	 *            number of activities to request per page
+	 * 
+	 * @return iterable over all JSONActivities
+	 */
+	public PagedIterable<JSONActivity> getActivitiesAll(Date fromDate, Date toDate, int pageSize) {
+
+		ParamsMap params = makeParamsForActivities(fromDate, toDate, null, null);
+
+		return serviceExecutor.executePaged(getJSONActivityList, params, pageSize);
+	}
+
+	// Validate input and make params map for getting activities
+	@SuppressWarnings("rawtypes")
+	private ParamsMap makeParamsForActivities(Date fromDate, Date toDate, Class mambuEntity, String entityId) {
+
 		// From Date and To Date are mandatory
 		if (fromDate == null) {
 			throw new IllegalArgumentException("From Date must not be NULL");
@@ -119,25 +169,7 @@ public class ActivitiesService {
 			params.put(getIdParameterName(mambuEntity), entityId);
 		}
 
-		return serviceExecutor.execute(getJSONActivityList, params);
-	}
-
-	/***
-	 * A convenience method to GET All activities within a specified date interval
-	 * 
-	 * @param fromDate
-	 *            starting date for the time interval (mandatory).Only the full date without time is used, the date is
-	 *            inclusive
-	 * @param toDate
-	 *            end date for the time interval (mandatory). Only the full date without time is used,the date is
-	 *            inclusive
-	 * 
-	 * @return a list of JSONActivities
-	 * 
-	 * @throws MambuApiException
-	 */
-	public List<JSONActivity> getActivities(Date fromDate, Date toDate) throws MambuApiException {
-		return getActivities(fromDate, toDate, null, null);
+		return params;
 	}
 
 	/**
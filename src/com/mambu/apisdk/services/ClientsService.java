@@ -3,7 +3,9 @@
  */
 package com.mambu.apisdk.services;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import com.google.inject.Inject;
 import com.mambu.apisdk.MambuAPIService;
@@ -11,6 +13,10 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.BatchExecutor;
+import com.mambu.apisdk.util.MultiGetResult;
+import com.mambu.apisdk.util.PagedIterable;
+import com.mambu.apisdk.util.ParallelPageReader;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.apisdk.util.ServiceHelper;
@@ -106,6 +112,54 @@ public class ClientsService {
 		return serviceExecutor.execute(getClient, clientId);
 	}
 
+	/**
+	 * Requests clients by their ids, concurrently with the default concurrency (see
+	 * BatchExecutor.DEFAULT_CONCURRENCY). Duplicate ids are requested once
+	 * 
+	 * @param clientIds
+	 *            the ids of the clients
+	 * 
+	 * @return the clients by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Client> getClients(Collection<String> clientIds) throws MambuApiException {
+		return getClients(clientIds, BatchExecutor.DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * Requests clients by their ids, concurrently. Duplicate ids are requested once. Each id is requested as by
+	 * {@link #getClient(String)}
+	 * 
+	 * @param clientIds
+	 *            the ids of the clients
+	 * @param concurrency
+	 *            max number of requests sent concurrently
+	 * 
+	 * @return the clients by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Client> getClients(Collection<String> clientIds, int concurrency)
+			throws MambuApiException {
+		return serviceExecutor.executeMultiGet(getClient, clientIds, concurrency);
+	}
+
+	/**
+	 * Requests a client by their Mambu ID asynchronously. The calling thread is not blocked while the request is
+	 * executed
+	 * 
+	 * @param clientId
+	 * 
+	 * @return future Mambu client model. Future's get() throws ExecutionException with the MambuApiException as its
+	 *         cause if the request failed
+	 */
+	public Future<Client> getClientAsync(String clientId) {
+		return serviceExecutor.executeAsync(getClient, clientId);
+	}
+
 	/**
 	 * Requests a client by their Last name and first name
 	 * 
@@ -196,6 +250,25 @@ public class ClientsService {
 
 	}
 
+	/**
+	 * Requests all active or inactive clients. The clients are requested lazily, one page at a time, as the returned
+	 * iterable is iterated
+	 * 
+	 * @param active
+	 *            True if active Clients should retrieved, false for inactive Clients
+	 * @param pageSize
+	 *            number of Clients to request per page, has to be > 0
+	 * 
+	 * @return iterable over all the Mambu clients
+	 */
+	public PagedIterable<Client> getClientsAll(boolean active, int pageSize) {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam(CLIENT_STATE, (active ? "ACTIVE" : "INACTIVE"));
+
+		return serviceExecutor.executePaged(getClientsList, params, pageSize);
+	}
+
 	/**
 	 * Requests a client by their Document ID and Last name
 	 * 
@@ -231,6 +304,17 @@ public class ClientsService {
 		return serviceExecutor.execute(getClientDetails, clientId);
 	}
 
+	/**
+	 * Requests a client with their full details asynchronously
+	 * 
+	 * @param clientId
+	 *            the id of the client
+	 * @return future expanded client
+	 */
+	public Future<ClientExpanded> getClientDetailsAsync(String clientId) {
+		return serviceExecutor.executeAsync(getClientDetails, clientId);
+	}
+
 	/**
 	 * Requests a group by it's Mambu ID
 	 * 
@@ -245,6 +329,41 @@ public class ClientsService {
 		return serviceExecutor.execute(getGroup, groupId);
 	}
 
+	/**
+	 * Requests groups by their ids, concurrently with the default concurrency (see
+	 * BatchExecutor.DEFAULT_CONCURRENCY). Duplicate ids are requested once
+	 * 
+	 * @param groupIds
+	 *            the ids of the groups
+	 * 
+	 * @return the groups by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Group> getGroups(Collection<String> groupIds) throws MambuApiException {
+		return getGroups(groupIds, BatchExecutor.DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * Requests groups by their ids, concurrently. Duplicate ids are requested once. Each id is requested as by
+	 * {@link #getGroup(String)}
+	 * 
+	 * @param groupIds
+	 *            the ids of the groups
+	 * @param concurrency
+	 *            max number of requests sent concurrently
+	 * 
+	 * @return the groups by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Group> getGroups(Collection<String> groupIds, int concurrency)
+			throws MambuApiException {
+		return serviceExecutor.executeMultiGet(getGroup, groupIds, concurrency);
+	}
+
 	/**
 	 * Requests the details about a group
 	 * 
@@ -386,6 +505,25 @@ public class ClientsService {
 
 	}
 
+	/**
+	 * Make a reader for all clients for a custom view. The pages are fetched concurrently, with at most the specified
+	 * number of concurrent requests
+	 * 
+	 * @param customViewKey
+	 *            the key of the Custom View to filter clients
+	 * @param pageSize
+	 *            number of clients to request per page. Must be greater than zero
+	 * @param concurrency
+	 *            maximum number of concurrent requests. Must be greater than zero
+	 * 
+	 * @return reader for all the clients
+	 */
+	public ParallelPageReader<Client> getClientsByCustomViewParallel(String customViewKey, int pageSize,
+			int concurrency) {
+		ParamsMap params = ServiceHelper.makeParamsForGetByCustomView(customViewKey, "0", Integer.toString(pageSize));
+		return serviceExecutor.executeParallel(getClientsList, params, pageSize, concurrency);
+	}
+
 	/**
 	 * Requests a list of groups for a custom view, limited by offset/limit
 	 * 
@@ -0,0 +1,178 @@
+package com.mambu.apisdk.services;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.MambuAPIService;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomFieldUpdate;
+import com.mambu.apisdk.model.CustomFieldUpdate.EntityType;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ApiDefinition;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.BatchExecutor;
+import com.mambu.apisdk.util.BatchOperation;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RateLimiter;
+import com.mambu.apisdk.util.RequestLimit;
+import com.mambu.apisdk.util.ServiceExecutor;
+import com.mambu.apisdk.util.ServiceHelper;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.clients.shared.model.Group;
+import com.mambu.core.shared.model.CustomFieldValue;
+import com.mambu.core.shared.model.User;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.organization.shared.model.Branch;
+import com.mambu.organization.shared.model.Centre;
+import com.mambu.savings.shared.model.SavingsAccount;
+
+/**
+ * Service class which updates the custom field values of many entities in one batch, e.g. after a data migration. Each
+ * update is sent with the same PATCH API as the updateClientCustomField(), updateLoanAccountCustomField(),
+ * updateSavingsAccountCustomField(), updateBranchCustomField() or updateUserCustomField() methods of the other
+ * services, but the updates are sent concurrently and the batch is not stopped by the failed ones
+ */
+@Singleton
+public class CustomFieldUpdateService {
+
+	// Max number of distinct values with their JSON kept during a batch
+	private final static int MAX_CACHED_VALUES = 1000;
+
+	// Update Custom Field value API, by entity type
+	private final static Map<EntityType, ApiDefinition> updateCustomField = new EnumMap<EntityType, ApiDefinition>(
+			EntityType.class);
+	static {
+		updateCustomField.put(EntityType.CLIENT, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY, Client.class,
+				CustomFieldValue.class));
+		updateCustomField.put(EntityType.GROUP, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY, Group.class,
+				CustomFieldValue.class));
+		updateCustomField.put(EntityType.LOAN_ACCOUNT, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY,
+				LoanAccount.class, CustomFieldValue.class));
+		updateCustomField.put(EntityType.SAVINGS_ACCOUNT, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY,
+				SavingsAccount.class, CustomFieldValue.class));
+		updateCustomField.put(EntityType.BRANCH, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY, Branch.class,
+				CustomFieldValue.class));
+		updateCustomField.put(EntityType.CENTRE, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY, Centre.class,
+				CustomFieldValue.class));
+		updateCustomField.put(EntityType.USER, new ApiDefinition(ApiType.PATCH_OWNED_ENTITY, User.class,
+				CustomFieldValue.class));
+	}
+
+	private ServiceExecutor serviceExecutor;
+
+	/***
+	 * Create a new custom field update service
+	 * 
+	 * @param mambuAPIService
+	 *            the service responsible with the connection to the server
+	 */
+	@Inject
+	public CustomFieldUpdateService(MambuAPIService mambuAPIService) {
+		this.serviceExecutor = new ServiceExecutor(mambuAPIService);
+	}
+
+	/***
+	 * Update custom field values of many entities. The updates of the same entity are sent one at a time, in the order
+	 * of the updates, while the updates of different entities are sent concurrently. The request limits of the
+	 * HttpClientSettings apply
+	 * 
+	 * @param updates
+	 *            the updates. Read once, as the updates are sent
+	 * @param concurrency
+	 *            max number of updates sent concurrently
+	 * 
+	 * @return report with the outcome of each update, in the order of the updates
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public BatchReport<CustomFieldUpdate, Boolean> updateCustomFields(Iterable<CustomFieldUpdate> updates,
+			int concurrency) throws MambuApiException {
+		return updateCustomFields(updates, concurrency, null);
+	}
+
+	/***
+	 * Update custom field values of many entities, limiting the rate of the updates in addition to the request limits
+	 * of the HttpClientSettings, e.g. to leave some of the tenant's API quota to the other applications. The updates
+	 * of the same entity are sent one at a time, in the order of the updates, while the updates of different entities
+	 * are sent concurrently
+	 * 
+	 * @param updates
+	 *            the updates. Read once, as the updates are sent
+	 * @param concurrency
+	 *            max number of updates sent concurrently
+	 * @param requestLimit
+	 *            the rate of the updates and the max number of updates in flight for this batch. Can be null
+	 * 
+	 * @return report with the outcome of each update, in the order of the updates
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public BatchReport<CustomFieldUpdate, Boolean> updateCustomFields(Iterable<CustomFieldUpdate> updates,
+			int concurrency, RequestLimit requestLimit) throws MambuApiException {
+
+		if (requestLimit != null && requestLimit.getMaxInFlight() > 0) {
+			concurrency = Math.min(concurrency, requestLimit.getMaxInFlight());
+		}
+		final RateLimiter rateLimiter = (requestLimit == null) ? null : requestLimit.createRateLimiter();
+
+		// JSON of the values already sent in this batch: the batches often set the same few values on many entities
+		final ConcurrentMap<String, String> jsonByValue = new ConcurrentHashMap<String, String>();
+
+		BatchOperation<CustomFieldUpdate, Boolean> update = new BatchOperation<CustomFieldUpdate, Boolean>() {
+			@Override
+			public String getKey(CustomFieldUpdate command) {
+				return command.getEntityType() + ":" + command.getEntityId();
+			}
+
+			@Override
+			public Boolean execute(CustomFieldUpdate command) throws MambuApiException {
+
+				ApiDefinition apiDefinition = (command.getEntityType() == null) ? null : updateCustomField
+						.get(command.getEntityType());
+				if (apiDefinition == null) {
+					throw new IllegalArgumentException("Entity type must not be null");
+				}
+				String customFieldId = command.getCustomFieldId();
+				if (customFieldId == null || customFieldId.trim().isEmpty()) {
+					throw new IllegalArgumentException("Custom Field ID must not be null or empty");
+				}
+
+				ParamsMap params = new ParamsMap();
+				params.put(APIData.JSON_OBJECT, getJson(command.getValue()));
+
+				if (rateLimiter != null) {
+					try {
+						rateLimiter.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new MambuApiException(e);
+					}
+				}
+				return serviceExecutor.execute(apiDefinition, command.getEntityId(), customFieldId, params);
+			}
+
+			private String getJson(String value) {
+				if (value == null) {
+					return ServiceHelper.makeUpdateCustomFieldJson(null);
+				}
+				String json = jsonByValue.get(value);
+				if (json == null) {
+					json = ServiceHelper.makeUpdateCustomFieldJson(value);
+					if (jsonByValue.size() < MAX_CACHED_VALUES) {
+						jsonByValue.put(value, json);
+					}
+				}
+				return json;
+			}
+		};
+
+		return new BatchExecutor<CustomFieldUpdate, Boolean>(update, concurrency).execute(updates);
+	}
+}
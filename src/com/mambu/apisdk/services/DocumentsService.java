@@ -14,6 +14,8 @@ import com.mambu.apisdk.util.ApiDefinition.ApiReturnFormat;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
 import com.mambu.apisdk.util.GsonUtils;
 import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestContext;
+import com.mambu.apisdk.util.RequestTimeouts;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.core.shared.model.Image;
 import com.mambu.docs.shared.model.Document;
@@ -82,6 +84,29 @@ public class DocumentsService {
 		return serviceExecutor.execute(createDocument, paramsMap);
 	}
 
+	/***
+	 * Upload new Document using a JSONDocument object and as json request, with the specified timeouts. Large
+	 * documents may need longer timeouts than the other requests
+	 * 
+	 * @param document
+	 *            the new document object to be uploaded containing all mandatory fields
+	 * @param timeouts
+	 *            timeouts for this request, overriding the timeouts from the HttpClientSettings
+	 * 
+	 * @return the new document parsed as an object returned from the API call
+	 * 
+	 * @throws MambuApiException
+	 */
+	public Document uploadDocument(JSONDocument document, RequestTimeouts timeouts) throws MambuApiException {
+
+		RequestContext previousContext = RequestContext.current().withTimeouts(timeouts).attach();
+		try {
+			return uploadDocument(document);
+		} finally {
+			RequestContext.restore(previousContext);
+		}
+	}
+
 	/***
 	 * Get base64 encoded document data by document id. A typical scenario would be getting a list of attachments for a
 	 * client/group/account via getDocuments() API and then retrieving a specific document (attachment) by its id with
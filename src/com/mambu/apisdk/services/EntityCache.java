@@ -0,0 +1,660 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.activityfeed.shared.model.Activity;
+import com.mambu.api.server.handler.activityfeed.model.JSONActivity;
+import com.mambu.apisdk.MambuAPIService;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+import com.mambu.apisdk.util.LruCache;
+import com.mambu.apisdk.util.LruCache.EvictionListener;
+import com.mambu.apisdk.util.MultiGetResult;
+import com.mambu.apisdk.util.Ticker;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.clients.shared.model.Group;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.savings.shared.model.SavingsAccount;
+
+/**
+ * Read-through cache for clients, groups, loan accounts and savings accounts. Entities are requested from Mambu on the
+ * first read and then returned from the cache until their time to live expires or until they are invalidated.
+ *
+ * The cache keeps itself consistent with Mambu by polling the activity feed (ActivitiesService.getActivities()): the
+ * clients, groups and accounts referenced by the new activities are evicted, so that the next read requests them
+ * again. With the invalidation polling scheduled the time to live can be long, for example:
+ *
+ * EntityCache entityCache = MambuAPIFactory.getEntityCache();
+ *
+ * entityCache.scheduleInvalidation(60000);
+ *
+ * LoanAccount account = entityCache.getLoanAccount(accountId);
+ *
+ * Entities changed through this API can be evicted immediately with invalidate(). The returned objects are shared by
+ * all callers and must not be modified
+ */
+@Singleton
+public class EntityCache {
+
+	private final static Logger LOGGER = Logger.getLogger(EntityCache.class.getName());
+
+	// Default values
+	public final static long DEFAULT_TIME_TO_LIVE = 3600000L; // milliseconds
+	public final static int DEFAULT_MAX_ENTRIES = 10000;
+	// Activities are polled from this long before the previous poll, to allow for the clock difference with Mambu
+	public final static long CLOCK_SKEW_ALLOWANCE = 60000L; // milliseconds
+	// Default number of activities requested per page when polling the activity feed
+	public final static int DEFAULT_ACTIVITIES_PAGE_SIZE = 500;
+
+	private final ClientsService clientsService;
+	private final LoansService loansService;
+	private final SavingsService savingsService;
+	private final ActivitiesService activitiesService;
+
+	// Cached entities by type and the requested id
+	private final LruCache<Entry> entries = new LruCache<Entry>("EntityCache", DEFAULT_TIME_TO_LIVE,
+			DEFAULT_MAX_ENTRIES, Ticker.SYSTEM);
+	// Cache keys by the entity's encoded key, as referenced by the activities
+	private final Map<String, Set<String>> keysByEncodedKey = new HashMap<String, Set<String>>();
+	// Sequence number of the last invalidation
+	private long invalidations = 0;
+	// Sequence number of the last invalidateAll()
+	private long allInvalidated = 0;
+	// Invalidations made while entities were loading, by the invalidated id or encoded key, in the invalidation
+	// order, so that the entities they reference are not cached by the loads started before them
+	private final LinkedHashMap<String, Long> recentInvalidations = new LinkedHashMap<String, Long>();
+	// Number of the loads in progress, by the sequence number of the last invalidation before their start
+	private final TreeMap<Long, Integer> loadsInProgress = new TreeMap<Long, Integer>();
+
+	// Activities at or after this time were not processed yet
+	private long activitiesWatermark = System.currentTimeMillis() - CLOCK_SKEW_ALLOWANCE;
+	private final Object pollLock = new Object();
+	private volatile int activitiesPageSize = DEFAULT_ACTIVITIES_PAGE_SIZE;
+	private Timer invalidationTimer = null;
+
+	/***
+	 * Create a new entity cache. The scheduled invalidation is stopped when the service is closed
+	 *
+	 * @param mambuAPIService
+	 *            the service responsible with the connection to the server
+	 */
+	@Inject
+	public EntityCache(MambuAPIService mambuAPIService) {
+		this.clientsService = new ClientsService(mambuAPIService);
+		this.loansService = new LoansService(mambuAPIService);
+		this.savingsService = new SavingsService(mambuAPIService);
+		this.activitiesService = new ActivitiesService(mambuAPIService);
+		mambuAPIService.addCloseTask(new Runnable() {
+			@Override
+			public void run() {
+				cancelInvalidation();
+			}
+		});
+		entries.setEvictionListener(new EvictionListener<Entry>() {
+			@Override
+			public void onEviction(Entry entry) {
+				removeFromKeys(entry);
+			}
+		});
+	}
+
+	public synchronized long getTimeToLive() {
+		return entries.getTimeToLive();
+	}
+
+	/**
+	 * Set the time to return an entity from the cache
+	 *
+	 * @param timeToLive
+	 *            time to live in milliseconds. Must be greater than zero
+	 */
+	public synchronized void setTimeToLive(long timeToLive) {
+		if (timeToLive < 1) {
+			throw new IllegalArgumentException("Time to live must be greater than zero");
+		}
+		entries.setTimeToLive(timeToLive);
+	}
+
+	public synchronized int getMaxEntries() {
+		return entries.getMaxEntries();
+	}
+
+	/**
+	 * Set the max number of entities in the cache. The least recently used entities are evicted when the cache is full
+	 *
+	 * @param maxEntries
+	 *            max number of entities. Must be greater than zero
+	 */
+	public synchronized void setMaxEntries(int maxEntries) {
+		entries.setMaxEntries(maxEntries);
+	}
+
+	public int getActivitiesPageSize() {
+		return activitiesPageSize;
+	}
+
+	/**
+	 * Set the number of activities requested per page when polling the activity feed
+	 *
+	 * @param activitiesPageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setActivitiesPageSize(int activitiesPageSize) {
+		if (activitiesPageSize < 1) {
+			throw new IllegalArgumentException("Activities page size must be greater than zero");
+		}
+		this.activitiesPageSize = activitiesPageSize;
+	}
+
+	/**
+	 * Get a client by its id or encoded key, from the cache or from Mambu (see ClientsService.getClient())
+	 *
+	 * @param clientId
+	 *            the id or the encoded key of the client
+	 * @return the client
+	 * @throws MambuApiException
+	 */
+	public Client getClient(String clientId) throws MambuApiException {
+		Client client = (Client) getCached(Client.class, clientId);
+		if (client == null) {
+			long loadedAfter = startLoad();
+			try {
+				client = clientsService.getClient(clientId);
+				if (client != null) {
+					put(Client.class, clientId, client, client.getEncodedKey(), loadedAfter);
+				}
+			} finally {
+				finishLoad(loadedAfter);
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Get a group by its id or encoded key, from the cache or from Mambu (see ClientsService.getGroup())
+	 *
+	 * @param groupId
+	 *            the id or the encoded key of the group
+	 * @return the group
+	 * @throws MambuApiException
+	 */
+	public Group getGroup(String groupId) throws MambuApiException {
+		Group group = (Group) getCached(Group.class, groupId);
+		if (group == null) {
+			long loadedAfter = startLoad();
+			try {
+				group = clientsService.getGroup(groupId);
+				if (group != null) {
+					put(Group.class, groupId, group, group.getEncodedKey(), loadedAfter);
+				}
+			} finally {
+				finishLoad(loadedAfter);
+			}
+		}
+		return group;
+	}
+
+	/**
+	 * Get a loan account by its id or encoded key, from the cache or from Mambu (see LoansService.getLoanAccount())
+	 *
+	 * @param accountId
+	 *            the id or the encoded key of the loan account
+	 * @return the loan account
+	 * @throws MambuApiException
+	 */
+	public LoanAccount getLoanAccount(String accountId) throws MambuApiException {
+		LoanAccount account = (LoanAccount) getCached(LoanAccount.class, accountId);
+		if (account == null) {
+			long loadedAfter = startLoad();
+			try {
+				account = loansService.getLoanAccount(accountId);
+				if (account != null) {
+					put(LoanAccount.class, accountId, account, account.getEncodedKey(), loadedAfter);
+				}
+			} finally {
+				finishLoad(loadedAfter);
+			}
+		}
+		return account;
+	}
+
+	/**
+	 * Get a savings account by its id or encoded key, from the cache or from Mambu (see
+	 * SavingsService.getSavingsAccount())
+	 *
+	 * @param accountId
+	 *            the id or the encoded key of the savings account
+	 * @return the savings account
+	 * @throws MambuApiException
+	 */
+	public SavingsAccount getSavingsAccount(String accountId) throws MambuApiException {
+		SavingsAccount account = (SavingsAccount) getCached(SavingsAccount.class, accountId);
+		if (account == null) {
+			long loadedAfter = startLoad();
+			try {
+				account = savingsService.getSavingsAccount(accountId);
+				if (account != null) {
+					put(SavingsAccount.class, accountId, account, account.getEncodedKey(), loadedAfter);
+				}
+			} finally {
+				finishLoad(loadedAfter);
+			}
+		}
+		return account;
+	}
+
+	/**
+	 * Get clients by their ids or encoded keys. The cached clients are returned from the cache and the others are
+	 * requested from Mambu concurrently (see ClientsService.getClients())
+	 *
+	 * @param clientIds
+	 *            the ids or the encoded keys of the clients
+	 * @return the clients by their id and the exceptions of the ids which failed
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Client> getClients(Collection<String> clientIds) throws MambuApiException {
+		return getAll(Client.class, clientIds);
+	}
+
+	/**
+	 * Get groups by their ids or encoded keys. The cached groups are returned from the cache and the others are
+	 * requested from Mambu concurrently (see ClientsService.getGroups())
+	 *
+	 * @param groupIds
+	 *            the ids or the encoded keys of the groups
+	 * @return the groups by their id and the exceptions of the ids which failed
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<Group> getGroups(Collection<String> groupIds) throws MambuApiException {
+		return getAll(Group.class, groupIds);
+	}
+
+	/**
+	 * Get loan accounts by their ids or encoded keys. The cached accounts are returned from the cache and the others
+	 * are requested from Mambu concurrently (see LoansService.getLoanAccounts())
+	 *
+	 * @param accountIds
+	 *            the ids or the encoded keys of the loan accounts
+	 * @return the loan accounts by their id and the exceptions of the ids which failed
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<LoanAccount> getLoanAccounts(Collection<String> accountIds) throws MambuApiException {
+		return getAll(LoanAccount.class, accountIds);
+	}
+
+	/**
+	 * Get savings accounts by their ids or encoded keys. The cached accounts are returned from the cache and the
+	 * others are requested from Mambu concurrently (see SavingsService.getSavingsAccounts())
+	 *
+	 * @param accountIds
+	 *            the ids or the encoded keys of the savings accounts
+	 * @return the savings accounts by their id and the exceptions of the ids which failed
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<SavingsAccount> getSavingsAccounts(Collection<String> accountIds) throws MambuApiException {
+		return getAll(SavingsAccount.class, accountIds);
+	}
+
+	/**
+	 * Evict the entity from the cache, e.g. after it was changed using this API
+	 *
+	 * @param entityKey
+	 *            the id or the encoded key of the client, group or account
+	 */
+	public synchronized void invalidate(String entityKey) {
+		invalidateEncodedKey(entityKey);
+		// Evict the entities cached by this id
+		for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext();) {
+			Entry entry = iterator.next();
+			if (entry.id.equals(entityKey)) {
+				removeFromKeys(entry);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entities from the cache. The statistics are not reset
+	 */
+	public synchronized void invalidateAll() {
+		allInvalidated = ++invalidations;
+		entries.clear();
+		keysByEncodedKey.clear();
+	}
+
+	/**
+	 * Poll the activity feed for the activities since the previous poll and evict the clients, groups and accounts
+	 * they reference. The activities are requested page by page (see setActivitiesPageSize()) until the last page
+	 *
+	 * @return number of the new activities
+	 * @throws MambuApiException
+	 *             if a page of activities cannot be read. The activities are requested again by the next poll
+	 */
+	public int pollActivities() throws MambuApiException {
+
+		synchronized (pollLock) {
+			long now = System.currentTimeMillis();
+			long watermark;
+			synchronized (this) {
+				watermark = activitiesWatermark;
+			}
+
+			// The activities are requested by date: start a day earlier, in case Mambu's time zone is behind ours
+			Date fromDate = new Date(watermark - TimeUnit.DAYS.toMillis(1));
+
+			int activities = 0;
+			int newActivities = 0;
+			try {
+				for (JSONActivity jsonActivity : activitiesService.getActivitiesAll(fromDate, new Date(now),
+						activitiesPageSize)) {
+					activities++;
+					Activity activity = jsonActivity.getActivity();
+					if (activity == null || activity.getTimestamp() == null
+							|| activity.getTimestamp().getTime() < watermark) {
+						continue;
+					}
+					newActivities++;
+					invalidateReferenced(activity);
+				}
+			} catch (MambuApiRuntimeException e) {
+				// Keep the watermark, so that the next poll reads the whole window again
+				throw e.getMambuApiException();
+			}
+
+			synchronized (this) {
+				activitiesWatermark = now - CLOCK_SKEW_ALLOWANCE;
+			}
+			LOGGER.fine("Polled " + newActivities + " new activities of " + activities);
+			return newActivities;
+		}
+	}
+
+	/**
+	 * Poll the activity feed periodically on a background daemon thread (see pollActivities()). Failed polls are logged
+	 * and the activities are requested again by the next poll. Replaces the previous schedule, if any
+	 *
+	 * @param period
+	 *            time between the polls, in milliseconds. Must be greater than zero
+	 */
+	public synchronized void scheduleInvalidation(long period) {
+		if (period < 1) {
+			throw new IllegalArgumentException("Invalidation period must be greater than zero");
+		}
+		cancelInvalidation();
+
+		invalidationTimer = new Timer("Mambu-EntityCache", true);
+		invalidationTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					pollActivities();
+				} catch (MambuApiException e) {
+					LOGGER.warning("Failed to poll the activities: " + e.getMessage());
+				} catch (RuntimeException e) {
+					LOGGER.warning("Failed to poll the activities: " + e);
+				}
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Stop polling the activity feed. The cached entities are kept until their time to live expires
+	 */
+	public synchronized void cancelInvalidation() {
+		if (invalidationTimer != null) {
+			invalidationTimer.cancel();
+			invalidationTimer = null;
+		}
+	}
+
+	// Statistics
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized long getEvictions() {
+		return entries.getEvictions();
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return entries.toString();
+	}
+
+	// Evict the clients, groups and accounts referenced by the activity
+	private synchronized void invalidateReferenced(Activity activity) {
+		String[] referencedKeys = { activity.getClientKey(), activity.getGroupKey(), activity.getLoanAccountKey(),
+				activity.getSavingsAccountKey() };
+		for (String encodedKey : referencedKeys) {
+			if (encodedKey != null) {
+				invalidateEncodedKey(encodedKey);
+			}
+		}
+	}
+
+	// Evict the entities with the encoded key
+	private void invalidateEncodedKey(String encodedKey) {
+		invalidations++;
+		if (!loadsInProgress.isEmpty()) {
+			// Move the key to the end of the invalidation order
+			recentInvalidations.remove(encodedKey);
+			recentInvalidations.put(encodedKey, invalidations);
+		}
+		Set<String> keys = keysByEncodedKey.remove(encodedKey);
+		if (keys != null) {
+			for (String key : keys) {
+				entries.remove(key);
+			}
+		}
+	}
+
+	private synchronized Object getCached(Class<?> entityClass, String id) {
+		if (id == null) {
+			return null;
+		}
+		Entry entry = entries.get(getKey(entityClass, id));
+		return (entry == null) ? null : entry.value;
+	}
+
+	// Get the entities from the cache, requesting the ones not cached from Mambu concurrently
+	private <T> MultiGetResult<T> getAll(Class<T> entityClass, Collection<String> ids) throws MambuApiException {
+		if (ids == null) {
+			throw new IllegalArgumentException("IDs cannot be NULL");
+		}
+		Set<String> uniqueIds = new LinkedHashSet<String>(ids);
+
+		Map<String, T> cached = new HashMap<String, T>();
+		List<String> missing = new ArrayList<String>();
+		for (String id : uniqueIds) {
+			T entity = entityClass.cast(getCached(entityClass, id));
+			if (entity != null) {
+				cached.put(id, entity);
+			} else {
+				missing.add(id);
+			}
+		}
+
+		Map<String, MambuApiException> failures = new LinkedHashMap<String, MambuApiException>();
+		if (!missing.isEmpty()) {
+			long loadedAfter = startLoad();
+			try {
+				MultiGetResult<T> loaded = load(entityClass, missing);
+				for (Map.Entry<String, T> entry : loaded.getResults().entrySet()) {
+					T entity = entry.getValue();
+					if (entity != null) {
+						put(entityClass, entry.getKey(), entity, getEncodedKey(entity), loadedAfter);
+						cached.put(entry.getKey(), entity);
+					}
+				}
+				failures.putAll(loaded.getFailures());
+			} finally {
+				finishLoad(loadedAfter);
+			}
+		}
+
+		// Return the entities in the order of the requested ids
+		Map<String, T> results = new LinkedHashMap<String, T>();
+		for (String id : uniqueIds) {
+			if (cached.containsKey(id)) {
+				results.put(id, cached.get(id));
+			}
+		}
+		return new MultiGetResult<T>(results, failures);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> MultiGetResult<T> load(Class<T> entityClass, List<String> ids) throws MambuApiException {
+		if (entityClass == Client.class) {
+			return (MultiGetResult<T>) clientsService.getClients(ids);
+		}
+		if (entityClass == Group.class) {
+			return (MultiGetResult<T>) clientsService.getGroups(ids);
+		}
+		if (entityClass == LoanAccount.class) {
+			return (MultiGetResult<T>) loansService.getLoanAccounts(ids);
+		}
+		return (MultiGetResult<T>) savingsService.getSavingsAccounts(ids);
+	}
+
+	private static String getEncodedKey(Object entity) {
+		if (entity instanceof Client) {
+			return ((Client) entity).getEncodedKey();
+		}
+		if (entity instanceof Group) {
+			return ((Group) entity).getEncodedKey();
+		}
+		if (entity instanceof LoanAccount) {
+			return ((LoanAccount) entity).getEncodedKey();
+		}
+		return ((SavingsAccount) entity).getEncodedKey();
+	}
+
+	/**
+	 * Record the start of a load. Must be followed by finishLoad()
+	 *
+	 * @return sequence number of the last invalidation before the load
+	 */
+	private synchronized long startLoad() {
+		Integer count = loadsInProgress.get(invalidations);
+		loadsInProgress.put(invalidations, (count == null) ? 1 : count + 1);
+		return invalidations;
+	}
+
+	/**
+	 * Record the end of a load and forget the invalidations which can no longer affect the loads in progress
+	 */
+	private synchronized void finishLoad(long loadedAfter) {
+		Integer count = loadsInProgress.get(loadedAfter);
+		if (count == null || count <= 1) {
+			loadsInProgress.remove(loadedAfter);
+		} else {
+			loadsInProgress.put(loadedAfter, count - 1);
+		}
+
+		long oldestLoad = loadsInProgress.isEmpty() ? invalidations : loadsInProgress.firstKey();
+		for (Iterator<Long> iterator = recentInvalidations.values().iterator(); iterator.hasNext();) {
+			if (iterator.next() > oldestLoad) {
+				break;
+			}
+			iterator.remove();
+		}
+	}
+
+	// Check whether the entity with the id or the encoded key was invalidated after the load started
+	private boolean isInvalidatedAfter(long loadedAfter, String id, String encodedKey) {
+		if (allInvalidated > loadedAfter) {
+			return true;
+		}
+		Long invalidated = recentInvalidations.get(id);
+		if (invalidated != null && invalidated > loadedAfter) {
+			return true;
+		}
+		invalidated = (encodedKey == null) ? null : recentInvalidations.get(encodedKey);
+		return invalidated != null && invalidated > loadedAfter;
+	}
+
+	/**
+	 * Cache the loaded entity, unless it was invalidated while it was loaded
+	 */
+	private synchronized void put(Class<?> entityClass, String id, Object value, String encodedKey, long loadedAfter) {
+		if (id == null || value == null || isInvalidatedAfter(loadedAfter, id, encodedKey)) {
+			return;
+		}
+		String key = getKey(entityClass, id);
+		Entry entry = new Entry(id, value, encodedKey);
+		Entry previous = entries.put(key, entry);
+		if (previous != null) {
+			removeFromKeys(previous);
+		}
+		if (encodedKey != null) {
+			Set<String> keys = keysByEncodedKey.get(encodedKey);
+			if (keys == null) {
+				keys = new HashSet<String>();
+				keysByEncodedKey.put(encodedKey, keys);
+			}
+			keys.add(key);
+		}
+	}
+
+	private void removeFromKeys(Entry entry) {
+		if (entry.encodedKey == null) {
+			return;
+		}
+		Set<String> keys = keysByEncodedKey.get(entry.encodedKey);
+		if (keys != null) {
+			keys.remove(entry.getKey());
+			if (keys.isEmpty()) {
+				keysByEncodedKey.remove(entry.encodedKey);
+			}
+		}
+	}
+
+	private static String getKey(Class<?> entityClass, String id) {
+		return entityClass.getSimpleName() + " " + id;
+	}
+
+	/**
+	 * Cached entity
+	 */
+	private static class Entry extends LruCache.Entry {
+
+		private final String id;
+		private final Object value;
+		private final String encodedKey;
+
+		Entry(String id, Object value, String encodedKey) {
+			this.id = id;
+			this.value = value;
+			this.encodedKey = encodedKey;
+		}
+	}
+}
@@ -3,7 +3,9 @@
  */
 package com.mambu.apisdk.services;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -11,9 +13,17 @@ import com.mambu.accounts.shared.model.TransactionDetails;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.model.LoanAccountExpanded;
+import com.mambu.apisdk.model.RepaymentCommand;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.BatchExecutor;
+import com.mambu.apisdk.util.BatchOperation;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.ItemHandler;
+import com.mambu.apisdk.util.MultiGetResult;
+import com.mambu.apisdk.util.PagedIterable;
+import com.mambu.apisdk.util.ParallelPageReader;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.apisdk.util.ServiceHelper;
@@ -139,6 +149,54 @@ public class LoansService {
 		return serviceExecutor.execute(getAccount, accountId);
 	}
 
+	/**
+	 * Requests loan accounts by their ids, concurrently with the default concurrency (see
+	 * BatchExecutor.DEFAULT_CONCURRENCY). Duplicate ids are requested once
+	 * 
+	 * @param accountIds
+	 *            the ids of the loan accounts
+	 * 
+	 * @return the loan accounts by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<LoanAccount> getLoanAccounts(Collection<String> accountIds) throws MambuApiException {
+		return getLoanAccounts(accountIds, BatchExecutor.DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * Requests loan accounts by their ids, concurrently. Duplicate ids are requested once. Each id is requested as by
+	 * {@link #getLoanAccount(String)}
+	 * 
+	 * @param accountIds
+	 *            the ids of the loan accounts
+	 * @param concurrency
+	 *            max number of requests sent concurrently
+	 * 
+	 * @return the loan accounts by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<LoanAccount> getLoanAccounts(Collection<String> accountIds, int concurrency)
+			throws MambuApiException {
+		return serviceExecutor.executeMultiGet(getAccount, accountIds, concurrency);
+	}
+
+	/***
+	 * Get a loan account by its id asynchronously. The calling thread is not blocked while the request is executed
+	 * 
+	 * @param accountId
+	 *            the id of the account
+	 * 
+	 * @return future loan account. Future's get() throws ExecutionException with the MambuApiException as its cause if
+	 *         the request failed
+	 */
+	public Future<LoanAccount> getLoanAccountAsync(String accountId) {
+		return serviceExecutor.executeAsync(getAccount, accountId);
+	}
+
 	/***
 	 * Get all the loan accounts for a given client
 	 * 
@@ -465,6 +523,72 @@ public class LoansService {
 		return serviceExecutor.execute(getAccountTransactions, accountId, paramsMap);
 	}
 
+	/***
+	 * Requests a list of loan transactions for a loan account, limited by offset/limit, and passes the transactions to
+	 * the handler one by one as they are read from the response stream. Use this method for large pages: the list of
+	 * transactions is never held in memory
+	 * 
+	 * @param accountId
+	 *            the id of the loan account
+	 * @param offset
+	 *            offset to start pagination
+	 * @param limit
+	 *            page-size
+	 * @param handler
+	 *            handler for the loan transactions
+	 * 
+	 * @return the number of transactions passed to the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public int getLoanAccountTransactions(String accountId, String offset, String limit,
+			ItemHandler<LoanTransaction> handler) throws MambuApiException {
+
+		ParamsMap paramsMap = new ParamsMap();
+		paramsMap.put(APIData.OFFSET, offset);
+		paramsMap.put(APIData.LIMIT, limit);
+
+		return serviceExecutor.executeStreaming(getAccountTransactions, accountId, paramsMap, handler);
+	}
+
+	/***
+	 * Get all transactions for a loan account. The transactions are requested lazily, one page at a time, as the
+	 * returned iterable is iterated
+	 * 
+	 * @param accountId
+	 *            the id of the loan account
+	 * @param pageSize
+	 *            number of transactions to request per page
+	 * 
+	 * @return iterable over all loan account transactions
+	 */
+	public PagedIterable<LoanTransaction> getLoanAccountTransactionsAll(String accountId, int pageSize) {
+
+		return serviceExecutor.executePaged(getAccountTransactions, accountId, null, pageSize);
+	}
+
+	/***
+	 * Requests a list of loan transactions for a loan account asynchronously, limited by offset/limit
+	 * 
+	 * @param accountId
+	 *            the id of the loan account
+	 * @param offset
+	 *            offset to start pagination
+	 * @param limit
+	 *            page-size
+	 * 
+	 * @return future list of loan transactions
+	 */
+	public Future<List<LoanTransaction>> getLoanAccountTransactionsAsync(String accountId, String offset,
+			String limit) {
+
+		ParamsMap paramsMap = new ParamsMap();
+		paramsMap.put(APIData.OFFSET, offset);
+		paramsMap.put(APIData.LIMIT, limit);
+
+		return serviceExecutor.executeAsync(getAccountTransactions, accountId, paramsMap);
+	}
+
 	/**
 	 * Requests a list of loan transactions for a custom view, limited by offset/limit
 	 * 
@@ -488,6 +612,26 @@ public class LoansService {
 
 	}
 
+	/**
+	 * Make a reader for all loan transactions for a custom view. The pages are fetched concurrently, with at most the
+	 * specified number of concurrent requests
+	 * 
+	 * @param customViewKey
+	 *            the key of the Custom View to filter loan transactions
+	 * @param pageSize
+	 *            number of loan transactions to request per page. Must be greater than zero
+	 * @param concurrency
+	 *            maximum number of concurrent requests. Must be greater than zero
+	 * 
+	 * @return reader for all the loan transactions
+	 */
+	public ParallelPageReader<LoanTransaction> getLoanTransactionsByCustomViewParallel(String customViewKey,
+			int pageSize, int concurrency) {
+		// Example GET loan/transactions?viewfilter=123&offset=0&limit=100
+		ParamsMap params = ServiceHelper.makeParamsForGetByCustomView(customViewKey, "0", Integer.toString(pageSize));
+		return serviceExecutor.executeParallel(getAllLoanTransactions, params, pageSize, concurrency);
+	}
+
 	/****
 	 * @deprecated As of release 3.8, replaced by
 	 *             {@link #makeLoanRepayment(String, String, String, String, TransactionDetails)}
@@ -561,6 +705,44 @@ public class LoansService {
 		return serviceExecutor.execute(postAccountTransaction, accountId, paramsMap);
 	}
 
+	/****
+	 * Make Repayments for many loan accounts, e.g. the repayments collected in a day. The repayments for the same
+	 * account are posted one at a time, in the order of the repayments, while the repayments for different accounts
+	 * are posted concurrently. The repayments are not stopped by the failed ones: the outcome of each repayment is
+	 * returned in the report, with Mambu's response message for the failed ones
+	 * 
+	 * @param repayments
+	 *            the repayments, each posted with {@link #makeLoanRepayment(String, String, String, String,
+	 *            TransactionDetails)}. Read once, as the repayments are posted
+	 * @param concurrency
+	 *            max number of repayments posted concurrently. Should not exceed the max connections per route of the
+	 *            HttpClientSettings
+	 * 
+	 * @return report with the LoanTransaction or the exception of each repayment, in the order of the repayments
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public BatchReport<RepaymentCommand, LoanTransaction> makeLoanRepayments(Iterable<RepaymentCommand> repayments,
+			int concurrency) throws MambuApiException {
+
+		BatchOperation<RepaymentCommand, LoanTransaction> repayment = new BatchOperation<RepaymentCommand,
+				LoanTransaction>() {
+			@Override
+			public String getKey(RepaymentCommand command) {
+				return command.getAccountId();
+			}
+
+			@Override
+			public LoanTransaction execute(RepaymentCommand command) throws MambuApiException {
+				return makeLoanRepayment(command.getAccountId(), command.getAmount(), command.getDate(),
+						command.getNotes(), command.getTransactionDetails());
+			}
+		};
+
+		return new BatchExecutor<RepaymentCommand, LoanTransaction>(repayment, concurrency).execute(repayments);
+	}
+
 	/****
 	 * Apply FEE to a loan account
 	 * 
@@ -665,6 +847,25 @@ public class LoansService {
 
 	}
 
+	/**
+	 * Make a reader for all loan accounts for a custom view. The pages are fetched concurrently, with at most the
+	 * specified number of concurrent requests
+	 * 
+	 * @param customViewKey
+	 *            the key of the Custom View to filter loan accounts
+	 * @param pageSize
+	 *            number of loan accounts to request per page. Must be greater than zero
+	 * @param concurrency
+	 *            maximum number of concurrent requests. Must be greater than zero
+	 * 
+	 * @return reader for all the loan accounts
+	 */
+	public ParallelPageReader<LoanAccount> getLoanAccountsByCustomViewParallel(String customViewKey, int pageSize,
+			int concurrency) {
+		ParamsMap params = ServiceHelper.makeParamsForGetByCustomView(customViewKey, "0", Integer.toString(pageSize));
+		return serviceExecutor.executeParallel(getAccountsList, params, pageSize, concurrency);
+	}
+
 	// Loan Products
 	/***
 	 * Get a list of Loan Products
@@ -0,0 +1,502 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.MambuAPIService;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ApiDefinition;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.ServiceExecutor;
+import com.mambu.core.shared.model.User;
+import com.mambu.organization.shared.model.Branch;
+import com.mambu.organization.shared.model.Centre;
+
+/**
+ * In-memory snapshot of the organization structure: all branches, centres and users, indexed by branch. The snapshot
+ * is loaded in bulk, with a few paginated list requests, and then answers the branch, centre and user lookups locally
+ * instead of making an API request per lookup, for example:
+ *
+ * OrganizationCache organizationCache = MambuAPIFactory.getOrganizationCache();
+ *
+ * organizationCache.scheduleRefresh(300000);
+ *
+ * List<Centre> centres = organizationCache.getCentres(branchId);
+ *
+ * The snapshot is loaded on the first lookup (or explicitly with refresh()) and is then refreshed on request or on a
+ * schedule. Mambu list APIs cannot filter by the last modification date, so each refresh reads all entities again, but
+ * the unchanged entities (with the same last modification date) keep their cached objects and the indexes are rebuilt
+ * only when something changed. The lookups keep using the previous snapshot while a refresh is in progress.
+ *
+ * Branches and centres are loaded with full details. The returned objects are shared by all callers and must not be
+ * modified
+ */
+@Singleton
+public class OrganizationCache {
+
+	private final static Logger LOGGER = Logger.getLogger(OrganizationCache.class.getName());
+
+	// Default number of entities requested per page
+	public final static int DEFAULT_PAGE_SIZE = 500;
+
+	private final static ApiDefinition getBranches = new ApiDefinition(ApiType.GET_LIST, Branch.class);
+	private final static ApiDefinition getCentres = new ApiDefinition(ApiType.GET_LIST, Centre.class);
+	private final static ApiDefinition getUsers = new ApiDefinition(ApiType.GET_LIST, User.class);
+
+	private final ServiceExecutor serviceExecutor;
+	private volatile int pageSize = DEFAULT_PAGE_SIZE;
+
+	// Current snapshot. Null until loaded
+	private volatile Snapshot snapshot = null;
+	// Serializes the refreshes
+	private final Object refreshLock = new Object();
+
+	private Timer refreshTimer = null;
+
+	/***
+	 * Create a new organization cache. The scheduled refreshes are stopped when the service is closed
+	 *
+	 * @param mambuAPIService
+	 *            the service responsible with the connection to the server
+	 */
+	@Inject
+	public OrganizationCache(MambuAPIService mambuAPIService) {
+		this.serviceExecutor = new ServiceExecutor(mambuAPIService);
+		mambuAPIService.addCloseTask(new Runnable() {
+			@Override
+			public void run() {
+				cancelRefresh();
+			}
+		});
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Set the number of entities requested per page when loading the snapshot
+	 *
+	 * @param pageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Get all branches
+	 *
+	 * @return list of branches, in the order returned by Mambu
+	 *
+	 * @throws MambuApiException
+	 *             if the snapshot is not loaded yet and cannot be loaded
+	 */
+	public List<Branch> getBranches() throws MambuApiException {
+		return getSnapshot().branches;
+	}
+
+	/**
+	 * Get a branch by its id or encoded key
+	 *
+	 * @param branchId
+	 *            the id or the encoded key of the branch
+	 *
+	 * @return the branch or null if there is no such branch
+	 *
+	 * @throws MambuApiException
+	 *             if the snapshot is not loaded yet and cannot be loaded
+	 */
+	public Branch getBranch(String branchId) throws MambuApiException {
+		return getSnapshot().branchesById.get(branchId);
+	}
+
+	/**
+	 * Get a centre by its id or encoded key
+	 *
+	 * @param centreId
+	 *            the id or the encoded key of the centre
+	 *
+	 * @return the centre or null if there is no such centre
+	 *
+	 * @throws MambuApiException
+	 *             if the snapshot is not loaded yet and cannot be loaded
+	 */
+	public Centre getCentre(String centreId) throws MambuApiException {
+		return getSnapshot().centresById.get(centreId);
+	}
+
+	/**
+	 * Get the centres assigned to a branch
+	 *
+	 * @param branchId
+	 *            the id or the encoded key of the branch. If null, all centres are returned
+	 *
+	 * @return list of centres. Empty if there is no such branch
+	 *
+	 * @throws MambuApiException
+	 *             if the snapshot is not loaded yet and cannot be loaded
+	 */
+	public List<Centre> getCentres(String branchId) throws MambuApiException {
+		Snapshot current = getSnapshot();
+		if (branchId == null) {
+			return current.centres;
+		}
+		return current.getByBranch(current.centresByBranch, branchId);
+	}
+
+	/**
+	 * Get the users assigned to a branch
+	 *
+	 * @param branchId
+	 *            the id or the encoded key of the branch. If null, all users are returned
+	 *
+	 * @return list of users. Empty if there is no such branch
+	 *
+	 * @throws MambuApiException
+	 *             if the snapshot is not loaded yet and cannot be loaded
+	 */
+	public List<User> getUsers(String branchId) throws MambuApiException {
+		Snapshot current = getSnapshot();
+		if (branchId == null) {
+			return current.users;
+		}
+		return current.getByBranch(current.usersByBranch, branchId);
+	}
+
+	/**
+	 * Check whether the snapshot is loaded
+	 *
+	 * @return true if the snapshot was loaded
+	 */
+	public boolean isLoaded() {
+		return snapshot != null;
+	}
+
+	/**
+	 * Get the time when the current snapshot was loaded
+	 *
+	 * @return load time or null if the snapshot is not loaded yet
+	 */
+	public Date getLoadedAt() {
+		Snapshot current = snapshot;
+		return current == null ? null : new Date(current.loadedAt);
+	}
+
+	/**
+	 * Load all branches, centres and users now and replace the snapshot if anything changed. If the load fails, the
+	 * previous snapshot is kept
+	 *
+	 * @return number of the added, changed and removed entities since the previous snapshot. All entities are counted
+	 *         on the first load
+	 *
+	 * @throws MambuApiException
+	 */
+	public int refresh() throws MambuApiException {
+
+		synchronized (refreshLock) {
+			Snapshot previous = snapshot;
+
+			ParamsMap params = new ParamsMap();
+			params.addParam(APIData.FULL_DETAILS, "true");
+			List<Branch> branches = loadAll(getBranches, params);
+			List<Centre> centres = loadAll(getCentres, params);
+			List<User> users = loadAll(getUsers, null);
+
+			int changes;
+			if (previous == null) {
+				changes = branches.size() + centres.size() + users.size();
+			} else {
+				Changes counter = new Changes();
+				branches = counter.reuseUnchanged(branches, previous.branchesByKey, BRANCH_KEYS);
+				centres = counter.reuseUnchanged(centres, previous.centresByKey, CENTRE_KEYS);
+				users = counter.reuseUnchanged(users, previous.usersByKey, USER_KEYS);
+				changes = counter.count;
+			}
+
+			if (previous == null || changes > 0) {
+				snapshot = new Snapshot(branches, centres, users);
+			} else {
+				// Nothing changed: keep the indexes and only record the load time
+				snapshot = previous.reloaded();
+			}
+			LOGGER.fine("Organization snapshot loaded: " + branches.size() + " branches, " + centres.size()
+					+ " centres, " + users.size() + " users, " + changes + " changes");
+			return changes;
+		}
+	}
+
+	/**
+	 * Refresh the snapshot periodically on a background daemon thread. Failed refreshes are logged and the previous
+	 * snapshot is kept until the next successful one. Replaces the previous schedule, if any
+	 *
+	 * @param period
+	 *            time between the refreshes, in milliseconds. Must be greater than zero
+	 */
+	public synchronized void scheduleRefresh(long period) {
+		if (period < 1) {
+			throw new IllegalArgumentException("Refresh period must be greater than zero");
+		}
+		cancelRefresh();
+
+		refreshTimer = new Timer("Mambu-OrganizationCache", true);
+		refreshTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					refresh();
+				} catch (MambuApiException e) {
+					LOGGER.warning("Failed to refresh the organization snapshot: " + e.getMessage());
+				} catch (RuntimeException e) {
+					LOGGER.warning("Failed to refresh the organization snapshot: " + e);
+				}
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Stop the scheduled refreshes. The current snapshot is kept
+	 */
+	public synchronized void cancelRefresh() {
+		if (refreshTimer != null) {
+			refreshTimer.cancel();
+			refreshTimer = null;
+		}
+	}
+
+	/**
+	 * Get the current snapshot, loading it if it is not loaded yet
+	 */
+	private Snapshot getSnapshot() throws MambuApiException {
+		Snapshot current = snapshot;
+		if (current == null) {
+			synchronized (refreshLock) {
+				if (snapshot == null) {
+					refresh();
+				}
+				current = snapshot;
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Load all entities with the paginated list requests
+	 */
+	private <T> List<T> loadAll(ApiDefinition apiDefinition, ParamsMap params) throws MambuApiException {
+		List<T> entities = new ArrayList<T>();
+		try {
+			for (T entity : serviceExecutor.<T> executePaged(apiDefinition, params, pageSize)) {
+				entities.add(entity);
+			}
+		} catch (MambuApiRuntimeException e) {
+			throw e.getMambuApiException();
+		}
+		return entities;
+	}
+
+	/**
+	 * Gets the keys of an entity
+	 */
+	private interface Keys<T> {
+
+		String getEncodedKey(T entity);
+
+		Date getLastModifiedDate(T entity);
+	}
+
+	private final static Keys<Branch> BRANCH_KEYS = new Keys<Branch>() {
+		@Override
+		public String getEncodedKey(Branch branch) {
+			return branch.getEncodedKey();
+		}
+
+		@Override
+		public Date getLastModifiedDate(Branch branch) {
+			return branch.getLastModifiedDate();
+		}
+	};
+
+	private final static Keys<Centre> CENTRE_KEYS = new Keys<Centre>() {
+		@Override
+		public String getEncodedKey(Centre centre) {
+			return centre.getEncodedKey();
+		}
+
+		@Override
+		public Date getLastModifiedDate(Centre centre) {
+			return centre.getLastModifiedDate();
+		}
+	};
+
+	private final static Keys<User> USER_KEYS = new Keys<User>() {
+		@Override
+		public String getEncodedKey(User user) {
+			return user.getEncodedKey();
+		}
+
+		@Override
+		public Date getLastModifiedDate(User user) {
+			return user.getLastModifiedDate();
+		}
+	};
+
+	/**
+	 * Counts the changes between the loaded entities and the previous snapshot
+	 */
+	private static class Changes {
+
+		private int count = 0;
+
+		/**
+		 * Replace the unchanged loaded entities with the previously cached objects and count the added, changed and
+		 * removed entities
+		 */
+		<T> List<T> reuseUnchanged(List<T> loaded, Map<String, T> previousByKey, Keys<T> keys) {
+			List<T> result = new ArrayList<T>(loaded.size());
+			int found = 0;
+			for (T entity : loaded) {
+				T cached = previousByKey.get(keys.getEncodedKey(entity));
+				if (cached != null) {
+					found++;
+				}
+				if (cached != null && sameDate(keys.getLastModifiedDate(cached), keys.getLastModifiedDate(entity))) {
+					result.add(cached);
+				} else {
+					result.add(entity);
+					count++;
+				}
+			}
+			// Entities in the previous snapshot which are no longer returned were removed
+			count += previousByKey.size() - found;
+			return result;
+		}
+
+		private static boolean sameDate(Date previous, Date loaded) {
+			return previous != null && previous.equals(loaded);
+		}
+	}
+
+	/**
+	 * Immutable snapshot with the indexes
+	 */
+	private static class Snapshot {
+
+		private final List<Branch> branches;
+		private final List<Centre> centres;
+		private final List<User> users;
+
+		// By encoded key
+		private final Map<String, Branch> branchesByKey;
+		private final Map<String, Centre> centresByKey;
+		private final Map<String, User> usersByKey;
+
+		// By id and by encoded key
+		private final Map<String, Branch> branchesById;
+		private final Map<String, Centre> centresById;
+
+		// By branch encoded key
+		private final Map<String, List<Centre>> centresByBranch;
+		private final Map<String, List<User>> usersByBranch;
+
+		private final long loadedAt;
+
+		Snapshot(List<Branch> branches, List<Centre> centres, List<User> users) {
+			this.branches = Collections.unmodifiableList(branches);
+			this.centres = Collections.unmodifiableList(centres);
+			this.users = Collections.unmodifiableList(users);
+
+			branchesByKey = new HashMap<String, Branch>();
+			branchesById = new HashMap<String, Branch>();
+			for (Branch branch : branches) {
+				branchesByKey.put(branch.getEncodedKey(), branch);
+				branchesById.put(branch.getEncodedKey(), branch);
+				branchesById.put(branch.getId(), branch);
+			}
+
+			centresByKey = new HashMap<String, Centre>();
+			centresById = new HashMap<String, Centre>();
+			Map<String, List<Centre>> centresIndex = new LinkedHashMap<String, List<Centre>>();
+			for (Centre centre : centres) {
+				centresByKey.put(centre.getEncodedKey(), centre);
+				centresById.put(centre.getEncodedKey(), centre);
+				centresById.put(centre.getId(), centre);
+				addToIndex(centresIndex, centre.getAssignedBranchKey(), centre);
+			}
+			centresByBranch = unmodifiableIndex(centresIndex);
+
+			usersByKey = new HashMap<String, User>();
+			Map<String, List<User>> usersIndex = new LinkedHashMap<String, List<User>>();
+			for (User user : users) {
+				usersByKey.put(user.getEncodedKey(), user);
+				addToIndex(usersIndex, user.getAssignedBranchKey(), user);
+			}
+			usersByBranch = unmodifiableIndex(usersIndex);
+
+			loadedAt = System.currentTimeMillis();
+		}
+
+		// Copy sharing the indexes, with the current load time
+		private Snapshot(Snapshot previous) {
+			branches = previous.branches;
+			centres = previous.centres;
+			users = previous.users;
+			branchesByKey = previous.branchesByKey;
+			centresByKey = previous.centresByKey;
+			usersByKey = previous.usersByKey;
+			branchesById = previous.branchesById;
+			centresById = previous.centresById;
+			centresByBranch = previous.centresByBranch;
+			usersByBranch = previous.usersByBranch;
+			loadedAt = System.currentTimeMillis();
+		}
+
+		Snapshot reloaded() {
+			return new Snapshot(this);
+		}
+
+		/**
+		 * Get the entities of the branch with the id or encoded key
+		 */
+		<T> List<T> getByBranch(Map<String, List<T>> index, String branchId) {
+			Branch branch = branchesById.get(branchId);
+			List<T> entities = (branch == null) ? null : index.get(branch.getEncodedKey());
+			return entities == null ? Collections.<T> emptyList() : entities;
+		}
+
+		private static <T> void addToIndex(Map<String, List<T>> index, String branchKey, T entity) {
+			if (branchKey == null) {
+				return;
+			}
+			List<T> entities = index.get(branchKey);
+			if (entities == null) {
+				entities = new ArrayList<T>();
+				index.put(branchKey, entities);
+			}
+			entities.add(entity);
+		}
+
+		private static <T> Map<String, List<T>> unmodifiableIndex(Map<String, List<T>> index) {
+			for (Map.Entry<String, List<T>> entry : index.entrySet()) {
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+			return index;
+		}
+	}
+}
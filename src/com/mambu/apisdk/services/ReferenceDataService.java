@@ -0,0 +1,108 @@
+package com.mambu.apisdk.services;
+
+import java.io.File;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.MambuAPIService;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ReferenceDataCache;
+
+/**
+ * Service class which loads the reference data (loan and savings products, transaction channels, the base currency and
+ * custom field sets) into the MambuAPIService's ReferenceDataCache. Applications can warm up the cache on start, so
+ * that the first transactions don't wait for the reference data requests, for example:
+ * 
+ * MambuAPIFactory.getMambuAPIService().setReferenceDataCache(new ReferenceDataCache());
+ * 
+ * MambuAPIFactory.getReferenceDataService().warmUp();
+ * 
+ * To start without downloading the reference data again after a restart, warm up the cache from a snapshot file:
+ * 
+ * MambuAPIFactory.getReferenceDataService().warmUp(new File("/var/cache/myapp/demo.mambu.com.snapshot"));
+ */
+public class ReferenceDataService {
+
+	private final MambuAPIService mambuAPIService;
+	private final LoansService loansService;
+	private final SavingsService savingsService;
+	private final OrganizationService organizationService;
+
+	/***
+	 * Create a new reference data service
+	 * 
+	 * @param mambuAPIService
+	 *            the service responsible with the connection to the server
+	 */
+	@Inject
+	public ReferenceDataService(MambuAPIService mambuAPIService) {
+		this.mambuAPIService = mambuAPIService;
+		this.loansService = new LoansService(mambuAPIService);
+		this.savingsService = new SavingsService(mambuAPIService);
+		this.organizationService = new OrganizationService(mambuAPIService);
+	}
+
+	/**
+	 * Load the reference data into the cache. The results are cached for the same requests as made by the services
+	 * (e.g. OrganizationService.getTransactionChannels()), products are requested with the default offset and limit
+	 * 
+	 * @throws MambuApiException
+	 * @throws IllegalStateException
+	 *             if the MambuAPIService has no reference data cache
+	 */
+	public void warmUp() throws MambuApiException {
+
+		if (mambuAPIService.getReferenceDataCache() == null) {
+			throw new IllegalStateException("ReferenceDataCache is not set for the MambuAPIService");
+		}
+
+		organizationService.getCurrency();
+		organizationService.getTransactionChannels();
+		organizationService.getCustomFieldSets(null);
+		loansService.getLoanProducts(null, null);
+		savingsService.getSavingsProducts(null, null);
+	}
+
+	/**
+	 * Load the reference data from the snapshot file into the cache and then load the reference data missing from the
+	 * snapshot from Mambu (see warmUp()). The results from the snapshot are revalidated with Mambu in the background.
+	 * The snapshot file is saved again each time the reference data is loaded from Mambu (see
+	 * ReferenceDataCache.setSnapshotFile())
+	 * 
+	 * @param snapshotFile
+	 *            snapshot file for this tenant. It is created if it does not exist
+	 * @return number of the results loaded from the snapshot file
+	 * @throws MambuApiException
+	 * @throws IllegalStateException
+	 *             if the MambuAPIService has no reference data cache
+	 */
+	public int warmUp(File snapshotFile) throws MambuApiException {
+
+		if (snapshotFile == null) {
+			throw new IllegalArgumentException("Snapshot file must not be null");
+		}
+		ReferenceDataCache cache = mambuAPIService.getReferenceDataCache();
+		if (cache == null) {
+			throw new IllegalStateException("ReferenceDataCache is not set for the MambuAPIService");
+		}
+
+		int loaded = cache.setSnapshotFile(snapshotFile);
+		warmUp();
+		return loaded;
+	}
+
+	/**
+	 * Reload all reference data in the cache, e.g. after the products were changed in Mambu
+	 * 
+	 * @throws MambuApiException
+	 * @throws IllegalStateException
+	 *             if the MambuAPIService has no reference data cache
+	 */
+	public void refresh() throws MambuApiException {
+
+		ReferenceDataCache cache = mambuAPIService.getReferenceDataCache();
+		if (cache == null) {
+			throw new IllegalStateException("ReferenceDataCache is not set for the MambuAPIService");
+		}
+		cache.refresh();
+	}
+}
@@ -3,18 +3,28 @@
  */
 package com.mambu.apisdk.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import com.google.inject.Inject;
 import com.mambu.accounts.shared.model.TransactionDetails;
 import com.mambu.api.server.handler.savings.model.JSONSavingsAccount;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.SavingsTransactionCommand;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.APIData.ACCOUNT_TYPE;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.BatchExecutor;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.ItemHandler;
+import com.mambu.apisdk.util.MultiGetResult;
+import com.mambu.apisdk.util.MultiKeyBatchOperation;
 import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.PrefetchingPagedIterable;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.apisdk.util.ServiceHelper;
 import com.mambu.clients.shared.model.Client;
@@ -144,6 +154,54 @@ public class SavingsService {
 		return serviceExecutor.execute(getAccount, accountId);
 	}
 
+	/**
+	 * Requests savings accounts by their ids, concurrently with the default concurrency (see
+	 * BatchExecutor.DEFAULT_CONCURRENCY). Duplicate ids are requested once
+	 * 
+	 * @param accountIds
+	 *            the ids of the savings accounts
+	 * 
+	 * @return the savings accounts by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<SavingsAccount> getSavingsAccounts(Collection<String> accountIds) throws MambuApiException {
+		return getSavingsAccounts(accountIds, BatchExecutor.DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * Requests savings accounts by their ids, concurrently. Duplicate ids are requested once. Each id is requested as
+	 * by {@link #getSavingsAccount(String)}
+	 * 
+	 * @param accountIds
+	 *            the ids of the savings accounts
+	 * @param concurrency
+	 *            max number of requests sent concurrently
+	 * 
+	 * @return the savings accounts by their id and the exceptions of the ids which failed
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public MultiGetResult<SavingsAccount> getSavingsAccounts(Collection<String> accountIds, int concurrency)
+			throws MambuApiException {
+		return serviceExecutor.executeMultiGet(getAccount, accountIds, concurrency);
+	}
+
+	/***
+	 * Get a savings account by its id asynchronously. The calling thread is not blocked while the request is executed
+	 * 
+	 * @param accountId
+	 *            the id of the account
+	 * 
+	 * @return future savings account. Future's get() throws ExecutionException with the MambuApiException as its cause
+	 *         if the request failed
+	 */
+	public Future<SavingsAccount> getSavingsAccountAsync(String accountId) {
+		return serviceExecutor.executeAsync(getAccount, accountId);
+	}
+
 	/***
 	 * Get a savings account with full details by its id
 	 * 
@@ -243,6 +301,33 @@ public class SavingsService {
 		return serviceExecutor.execute(getAccountTransactions, accountId, paramsMap);
 	}
 
+	/***
+	 * Requests a list of savings transactions for a savings account, limited by offset/limit, and passes the
+	 * transactions to the handler one by one as they are read from the response stream
+	 * 
+	 * @param accountId
+	 *            the id of the savings account
+	 * @param offset
+	 *            offset to start pagination
+	 * @param limit
+	 *            page-size
+	 * @param handler
+	 *            handler for the savings transactions
+	 * 
+	 * @return the number of transactions passed to the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public int getSavingsAccountTransactions(String accountId, String offset, String limit,
+			ItemHandler<SavingsTransaction> handler) throws MambuApiException {
+
+		ParamsMap paramsMap = new ParamsMap();
+		paramsMap.put(OFFSET, offset);
+		paramsMap.put(LIMIT, limit);
+
+		return serviceExecutor.executeStreaming(getAccountTransactions, accountId, paramsMap, handler);
+	}
+
 	/**
 	 * Requests a list of savings transactions for a custom view, limited by offset/limit
 	 * 
@@ -265,6 +350,26 @@ public class SavingsService {
 		return serviceExecutor.execute(getAllSavingsTransactions, params);
 	}
 
+	/**
+	 * Requests all savings transactions for a custom view. The transactions are requested page by page, the next pages
+	 * being requested in the background while the current page is processed
+	 * 
+	 * @param customViewKey
+	 *            the key of the Custom View to filter savings transactions
+	 * @param pageSize
+	 *            number of transactions to request per page. Must be greater than zero
+	 * @param prefetchPages
+	 *            number of pages to request ahead of the current page. Must be greater than zero
+	 * 
+	 * @return iterable over all the Mambu savings transactions
+	 */
+	public PrefetchingPagedIterable<SavingsTransaction> getSavingsTransactionsByCustomViewAll(String customViewKey,
+			int pageSize, int prefetchPages) {
+		// Example GET savings/transactions?viewfilter=567&offset=0&limit=100
+		ParamsMap params = ServiceHelper.makeParamsForGetByCustomView(customViewKey, "0", Integer.toString(pageSize));
+		return serviceExecutor.executePrefetching(getAllSavingsTransactions, params, pageSize, prefetchPages);
+	}
+
 	/****
 	 * @deprecated As of release 3.8, replaced by
 	 *             {@link #makeWithdrawal(String, String, String, String, TransactionDetails)}
@@ -443,6 +548,77 @@ public class SavingsService {
 		return serviceExecutor.execute(postAccountTransaction, fromAccountId, paramsMap);
 	}
 
+	/****
+	 * Make deposits, withdrawals and transfers for many savings accounts, e.g. the deposits of a payroll file. The
+	 * transactions for the same account are posted one at a time, in the order of the transactions, while the
+	 * transactions for different accounts are posted concurrently. The transfers are ordered with the transactions of
+	 * both the account they transfer from and the account they transfer to, e.g. a withdrawal from the destination
+	 * account is posted after the transfer to it. The accounts must be identified the same way in all transactions of
+	 * the batch, either by their id or by their encoded key. The transactions are not stopped by the failed ones: the
+	 * outcome of each transaction is returned in the report, with Mambu's response message for the failed ones, so
+	 * that they can be posted again in a new batch
+	 * 
+	 * @param transactions
+	 *            the transactions, each posted with {@link #makeDeposit(String, String, String, String,
+	 *            TransactionDetails)}, {@link #makeWithdrawal(String, String, String, String, TransactionDetails)} or
+	 *            {@link #makeTransfer(String, String, ACCOUNT_TYPE, String, String)} depending on its type. Read once,
+	 *            as the transactions are posted
+	 * @param concurrency
+	 *            max number of transactions posted concurrently. Should not exceed the max connections per route of
+	 *            the HttpClientSettings
+	 * 
+	 * @return report with the SavingsTransaction or the exception of each transaction, in the order of the
+	 *         transactions
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public BatchReport<SavingsTransactionCommand, SavingsTransaction> makeTransactions(
+			Iterable<SavingsTransactionCommand> transactions, int concurrency) throws MambuApiException {
+
+		MultiKeyBatchOperation<SavingsTransactionCommand, SavingsTransaction> transaction = new MultiKeyBatchOperation<
+				SavingsTransactionCommand, SavingsTransaction>() {
+			@Override
+			public String getKey(SavingsTransactionCommand command) {
+				return command.getAccountId();
+			}
+
+			@Override
+			public Collection<String> getKeys(SavingsTransactionCommand command) {
+				List<String> keys = new ArrayList<String>();
+				keys.add(command.getAccountId());
+				if (command.getType() == SavingsTransactionCommand.Type.TRANSFER
+						&& command.getDestinationAccountKey() != null) {
+					// The loan accounts are keyed apart from the savings accounts
+					keys.add((command.getDestinationAccountType() == ACCOUNT_TYPE.LOAN) ? "LOAN:"
+							+ command.getDestinationAccountKey() : command.getDestinationAccountKey());
+				}
+				return keys;
+			}
+
+			@Override
+			public SavingsTransaction execute(SavingsTransactionCommand command) throws MambuApiException {
+				if (command.getType() == null) {
+					throw new IllegalArgumentException("Transaction type must not be null");
+				}
+				switch (command.getType()) {
+				case DEPOSIT:
+					return makeDeposit(command.getAccountId(), command.getAmount(), command.getDate(),
+							command.getNotes(), command.getTransactionDetails());
+				case WITHDRAWAL:
+					return makeWithdrawal(command.getAccountId(), command.getAmount(), command.getDate(),
+							command.getNotes(), command.getTransactionDetails());
+				default:
+					return makeTransfer(command.getAccountId(), command.getDestinationAccountKey(),
+							command.getDestinationAccountType(), command.getAmount(), command.getNotes());
+				}
+			}
+		};
+
+		return new BatchExecutor<SavingsTransactionCommand, SavingsTransaction>(transaction, concurrency)
+				.execute(transactions);
+	}
+
 	/****
 	 * Apply Arbitrary FEE to a savings account
 	 * 
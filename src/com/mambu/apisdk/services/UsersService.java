@@ -10,6 +10,7 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.PagedIterable;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.apisdk.util.ServiceHelper;
@@ -78,6 +79,19 @@ public class UsersService {
 		return serviceExecutor.execute(getUsers, params);
 	}
 
+	/**
+	 * Get all the users. The users are requested lazily, one page at a time, as the returned iterable is iterated
+	 * 
+	 * @param pageSize
+	 *            number of users to request per page
+	 * 
+	 * @return iterable over all Users
+	 */
+	public PagedIterable<User> getUsersAll(int pageSize) {
+
+		return serviceExecutor.executePaged(getUsers, null, pageSize);
+	}
+
 	/**
 	 * Get users (first 50 per default)
 	 * 
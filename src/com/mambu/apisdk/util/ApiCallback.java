@@ -0,0 +1,30 @@
+package com.mambu.apisdk.util;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * Callback interface for receiving the results of the asynchronous API requests. The callback methods are invoked on
+ * the thread which completed the request, implementations should therefore return quickly and must not block
+ * 
+ * @param <T>
+ *            the type of the request's result
+ */
+public interface ApiCallback<T> {
+
+	/**
+	 * Invoked when the API request completed successfully
+	 * 
+	 * @param result
+	 *            the result of the API request
+	 */
+	public void onSuccess(T result);
+
+	/**
+	 * Invoked when the API request failed
+	 * 
+	 * @param exception
+	 *            the exception the request failed with
+	 */
+	public void onFailure(MambuApiException exception);
+
+}
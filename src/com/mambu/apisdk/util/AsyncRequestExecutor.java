@@ -0,0 +1,58 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.Future;
+
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * Interface for executing url requests asynchronously. Requests are executed in the background and their results are
+ * returned as a Future. If the request fails, calling get() on the returned future throws an ExecutionException with
+ * the MambuApiException as its cause
+ */
+public interface AsyncRequestExecutor {
+
+	/**
+	 * Executes a request asynchronously with given url, params, request method and content type.
+	 * 
+	 * @param urlString
+	 *            the url to execute on. eg: https://demo.mambu.com/api/clients
+	 * @param params
+	 *            the parameters eg: {clientId=id}, {JSON=jsonString}. Can be null
+	 * @param method
+	 *            the method (e.g. GET or POST)
+	 * @param contentTypeFormat
+	 *            enum for the content type (e.g WWW_FORM or JSON)
+	 * 
+	 * @return future Mambu Response String
+	 */
+	public Future<String> executeRequest(String urlString, ParamsMap params, Method method,
+			ContentType contentTypeFormat);
+
+	/**
+	 * Executes a request asynchronously with given url, params, request method and content type and notifies the
+	 * callback when the request completes
+	 * 
+	 * @param urlString
+	 *            the url to execute on. eg: https://demo.mambu.com/api/clients
+	 * @param params
+	 *            the parameters eg: {clientId=id}, {JSON=jsonString}. Can be null
+	 * @param method
+	 *            the method (e.g. GET or POST)
+	 * @param contentTypeFormat
+	 *            enum for the content type (e.g WWW_FORM or JSON)
+	 * @param callback
+	 *            callback to be notified with the Mambu Response String or with the exception. Can be null
+	 * 
+	 * @return future Mambu Response String
+	 */
+	public Future<String> executeRequest(String urlString, ParamsMap params, Method method,
+			ContentType contentTypeFormat, ApiCallback<String> callback);
+
+	/**
+	 * Stop accepting new requests and release the threads used by the executor. Requests already submitted are
+	 * completed
+	 */
+	public void close();
+
+}
@@ -0,0 +1,169 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * Implementation of executing url requests asynchronously.
+ *
+ * Requests are executed by the RequestExecutor on a small pool of daemon threads. The number of threads is limited by
+ * the maximum number of pooled connections (see HttpClientSettings), so that threads are never blocked waiting for a
+ * connection: requests submitted above this limit are queued and do not consume additional threads
+ */
+@Singleton
+public class AsyncRequestExecutorImpl implements AsyncRequestExecutor {
+
+	private final static Logger LOGGER = Logger.getLogger(AsyncRequestExecutorImpl.class.getName());
+
+	// Idle threads are terminated after this time
+	private final static long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+	private final RequestExecutor executor;
+	private final ThreadPoolExecutor threadPool;
+
+	/**
+	 * Create AsyncRequestExecutorImpl
+	 *
+	 * @param executor
+	 *            request executor used to execute the requests
+	 * @param settings
+	 *            http client settings. The max number of pooled connections determines the number of threads
+	 */
+	@Inject
+	public AsyncRequestExecutorImpl(RequestExecutor executor, HttpClientSettings settings) {
+
+		if (executor == null || settings == null) {
+			throw new IllegalArgumentException("RequestExecutor and HttpClientSettings must not be null");
+		}
+		this.executor = executor;
+
+		final int threads = settings.getMaxConnectionsTotal();
+		threadPool = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("Mambu-AsyncRequest-"));
+		threadPool.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public Future<String> executeRequest(String urlString, ParamsMap params, Method method,
+			ContentType contentTypeFormat) {
+		return executeRequest(urlString, params, method, contentTypeFormat, null);
+	}
+
+	@Override
+	public Future<String> executeRequest(final String urlString, final ParamsMap params, final Method method,
+			final ContentType contentTypeFormat, ApiCallback<String> callback) {
+
+		// Execute the request with the caller's request context (timeouts and deadline)
+		final RequestContext context = RequestContext.current();
+		Callable<String> request = new Callable<String>() {
+			@Override
+			public String call() throws MambuApiException {
+				RequestContext previousContext = context.attach();
+				try {
+					return executor.executeRequest(urlString, params, method, contentTypeFormat);
+				} finally {
+					RequestContext.restore(previousContext);
+				}
+			}
+		};
+
+		CallbackFutureTask<String> task = new CallbackFutureTask<String>(request, callback);
+		threadPool.execute(task);
+
+		return task;
+	}
+
+	@Override
+	public void close() {
+		threadPool.shutdown();
+	}
+
+	/**
+	 * FutureTask notifying the ApiCallback (if provided) when the task completes
+	 */
+	static class CallbackFutureTask<T> extends FutureTask<T> {
+
+		private final ApiCallback<T> callback;
+
+		CallbackFutureTask(Callable<T> callable, ApiCallback<T> callback) {
+			super(callable);
+			this.callback = callback;
+		}
+
+		@Override
+		protected void done() {
+			if (callback == null || isCancelled()) {
+				return;
+			}
+			T result;
+			try {
+				result = get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				callback.onFailure(toMambuApiException(e));
+				return;
+			}
+			try {
+				callback.onSuccess(result);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Exception in ApiCallback.onSuccess()", e);
+			}
+		}
+	}
+
+	/**
+	 * Get MambuApiException from the ExecutionException thrown by the Future's get()
+	 *
+	 * @param e
+	 *            execution exception
+	 * @return MambuApiException which caused the execution exception or a new MambuApiException wrapping the cause
+	 */
+	static MambuApiException toMambuApiException(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof MambuApiException) {
+			return (MambuApiException) cause;
+		}
+		if (cause instanceof Exception) {
+			return new MambuApiException((Exception) cause);
+		}
+		return new MambuApiException(e);
+	}
+
+	/**
+	 * Thread factory creating named daemon threads, so that the executor's threads don't prevent the application from
+	 * exiting
+	 */
+	public static class DaemonThreadFactory implements ThreadFactory {
+
+		private final String namePrefix;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		public DaemonThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
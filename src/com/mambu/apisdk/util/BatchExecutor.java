@@ -0,0 +1,292 @@
+package com.mambu.apisdk.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl.DaemonThreadFactory;
+
+/**
+ * Executor for large batches of commands, e.g. the repayments of a nightly collections run. The commands are executed
+ * concurrently by a fixed number of workers, but the commands with the same key (e.g. the same account) are executed
+ * one at a time, in the order of the batch, so that the transactions of each account are posted in order. The
+ * commands of a MultiKeyBatchOperation can have several keys, e.g. a transfer between two accounts: such a command is
+ * ordered with the commands of each of its keys.
+ *
+ * The batch doesn't stop at the failed commands: the outcome of each command is collected in the BatchReport. The
+ * commands are read from the batch as the workers make progress, so that at most the max pending commands are held in
+ * memory besides the report. The number of workers should not exceed the max connections per route of the
+ * HttpClientSettings, otherwise the workers wait for the pooled connections
+ *
+ * @param <C>
+ *            the type of the commands
+ * @param <R>
+ *            the type of the results
+ */
+public class BatchExecutor<C, R> {
+
+	// Default values
+	public final static int DEFAULT_CONCURRENCY = 4;
+	public final static int DEFAULT_MAX_PENDING = 1000;
+
+	private final BatchOperation<C, R> operation;
+	private final int concurrency;
+	private final int maxPending;
+
+	/**
+	 * Create BatchExecutor with the default max pending commands
+	 *
+	 * @param operation
+	 *            operation executing the commands
+	 * @param concurrency
+	 *            max number of commands executed concurrently. Must be greater than zero
+	 */
+	public BatchExecutor(BatchOperation<C, R> operation, int concurrency) {
+		this(operation, concurrency, DEFAULT_MAX_PENDING);
+	}
+
+	/**
+	 * Create BatchExecutor
+	 *
+	 * @param operation
+	 *            operation executing the commands
+	 * @param concurrency
+	 *            max number of commands executed concurrently. Must be greater than zero
+	 * @param maxPending
+	 *            max number of commands read from the batch but not completed yet. Must not be less than concurrency
+	 */
+	public BatchExecutor(BatchOperation<C, R> operation, int concurrency, int maxPending) {
+		if (operation == null) {
+			throw new IllegalArgumentException("BatchOperation cannot be NULL");
+		}
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be greater than zero");
+		}
+		if (maxPending < concurrency) {
+			throw new IllegalArgumentException("Max pending commands must not be less than concurrency");
+		}
+		this.operation = operation;
+		this.concurrency = concurrency;
+		this.maxPending = maxPending;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * Execute all commands of the batch and wait for their completion. The commands are executed with the caller's
+	 * request context (timeouts and deadline)
+	 *
+	 * @param commands
+	 *            the commands. Read once, on the calling thread
+	 * @return report with the outcome of each command
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted. The commands in progress are interrupted and the remaining
+	 *             commands are not executed
+	 */
+	public BatchReport<C, R> execute(Iterable<C> commands) throws MambuApiException {
+
+		if (commands == null) {
+			throw new IllegalArgumentException("Commands cannot be NULL");
+		}
+
+		ExecutorService workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("Mambu-Batch-"));
+		Run run = new Run(RequestContext.current(), workers);
+		try {
+			int index = 0;
+			for (C command : commands) {
+				run.pending.acquire();
+				run.submit(new BatchReport.Item<C, R>(index++, command));
+			}
+			run.awaitCompletion(index);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} finally {
+			workers.shutdownNow();
+		}
+
+		List<BatchReport.Item<C, R>> items = run.getCompleted();
+		Collections.sort(items, new Comparator<BatchReport.Item<C, R>>() {
+			@Override
+			public int compare(BatchReport.Item<C, R> first, BatchReport.Item<C, R> second) {
+				return (first.getIndex() < second.getIndex()) ? -1 : ((first.getIndex() == second.getIndex()) ? 0
+						: 1);
+			}
+		});
+		return new BatchReport<C, R>(items);
+	}
+
+	/**
+	 * State of one execute() call
+	 */
+	private class Run {
+
+		// Limits the commands read from the batch but not completed yet
+		private final Semaphore pending = new Semaphore(maxPending);
+		// Commands not completed yet by key, in the order of the batch. A command is executed once it is the first
+		// command of each of its keys
+		private final Map<String, LinkedList<Task>> queues = new HashMap<String, LinkedList<Task>>();
+		private final List<BatchReport.Item<C, R>> completed = new ArrayList<BatchReport.Item<C, R>>();
+		private final RequestContext context;
+		private final ExecutorService workers;
+
+		Run(RequestContext context, ExecutorService workers) {
+			this.context = context;
+			this.workers = workers;
+		}
+
+		/**
+		 * Execute the command now, or after the commands with the same keys
+		 */
+		void submit(BatchReport.Item<C, R> item) {
+			Set<String> keys;
+			try {
+				keys = getKeys(item.getCommand());
+			} catch (RuntimeException e) {
+				item.setException(new MambuApiException(e));
+				complete(item);
+				return;
+			}
+
+			Task task = new Task(item, keys);
+			synchronized (this) {
+				for (String key : keys) {
+					LinkedList<Task> queue = queues.get(key);
+					if (queue == null) {
+						queue = new LinkedList<Task>();
+						queues.put(key, queue);
+					}
+					queue.add(task);
+				}
+				if (!isReady(task)) {
+					return;
+				}
+			}
+			workers.execute(task);
+		}
+
+		private Set<String> getKeys(C command) {
+			Set<String> keys = new HashSet<String>();
+			if (operation instanceof MultiKeyBatchOperation) {
+				keys.addAll(((MultiKeyBatchOperation<C, R>) operation).getKeys(command));
+			} else {
+				keys.add(operation.getKey(command));
+			}
+			return keys;
+		}
+
+		// Check whether the task is the first task of each of its keys
+		private boolean isReady(Task task) {
+			for (String key : task.keys) {
+				if (queues.get(key).getFirst() != task) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Remove the executed task from the queues of its keys and execute the tasks ready after it
+		 */
+		private void release(Task task) {
+			List<Task> ready = new ArrayList<Task>();
+			synchronized (this) {
+				for (String key : task.keys) {
+					LinkedList<Task> queue = queues.get(key);
+					queue.removeFirst();
+					if (queue.isEmpty()) {
+						queues.remove(key);
+					} else if (isReady(queue.getFirst()) && !ready.contains(queue.getFirst())) {
+						ready.add(queue.getFirst());
+					}
+				}
+			}
+			try {
+				for (Task next : ready) {
+					workers.execute(next);
+				}
+			} catch (RejectedExecutionException e) {
+				// The calling thread was interrupted, the remaining commands are not executed
+			}
+		}
+
+		private void complete(BatchReport.Item<C, R> item) {
+			synchronized (this) {
+				completed.add(item);
+				notifyAll();
+			}
+			pending.release();
+		}
+
+		synchronized void awaitCompletion(int count) throws InterruptedException {
+			while (completed.size() < count) {
+				wait();
+			}
+		}
+
+		synchronized List<BatchReport.Item<C, R>> getCompleted() {
+			return new ArrayList<BatchReport.Item<C, R>>(completed);
+		}
+
+		/**
+		 * A command with its keys
+		 */
+		private class Task implements Runnable {
+
+			private final BatchReport.Item<C, R> item;
+			private final Set<String> keys;
+
+			Task(BatchReport.Item<C, R> item, Set<String> keys) {
+				this.item = item;
+				this.keys = keys;
+			}
+
+			@Override
+			public void run() {
+				RequestContext previousContext = context.attach();
+				try {
+					item.setResult(operation.execute(item.getCommand()));
+				} catch (MambuApiException e) {
+					item.setException(e);
+				} catch (RuntimeException e) {
+					item.setException(new MambuApiException(e));
+				} catch (Error e) {
+					// The worker's thread ends, the next commands are executed by a new worker
+					item.setException(toMambuApiException(e));
+					throw e;
+				} finally {
+					RequestContext.restore(previousContext);
+					release(this);
+					complete(item);
+				}
+			}
+		}
+	}
+
+	// Wrap an error thrown by a command, e.g. an AssertionError or a NoClassDefFoundError
+	private static MambuApiException toMambuApiException(Error error) {
+		MambuApiException exception = new MambuApiException(-1, error.toString());
+		exception.initCause(error);
+		return exception;
+	}
+}
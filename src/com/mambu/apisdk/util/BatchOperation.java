@@ -0,0 +1,35 @@
+package com.mambu.apisdk.util;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * Operation executed by the BatchExecutor for each command of a batch, e.g. a repayment posted to a loan account
+ * 
+ * @param <C>
+ *            the type of the commands
+ * @param <R>
+ *            the type of the results
+ */
+public interface BatchOperation<C, R> {
+
+	/**
+	 * Get the key of the command. Commands with the same key (e.g. the same account) are executed one at a time, in
+	 * the order of the batch
+	 * 
+	 * @param command
+	 *            the command
+	 * @return the key. Can be null, all commands with the null key are executed one at a time
+	 */
+	public String getKey(C command);
+
+	/**
+	 * Execute the command. Called concurrently for the commands with different keys
+	 * 
+	 * @param command
+	 *            the command
+	 * @return the result of the command
+	 * @throws MambuApiException
+	 */
+	public R execute(C command) throws MambuApiException;
+
+}
@@ -0,0 +1,207 @@
+package com.mambu.apisdk.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiResponseMessage;
+
+/**
+ * Report of a batch executed by the BatchExecutor: the result or the exception of each command, in the order of the
+ * batch. The failed commands can be collected for a later replay with getFailedCommands()
+ * 
+ * @param <C>
+ *            the type of the commands
+ * @param <R>
+ *            the type of the results
+ */
+public class BatchReport<C, R> {
+
+	/**
+	 * Outcome of one command of the batch
+	 */
+	public static class Item<C, R> {
+
+		private final int index;
+		private final C command;
+		private R result;
+		private MambuApiException exception;
+
+		Item(int index, C command) {
+			this.index = index;
+			this.command = command;
+		}
+
+		/**
+		 * Get the position of the command in the batch
+		 * 
+		 * @return zero based index
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public C getCommand() {
+			return command;
+		}
+
+		/**
+		 * Get the result of the successful command
+		 * 
+		 * @return the result or null if the command failed
+		 */
+		public R getResult() {
+			return result;
+		}
+
+		/**
+		 * Get the exception thrown by the failed command
+		 * 
+		 * @return the exception or null if the command succeeded
+		 */
+		public MambuApiException getException() {
+			return exception;
+		}
+
+		public boolean isSuccessful() {
+			return exception == null;
+		}
+
+		/**
+		 * Get Mambu's response message for the failed command, with its return code and return status, e.g.
+		 * {"returnCode":110,"returnStatus":"INSUFFICIENT_BALANCE"}
+		 * 
+		 * @return the response message or null if the command succeeded. The return code is -1 if the command failed
+		 *         without a Mambu response (e.g. with an I/O error)
+		 */
+		public MambuApiResponseMessage getResponseMessage() {
+			if (exception == null) {
+				return null;
+			}
+			try {
+				return new MambuApiResponseMessage(exception);
+			} catch (RuntimeException e) {
+				// Not a Mambu response message, e.g. an empty response
+				return new MambuApiResponseMessage();
+			}
+		}
+
+		void setResult(R result) {
+			this.result = result;
+		}
+
+		void setException(MambuApiException exception) {
+			this.exception = exception;
+		}
+	}
+
+	private final List<Item<C, R>> items;
+	private final int failures;
+
+	/**
+	 * Create BatchReport
+	 * 
+	 * @param items
+	 *            outcomes of the commands, in the order of the batch
+	 */
+	BatchReport(List<Item<C, R>> items) {
+		this.items = Collections.unmodifiableList(items);
+		int failed = 0;
+		for (Item<C, R> item : items) {
+			if (!item.isSuccessful()) {
+				failed++;
+			}
+		}
+		this.failures = failed;
+	}
+
+	/**
+	 * Get the outcomes of all commands
+	 * 
+	 * @return the outcomes, in the order of the batch
+	 */
+	public List<Item<C, R>> getItems() {
+		return items;
+	}
+
+	public int getSize() {
+		return items.size();
+	}
+
+	public int getSuccessCount() {
+		return items.size() - failures;
+	}
+
+	public int getFailureCount() {
+		return failures;
+	}
+
+	public boolean hasFailures() {
+		return failures > 0;
+	}
+
+	/**
+	 * Get the outcomes of the failed commands
+	 * 
+	 * @return the failed outcomes, in the order of the batch
+	 */
+	public List<Item<C, R>> getFailures() {
+		List<Item<C, R>> failed = new ArrayList<Item<C, R>>(failures);
+		for (Item<C, R> item : items) {
+			if (!item.isSuccessful()) {
+				failed.add(item);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Get the failed commands, e.g. to execute them again in a new batch
+	 * 
+	 * @return the failed commands, in the order of the batch
+	 */
+	public List<C> getFailedCommands() {
+		List<C> failed = new ArrayList<C>(failures);
+		for (Item<C, R> item : items) {
+			if (!item.isSuccessful()) {
+				failed.add(item.getCommand());
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Get the failed commands grouped by Mambu's return status, e.g. to post again the commands which failed with
+	 * INVALID_ACCOUNT_STATE once the accounts are approved, or with the I/O errors right away
+	 * 
+	 * @return the failed commands by return status, in the order of the batch. The commands which failed without a
+	 *         Mambu response (e.g. with an I/O error) are under the empty status
+	 */
+	public Map<String, List<C>> getFailedCommandsByReturnStatus() {
+		Map<String, List<C>> failed = new LinkedHashMap<String, List<C>>();
+		for (Item<C, R> item : items) {
+			if (item.isSuccessful()) {
+				continue;
+			}
+			String returnStatus = item.getResponseMessage().getReturnStatus();
+			if (returnStatus == null) {
+				returnStatus = "";
+			}
+			List<C> commands = failed.get(returnStatus);
+			if (commands == null) {
+				commands = new ArrayList<C>();
+				failed.put(returnStatus, commands);
+			}
+			commands.add(item.getCommand());
+		}
+		return failed;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchReport [size=" + items.size() + ", failures=" + failures + "]";
+	}
+}
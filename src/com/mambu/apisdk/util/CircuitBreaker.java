@@ -0,0 +1,183 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mambu.apisdk.util.CircuitBreakerPolicy.State;
+
+/**
+ * Circuit breaker for one Mambu domain and API end point. Created by the CircuitBreakerPolicy with the policy's
+ * settings.
+ *
+ * Each call allowed by tryAcquire() must be followed by either onSuccess(), onFailure() or onIgnored() when the call
+ * completes
+ */
+class CircuitBreaker {
+
+	private final String name;
+
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long slowCallDuration; // milliseconds
+	private final double slowCallRateThreshold;
+	private final long openDuration; // nanoseconds
+	private final int halfOpenCalls;
+
+	// Outcomes of the recent calls, in a ring buffer
+	private final boolean[] failedCalls;
+	private final boolean[] slowCalls;
+	private int next = 0;
+	private int calls = 0;
+	private int failures = 0;
+	private int slow = 0;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	// Trial calls started and succeeded in the half open state
+	private int halfOpenStarted;
+	private int halfOpenSucceeded;
+
+	CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+		this.name = name;
+		this.minimumCalls = policy.getMinimumCalls();
+		this.failureRateThreshold = policy.getFailureRateThreshold();
+		this.slowCallDuration = policy.getSlowCallDuration();
+		this.slowCallRateThreshold = policy.getSlowCallRateThreshold();
+		this.openDuration = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+		this.halfOpenCalls = policy.getHalfOpenCalls();
+		this.failedCalls = new boolean[policy.getWindowSize()];
+		this.slowCalls = new boolean[policy.getWindowSize()];
+	}
+
+	String getName() {
+		return name;
+	}
+
+	synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Check whether a call is allowed
+	 *
+	 * @return true if the call can be sent, false if it must be rejected
+	 */
+	synchronized boolean tryAcquire() {
+		switch (state) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			if (System.nanoTime() - openedAt < openDuration) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			halfOpenStarted = 0;
+			halfOpenSucceeded = 0;
+			return tryAcquireTrialCall();
+		default:
+			return tryAcquireTrialCall();
+		}
+	}
+
+	// Admit a trial call while half open
+	private boolean tryAcquireTrialCall() {
+		if (halfOpenStarted >= halfOpenCalls) {
+			return false;
+		}
+		halfOpenStarted++;
+		return true;
+	}
+
+	/**
+	 * Record a successful call
+	 *
+	 * @param duration
+	 *            duration of the call in milliseconds
+	 */
+	synchronized void onSuccess(long duration) {
+		onResult(false, duration);
+	}
+
+	/**
+	 * Record a failed call
+	 *
+	 * @param duration
+	 *            duration of the call in milliseconds
+	 */
+	synchronized void onFailure(long duration) {
+		onResult(true, duration);
+	}
+
+	/**
+	 * Release the call without recording its outcome, e.g. if it was interrupted
+	 */
+	synchronized void onIgnored() {
+		if (state == State.HALF_OPEN && halfOpenStarted > 0) {
+			halfOpenStarted--;
+		}
+	}
+
+	private void onResult(boolean failed, long duration) {
+
+		boolean isSlow = slowCallDuration > 0 && duration >= slowCallDuration;
+
+		switch (state) {
+		case CLOSED:
+			record(failed, isSlow);
+			if (calls >= minimumCalls
+					&& (failures >= failureRateThreshold * calls || slow >= slowCallRateThreshold * calls)) {
+				open();
+			}
+			break;
+		case HALF_OPEN:
+			if (failed || isSlow) {
+				open();
+			} else if (++halfOpenSucceeded >= halfOpenCalls) {
+				close();
+			}
+			break;
+		default:
+			// Call started before the circuit opened
+			break;
+		}
+	}
+
+	private void record(boolean failed, boolean isSlow) {
+		if (calls == failedCalls.length) {
+			// Drop the oldest call
+			if (failedCalls[next]) {
+				failures--;
+			}
+			if (slowCalls[next]) {
+				slow--;
+			}
+		} else {
+			calls++;
+		}
+		failedCalls[next] = failed;
+		slowCalls[next] = isSlow;
+		if (failed) {
+			failures++;
+		}
+		if (isSlow) {
+			slow++;
+		}
+		next = (next + 1) % failedCalls.length;
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = System.nanoTime();
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		next = 0;
+		calls = 0;
+		failures = 0;
+		slow = 0;
+		for (int i = 0; i < failedCalls.length; i++) {
+			failedCalls[i] = false;
+			slowCalls[i] = false;
+		}
+	}
+}
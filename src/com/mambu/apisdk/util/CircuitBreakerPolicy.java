@@ -0,0 +1,257 @@
+package com.mambu.apisdk.util;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * CircuitBreakerPolicy defines when the ServiceExecutor stops sending API requests to a degraded Mambu tenant.
+ *
+ * A circuit is kept for each Mambu domain and API end point (e.g. "loans" or "savings/transactions"). While the
+ * circuit is closed the outcomes of the recent requests are recorded in a window of the window size. Once the window
+ * holds at least the minimum number of calls and either the rate of failed requests (I/O errors, HTTP 429 and 5xx
+ * statuses) or, if a slow call duration is set, the rate of slow requests (taking longer than the slow call duration)
+ * reaches its threshold, the circuit opens. Requests to an open circuit fail immediately with a MambuApiException
+ * with the CIRCUIT_OPEN_ERROR_CODE error code, so that the callers can shed load instead of queueing behind a failing
+ * tenant. After the open duration the circuit becomes half open and lets a few trial requests through: the circuit
+ * closes if all of them succeed and opens again if any of them fails.
+ *
+ * Requests are never rejected unless the application sets a policy on the MambuAPIService, for example:
+ *
+ * CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy();
+ *
+ * circuitBreakerPolicy.setOpenDuration(60000);
+ *
+ * MambuAPIFactory.getMambuAPIService().setCircuitBreakerPolicy(circuitBreakerPolicy);
+ *
+ * The settings are applied to the circuits created after the settings were changed, so the policy should be configured
+ * before it is set on the MambuAPIService
+ */
+public class CircuitBreakerPolicy {
+
+	/**
+	 * Error code of the MambuApiException thrown when the request is rejected by an open circuit
+	 */
+	public final static int CIRCUIT_OPEN_ERROR_CODE = -2;
+
+	// Default values
+	public final static int DEFAULT_WINDOW_SIZE = 20; // calls
+	public final static int DEFAULT_MINIMUM_CALLS = 10;
+	public final static double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+	public final static long DEFAULT_SLOW_CALL_DURATION = 0L; // milliseconds, no slow calls detection
+	public final static double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+	public final static long DEFAULT_OPEN_DURATION = 30000L; // milliseconds
+	public final static int DEFAULT_HALF_OPEN_CALLS = 3;
+
+	/**
+	 * State of a circuit
+	 */
+	public enum State {
+		// Requests are sent, their outcomes are recorded
+		CLOSED,
+		// Requests are rejected
+		OPEN,
+		// A limited number of trial requests are sent
+		HALF_OPEN
+	}
+
+	private boolean enabled = true;
+	// Number of the most recent calls used to calculate the failure and slow call rates
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+	// Min number of calls in the window before the circuit can open
+	private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+	private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	// Calls taking at least this long are slow. Zero disables the slow calls detection
+	private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+	private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+	// How long the circuit stays open before letting the trial calls through
+	private long openDuration = DEFAULT_OPEN_DURATION;
+	// Number of the trial calls in the half open state
+	private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+	// Circuits by domain and end point
+	private final ConcurrentMap<String, CircuitBreaker> circuits = new ConcurrentHashMap<String, CircuitBreaker>();
+
+	/**
+	 * Create CircuitBreakerPolicy with default values
+	 */
+	public CircuitBreakerPolicy() {
+	}
+
+	/**
+	 * Create CircuitBreakerPolicy which never rejects requests
+	 *
+	 * @return circuit breaker policy
+	 */
+	public static CircuitBreakerPolicy disabled() {
+		CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy();
+		circuitBreakerPolicy.enabled = false;
+		return circuitBreakerPolicy;
+	}
+
+	// Getters
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	public double getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	public long getSlowCallDuration() {
+		return slowCallDuration;
+	}
+
+	public double getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	public long getOpenDuration() {
+		return openDuration;
+	}
+
+	public int getHalfOpenCalls() {
+		return halfOpenCalls;
+	}
+
+	// Setters
+	public void setWindowSize(int windowSize) {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("Window size must be greater than zero");
+		}
+		this.windowSize = windowSize;
+	}
+
+	public void setMinimumCalls(int minimumCalls) {
+		if (minimumCalls < 1) {
+			throw new IllegalArgumentException("Minimum calls must be greater than zero");
+		}
+		this.minimumCalls = minimumCalls;
+	}
+
+	public void setFailureRateThreshold(double failureRateThreshold) {
+		if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+			throw new IllegalArgumentException("Failure rate threshold must be greater than zero and not above one");
+		}
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	/**
+	 * Set the duration of the slow calls. Not set by default: large pages, custom view exports and document uploads can
+	 * take long on a healthy tenant, so the duration should be above the time of the slowest requests expected
+	 *
+	 * @param slowCallDuration
+	 *            duration in milliseconds. Zero to disable the slow calls detection
+	 */
+	public void setSlowCallDuration(long slowCallDuration) {
+		if (slowCallDuration < 0) {
+			throw new IllegalArgumentException("Slow call duration must not be negative");
+		}
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+		if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+			throw new IllegalArgumentException("Slow call rate threshold must be greater than zero and not above one");
+		}
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	public void setOpenDuration(long openDuration) {
+		if (openDuration < 0) {
+			throw new IllegalArgumentException("Open duration must not be negative");
+		}
+		this.openDuration = openDuration;
+	}
+
+	public void setHalfOpenCalls(int halfOpenCalls) {
+		if (halfOpenCalls < 1) {
+			throw new IllegalArgumentException("Half open calls must be greater than zero");
+		}
+		this.halfOpenCalls = halfOpenCalls;
+	}
+
+	/**
+	 * Get the state of the circuit for the domain and end point
+	 *
+	 * @param domain
+	 *            Mambu domain, e.g. "demo.mambu.com"
+	 * @param endPoint
+	 *            API end point, e.g. "loans" or "savings/transactions"
+	 * @return state of the circuit. CLOSED if no requests were sent to the end point yet
+	 */
+	public State getState(String domain, String endPoint) {
+		CircuitBreaker circuitBreaker = circuits.get(domain + " " + endPoint);
+		return circuitBreaker == null ? State.CLOSED : circuitBreaker.getState();
+	}
+
+	/**
+	 * Close all circuits and forget the recorded calls
+	 */
+	public void reset() {
+		circuits.clear();
+	}
+
+	/**
+	 * Get the circuit breaker for the request
+	 *
+	 * @param urlString
+	 *            request's url
+	 * @param endPoint
+	 *            API end point of the request
+	 * @return the circuit breaker or null if the policy is disabled
+	 */
+	CircuitBreaker getCircuitBreaker(String urlString, String endPoint) {
+		if (!enabled) {
+			return null;
+		}
+		String key = URLHelper.getDomain(urlString) + " " + endPoint;
+		CircuitBreaker circuitBreaker = circuits.get(key);
+		if (circuitBreaker == null) {
+			circuitBreaker = new CircuitBreaker(key, this);
+			CircuitBreaker existing = circuits.putIfAbsent(key, circuitBreaker);
+			if (existing != null) {
+				circuitBreaker = existing;
+			}
+		}
+		return circuitBreaker;
+	}
+
+	/**
+	 * Create the exception thrown when the request is rejected by an open circuit
+	 *
+	 * @param circuitBreaker
+	 *            the open circuit breaker
+	 * @return exception with the CIRCUIT_OPEN_ERROR_CODE error code
+	 */
+	static MambuApiException circuitOpenException(CircuitBreaker circuitBreaker) {
+		return new MambuApiException(CIRCUIT_OPEN_ERROR_CODE, "Circuit breaker is open for "
+				+ circuitBreaker.getName());
+	}
+
+	/**
+	 * Check whether the exception indicates the tenant's failure, as opposed to a rejected request (e.g. invalid
+	 * parameters)
+	 *
+	 * @param exception
+	 *            exception thrown by the request
+	 * @return true if the exception is an I/O error, a HTTP 429 or a HTTP 5xx status
+	 */
+	static boolean isFailure(MambuApiException exception) {
+		if (exception.getCause() != null) {
+			return exception.getCause() instanceof IOException;
+		}
+		Integer errorCode = exception.getErrorCode();
+		return errorCode != null && (errorCode == 429 || errorCode >= 500);
+	}
+}
@@ -0,0 +1,77 @@
+package com.mambu.apisdk.util;
+
+import java.lang.reflect.Type;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * Deserializer for java.util.Date values. Dates are parsed the same way as by the Gson's default date adapter: using
+ * the specified format with the default locale, then with the US locale and then as an ISO 8601 UTC date.
+ * 
+ * Gson's default adapter shares a single DateFormat and synchronizes on it, so that parsing dates from concurrent
+ * threads is serialized. This deserializer keeps the DateFormat instances per thread instead
+ */
+class DateDeserializer implements JsonDeserializer<Date> {
+
+	private final static String ISO_8601_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+	private final ThreadLocal<DateFormat[]> formats;
+
+	/**
+	 * Create DateDeserializer
+	 * 
+	 * @param datePattern
+	 *            date format pattern
+	 */
+	DateDeserializer(final String datePattern) {
+		formats = new ThreadLocal<DateFormat[]>() {
+			@Override
+			protected DateFormat[] initialValue() {
+				DateFormat iso8601Format = new SimpleDateFormat(ISO_8601_FORMAT, Locale.US);
+				iso8601Format.setTimeZone(TimeZone.getTimeZone("UTC"));
+				return new DateFormat[] { new SimpleDateFormat(datePattern),
+						new SimpleDateFormat(datePattern, Locale.US), iso8601Format };
+			}
+		};
+	}
+
+	@Override
+	public Date deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+			throws JsonParseException {
+		if (!(json instanceof JsonPrimitive)) {
+			throw new JsonParseException("The date should be a string value");
+		}
+		return parse(json.getAsString());
+	}
+
+	/**
+	 * Parse the date string
+	 * 
+	 * @param dateString
+	 *            date string
+	 * @return parsed date
+	 * @throws JsonSyntaxException
+	 *             if the string cannot be parsed with any of the formats
+	 */
+	Date parse(String dateString) {
+		for (DateFormat format : formats.get()) {
+			try {
+				return format.parse(dateString);
+			} catch (ParseException e) {
+				// Try the next format
+			}
+		}
+		throw new JsonSyntaxException(dateString);
+	}
+}
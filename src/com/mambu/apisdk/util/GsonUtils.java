@@ -3,40 +3,119 @@
  */
 package com.mambu.apisdk.util;
 
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 /**
  * Utill class for gson formatting
  * 
+ * Gson instances are immutable and thread safe, so a single instance is built for each date/time format and is then
+ * shared by all callers. This avoids the cost of creating a new Gson instance (and its type adapters) for each API
+ * request.
+ * 
+ * By default the Gson instances use precompiled deserializers for the classes returned in collections by the API (see
+ * PrecompiledDeserializer) and a date deserializer without lock contention. Applications can switch back to Gson's
+ * reflective deserialization with setReflectionOnly(true)
+ * 
  * @author ipenciuc
  * 
  */
 public class GsonUtils {
 
-	private static String defaultDateTimeFormat = "yyyy-MM-dd'T'HH:mm:ssZ";
-	private static GsonBuilder gsonBuilder = new GsonBuilder().setDateFormat(defaultDateTimeFormat);
+	private final static String defaultDateTimeFormat = "yyyy-MM-dd'T'HH:mm:ssZ";
+
+	// Gson instances cached per date/time format
+	private final static ConcurrentMap<String, Gson> gsonCache = new ConcurrentHashMap<String, Gson>();
+
+	// If true then the Gson instances use only the Gson's reflective deserialization
+	private static volatile boolean reflectionOnly = false;
+
+	/**
+	 * Enable or disable the fall back to the Gson's reflective deserialization for all classes. The setting applies to
+	 * the Gson instances obtained after this call
+	 * 
+	 * @param reflectionOnly
+	 *            true to use only reflective deserialization, false to use the precompiled deserializers (default)
+	 */
+	public static void setReflectionOnly(boolean reflectionOnly) {
+		GsonUtils.reflectionOnly = reflectionOnly;
+	}
+
+	/**
+	 * Check whether the Gson instances use only the Gson's reflective deserialization
+	 * 
+	 * @return true if the precompiled deserializers are not used
+	 */
+	public static boolean isReflectionOnly() {
+		return reflectionOnly;
+	}
 
 	/***
-	 * Creates a GSON instance from the builder with the default date/time format
+	 * Get the GSON instance with the default date/time format
 	 * 
 	 * @return the GSON instance
 	 */
 	public static Gson createGson() {
-		// Create with default params
-		gsonBuilder = gsonBuilder.setDateFormat(defaultDateTimeFormat);
-		return gsonBuilder.create();
+		return createGson(defaultDateTimeFormat);
 	}
 
 	/***
-	 * Creates a GSON instance from the builder specifying custom date/time format
+	 * Get the GSON instance with the specified custom date/time format
+	 * 
+	 * @param dateTimeFormat
+	 *            date/time format. Must not be null
 	 * 
 	 * @return the GSON instance
 	 */
 	public static Gson createGson(String dateTimeFormat) {
-		// Create with the specified dateTimeFormat
-		gsonBuilder = gsonBuilder.setDateFormat(dateTimeFormat);
-		return gsonBuilder.create();
+		if (dateTimeFormat == null) {
+			throw new IllegalArgumentException("Date time format must not be null");
+		}
+
+		final boolean reflectionOnly = GsonUtils.reflectionOnly;
+		final String key = reflectionOnly ? "reflection:" + dateTimeFormat : dateTimeFormat;
+
+		Gson gson = gsonCache.get(key);
+		if (gson == null) {
+			// Build the instance for this format. If another thread has built it concurrently then use that one
+			gson = buildGson(dateTimeFormat, reflectionOnly);
+			Gson existing = gsonCache.putIfAbsent(key, gson);
+			if (existing != null) {
+				gson = existing;
+			}
+		}
+		return gson;
+	}
+
+	/**
+	 * Build a new GSON instance with the specified date/time format
+	 * 
+	 * @param dateTimeFormat
+	 *            date/time format
+	 * @param reflectionOnly
+	 *            true to use only the Gson's reflective deserialization
+	 * @return the GSON instance
+	 */
+	private static Gson buildGson(String dateTimeFormat, boolean reflectionOnly) {
+		GsonBuilder builder = new GsonBuilder().setDateFormat(dateTimeFormat);
+		if (reflectionOnly) {
+			return builder.create();
+		}
+
+		DateDeserializer dateDeserializer = new DateDeserializer(dateTimeFormat);
+		builder.registerTypeAdapter(Date.class, dateDeserializer);
+		for (Class<?> clazz : ServiceExecutor.getCollectionClasses()) {
+			// Classes not supported by the precompiled deserializer are deserialized by reflection
+			PrecompiledDeserializer<?> deserializer = PrecompiledDeserializer.create(clazz, dateDeserializer);
+			if (deserializer != null) {
+				builder.registerTypeAdapter(clazz, deserializer);
+			}
+		}
+		return builder.create();
 	}
 
 }
@@ -0,0 +1,289 @@
+package com.mambu.apisdk.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * HttpClientSettings holds the configuration of the HTTP transport used by the RequestExecutor. The settings define the
+ * size of the shared connections pool, the eviction of idle connections, the keep-alive duration to be used when the
+ * server doesn't specify one, the request timeouts, for all requests or per API type (see RequestTimeouts), and
+ * whether the responses are requested compressed.
+ * Optionally, the settings define the client side limits for the API requests (see RequestLimit).
+ *
+ * Default settings are used when the application doesn't provide its own settings. Applications can provide the
+ * settings when setting up the MambuAPIFactory, for example:
+ *
+ * HttpClientSettings settings = new HttpClientSettings();
+ *
+ * settings.setMaxConnectionsPerRoute(20);
+ *
+ * MambuAPIFactory.setUp(domain, user, password, settings);
+ */
+public class HttpClientSettings {
+
+	// Default values
+	public final static int DEFAULT_MAX_CONNECTIONS_TOTAL = 20;
+	public final static int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+	public final static long DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000L; // milliseconds
+	public final static long DEFAULT_IDLE_EVICTION_INTERVAL = 5000L; // milliseconds
+	public final static long DEFAULT_KEEP_ALIVE_DURATION = 30000L; // milliseconds
+
+	// Max number of connections in the pool
+	private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+	// Max number of connections per route (all Mambu API requests for a tenant use the same route)
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	// Connections idle for longer than this are closed by the idle connections monitor
+	private long idleConnectionTimeout = DEFAULT_IDLE_CONNECTION_TIMEOUT;
+	// How often the idle connections monitor runs. Zero disables idle connections eviction
+	private long idleEvictionInterval = DEFAULT_IDLE_EVICTION_INTERVAL;
+	// How long to keep a connection alive if the server's response has no "Keep-Alive: timeout" header
+	private long keepAliveDuration = DEFAULT_KEEP_ALIVE_DURATION;
+	// Client side request limits per HTTP method. No limits by default. Read by the request threads, so the map is
+	// replaced rather than modified
+	private volatile Map<Method, RequestLimit> requestLimits = new EnumMap<Method, RequestLimit>(Method.class);
+	// Request timeouts for all requests and the timeouts overriding them for specific API types. Read by the request
+	// threads, so the map is replaced rather than modified
+	private volatile RequestTimeouts timeouts = new RequestTimeouts();
+	private volatile Map<ApiType, RequestTimeouts> apiTypeTimeouts = new EnumMap<ApiType, RequestTimeouts>(
+			ApiType.class);
+	// Request gzip or deflate compressed responses
+	private boolean compressionEnabled = true;
+	// Cache the entity reads, revalidating them with the ETag and Last-Modified validators. Disabled by default
+	private boolean responseCacheEnabled = false;
+	private long responseCacheTimeToLive = ResponseCache.DEFAULT_TIME_TO_LIVE;
+	private int responseCacheMaxEntries = ResponseCache.DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Create HttpClientSettings with default values
+	 */
+	public HttpClientSettings() {
+	}
+
+	// Getters
+	public int getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public long getIdleConnectionTimeout() {
+		return idleConnectionTimeout;
+	}
+
+	public long getIdleEvictionInterval() {
+		return idleEvictionInterval;
+	}
+
+	public long getKeepAliveDuration() {
+		return keepAliveDuration;
+	}
+
+	/**
+	 * Get the request limit for the HTTP method
+	 * 
+	 * @param method
+	 *            HTTP method
+	 * @return the request limit or null if the requests with this method are not limited
+	 */
+	public RequestLimit getRequestLimit(Method method) {
+		return requestLimits.get(method);
+	}
+
+	public RequestTimeouts getTimeouts() {
+		return timeouts;
+	}
+
+	/**
+	 * Get the timeouts for the requests of the API type
+	 * 
+	 * @param apiType
+	 *            API type. Can be null
+	 * @return the timeouts set for the API type or the timeouts for all requests if none were set for the API type
+	 */
+	public RequestTimeouts getTimeouts(ApiType apiType) {
+		RequestTimeouts apiTypeTimeout = (apiType == null) ? null : apiTypeTimeouts.get(apiType);
+		return (apiTypeTimeout == null) ? timeouts : apiTypeTimeout;
+	}
+
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	public boolean isResponseCacheEnabled() {
+		return responseCacheEnabled;
+	}
+
+	public long getResponseCacheTimeToLive() {
+		return responseCacheTimeToLive;
+	}
+
+	public int getResponseCacheMaxEntries() {
+		return responseCacheMaxEntries;
+	}
+
+	// Setters
+	public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+		if (maxConnectionsTotal < 1) {
+			throw new IllegalArgumentException("Max connections total must be greater than zero");
+		}
+		this.maxConnectionsTotal = maxConnectionsTotal;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		if (maxConnectionsPerRoute < 1) {
+			throw new IllegalArgumentException("Max connections per route must be greater than zero");
+		}
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Set the time after which the idle connections are closed by the idle connections monitor
+	 * 
+	 * @param idleConnectionTimeout
+	 *            idle time in milliseconds. Zero to close only the expired connections. Must not be negative
+	 */
+	public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+		if (idleConnectionTimeout < 0) {
+			throw new IllegalArgumentException("Idle connection timeout must not be negative");
+		}
+		this.idleConnectionTimeout = idleConnectionTimeout;
+	}
+
+	/**
+	 * Set how often the idle connections monitor runs
+	 * 
+	 * @param idleEvictionInterval
+	 *            interval in milliseconds. Zero to disable the idle connections eviction. Must not be negative
+	 */
+	public void setIdleEvictionInterval(long idleEvictionInterval) {
+		if (idleEvictionInterval < 0) {
+			throw new IllegalArgumentException("Idle eviction interval must not be negative");
+		}
+		this.idleEvictionInterval = idleEvictionInterval;
+	}
+
+	/**
+	 * Set how long to keep a connection alive if the server's response doesn't specify it
+	 * 
+	 * @param keepAliveDuration
+	 *            keep-alive duration in milliseconds. Must be greater than zero
+	 */
+	public void setKeepAliveDuration(long keepAliveDuration) {
+		if (keepAliveDuration < 1) {
+			throw new IllegalArgumentException("Keep-alive duration must be greater than zero");
+		}
+		this.keepAliveDuration = keepAliveDuration;
+	}
+
+	/**
+	 * Set the request limit for the requests with the specified HTTP method
+	 * 
+	 * @param method
+	 *            HTTP method
+	 * @param requestLimit
+	 *            the request limit. Null to remove the limit
+	 */
+	public synchronized void setRequestLimit(Method method, RequestLimit requestLimit) {
+		if (method == null) {
+			throw new IllegalArgumentException("Method must not be null");
+		}
+		Map<Method, RequestLimit> updatedLimits = new EnumMap<Method, RequestLimit>(requestLimits);
+		if (requestLimit == null) {
+			updatedLimits.remove(method);
+		} else {
+			updatedLimits.put(method, requestLimit);
+		}
+		requestLimits = updatedLimits;
+	}
+
+	/**
+	 * Set the same request limit for the requests with any HTTP method. The limit is enforced separately for each
+	 * method
+	 * 
+	 * @param requestLimit
+	 *            the request limit. Null to remove the limits
+	 */
+	public synchronized void setRequestLimit(RequestLimit requestLimit) {
+		for (Method method : Method.values()) {
+			setRequestLimit(method, requestLimit);
+		}
+	}
+
+	/**
+	 * Set whether the responses are requested with gzip or deflate compression. The compressed responses are decoded
+	 * transparently while they are read. Enabled by default
+	 * 
+	 * @param compressionEnabled
+	 *            true to send the "Accept-Encoding: gzip,deflate" header
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	/**
+	 * Set whether the responses to the entity reads (GET_ENTITY and GET_ENTITY_DETAILS requests) are cached by the
+	 * request executor and revalidated with the If-None-Match and If-Modified-Since headers (see ResponseCache).
+	 * Disabled by default
+	 * 
+	 * @param responseCacheEnabled
+	 *            true to cache the entity reads
+	 */
+	public void setResponseCacheEnabled(boolean responseCacheEnabled) {
+		this.responseCacheEnabled = responseCacheEnabled;
+	}
+
+	/**
+	 * Set the time to return the cached responses without the ETag and Last-Modified validators without sending a
+	 * request
+	 * 
+	 * @param responseCacheTimeToLive
+	 *            time to live in milliseconds. Zero to always request such responses again
+	 */
+	public void setResponseCacheTimeToLive(long responseCacheTimeToLive) {
+		if (responseCacheTimeToLive < 0) {
+			throw new IllegalArgumentException("Response cache time to live must not be negative");
+		}
+		this.responseCacheTimeToLive = responseCacheTimeToLive;
+	}
+
+	public void setResponseCacheMaxEntries(int responseCacheMaxEntries) {
+		if (responseCacheMaxEntries < 1) {
+			throw new IllegalArgumentException("Response cache max entries must be greater than zero");
+		}
+		this.responseCacheMaxEntries = responseCacheMaxEntries;
+	}
+
+	public void setTimeouts(RequestTimeouts timeouts) {
+		if (timeouts == null) {
+			throw new IllegalArgumentException("Timeouts must not be null");
+		}
+		this.timeouts = timeouts;
+	}
+
+	/**
+	 * Set the timeouts for the requests of the specified API type
+	 * 
+	 * @param apiType
+	 *            API type
+	 * @param timeouts
+	 *            the timeouts. Null to use the timeouts for all requests
+	 */
+	public synchronized void setTimeouts(ApiType apiType, RequestTimeouts timeouts) {
+		if (apiType == null) {
+			throw new IllegalArgumentException("ApiType must not be null");
+		}
+		Map<ApiType, RequestTimeouts> updatedTimeouts = new EnumMap<ApiType, RequestTimeouts>(apiTypeTimeouts);
+		if (timeouts == null) {
+			updatedTimeouts.remove(apiType);
+		} else {
+			updatedTimeouts.put(apiType, timeouts);
+		}
+		apiTypeTimeouts = updatedTimeouts;
+	}
+
+}
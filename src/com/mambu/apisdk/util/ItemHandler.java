@@ -0,0 +1,20 @@
+package com.mambu.apisdk.util;
+
+/**
+ * Handler receiving the entities of a collection returned by Mambu one by one, as they are read from the response
+ * stream. Allows processing of large responses without holding the whole list of entities in memory
+ * 
+ * @param <T>
+ *            the type of the entities in the collection
+ */
+public interface ItemHandler<T> {
+
+	/**
+	 * Process the next entity of the collection
+	 * 
+	 * @param item
+	 *            the entity read from the response
+	 */
+	public void handleItem(T item);
+
+}
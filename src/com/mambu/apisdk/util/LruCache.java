@@ -0,0 +1,268 @@
+package com.mambu.apisdk.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Least recently used cache with a time to live, the storage of the SDK caches (ResponseCache, ReferenceDataCache and
+ * EntityCache). The entries are kept by key in the access order, with the time they were stored, and the least
+ * recently used entries are evicted when the cache is full. The cache counts the hits, misses and evictions. Iteration
+ * returns the entries from the least to the most recently used, without changing their order.
+ *
+ * The cache is not thread safe: the owning cache synchronizes the access to it
+ *
+ * @param <E>
+ *            type of the entries
+ */
+public class LruCache<E extends LruCache.Entry> implements Iterable<E> {
+
+	/**
+	 * Notified of the entries evicted from the cache
+	 *
+	 * @param <E>
+	 *            type of the entries
+	 */
+	public interface EvictionListener<E> {
+
+		void onEviction(E entry);
+	}
+
+	private final String name;
+	private final Ticker ticker;
+	private long timeToLive; // nanoseconds
+	private int maxEntries;
+	private EvictionListener<E> evictionListener = null;
+
+	// Entries by key, in the access order
+	private final LinkedHashMap<String, E> entries = new LinkedHashMap<String, E>(16, 0.75f, true);
+
+	// Statistics
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Create LruCache
+	 *
+	 * @param name
+	 *            name of the owning cache, used by toString()
+	 * @param timeToLive
+	 *            time to keep an entry, in milliseconds. Must not be negative
+	 * @param maxEntries
+	 *            max number of entries. Must be greater than zero
+	 * @param ticker
+	 *            source of the time. Must not be null
+	 */
+	public LruCache(String name, long timeToLive, int maxEntries, Ticker ticker) {
+		if (ticker == null) {
+			throw new IllegalArgumentException("Ticker must not be null");
+		}
+		this.name = name;
+		this.ticker = ticker;
+		setTimeToLive(timeToLive);
+		setMaxEntries(maxEntries);
+	}
+
+	public long getTimeToLive() {
+		return TimeUnit.NANOSECONDS.toMillis(timeToLive);
+	}
+
+	public void setTimeToLive(long timeToLive) {
+		if (timeToLive < 0) {
+			throw new IllegalArgumentException("Time to live must not be negative");
+		}
+		this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Set the max number of entries. The least recently used entries are evicted if there are more
+	 *
+	 * @param maxEntries
+	 *            max number of entries. Must be greater than zero
+	 */
+	public void setMaxEntries(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Max entries must be greater than zero");
+		}
+		this.maxEntries = maxEntries;
+		evict();
+	}
+
+	public void setEvictionListener(EvictionListener<E> evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
+	/**
+	 * Get the entry if it has not expired. Counts a hit or a miss
+	 *
+	 * @param key
+	 *            entry's key
+	 * @return the entry or null if there is no such entry or it has expired
+	 */
+	public E get(String key) {
+		E entry = entries.get(key);
+		if (entry != null && !isExpired(entry)) {
+			hits++;
+			return entry;
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Get the entry, expired or not, without counting a hit or a miss. The entry becomes the most recently used
+	 *
+	 * @param key
+	 *            entry's key
+	 * @return the entry or null if there is no such entry
+	 */
+	public E getEntry(String key) {
+		return entries.get(key);
+	}
+
+	public boolean containsKey(String key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * Check whether the entry was stored for longer than the time to live
+	 *
+	 * @param entry
+	 *            entry of this cache
+	 * @return true if the entry has expired
+	 */
+	public boolean isExpired(E entry) {
+		return ticker.read() - entry.storedAt >= timeToLive;
+	}
+
+	/**
+	 * Get the time since the entry was stored
+	 *
+	 * @param entry
+	 *            entry of this cache
+	 * @return age in milliseconds
+	 */
+	public long getAge(E entry) {
+		return TimeUnit.NANOSECONDS.toMillis(ticker.read() - entry.storedAt);
+	}
+
+	/**
+	 * Store the entry, replacing the entry with the same key, and evict the least recently used entries if the cache
+	 * is full
+	 *
+	 * @param key
+	 *            entry's key
+	 * @param entry
+	 *            new entry
+	 * @return the replaced entry or null
+	 */
+	public E put(String key, E entry) {
+		return put(key, entry, 0);
+	}
+
+	/**
+	 * Store the entry which is already the given age, e.g. restored from a file, replacing the entry with the same
+	 * key, and evict the least recently used entries if the cache is full
+	 *
+	 * @param key
+	 *            entry's key
+	 * @param entry
+	 *            new entry
+	 * @param age
+	 *            age of the entry in milliseconds. Its time to live is reduced by it
+	 * @return the replaced entry or null
+	 */
+	public E put(String key, E entry, long age) {
+		entry.key = key;
+		entry.storedAt = ticker.read() - TimeUnit.MILLISECONDS.toNanos(age);
+		E previous = entries.put(key, entry);
+		evict();
+		return previous;
+	}
+
+	/**
+	 * Remove the entry
+	 *
+	 * @param key
+	 *            entry's key
+	 * @return the removed entry or null
+	 */
+	public E remove(String key) {
+		return entries.remove(key);
+	}
+
+	/**
+	 * Remove all entries. The statistics are not reset
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return entries.values().iterator();
+	}
+
+	public void recordHit() {
+		hits++;
+	}
+
+	public void recordMiss() {
+		misses++;
+	}
+
+	// Statistics
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	// Evict the least recently used entries above the max entries
+	private void evict() {
+		Iterator<E> iterator = entries.values().iterator();
+		while (entries.size() > maxEntries) {
+			E eldest = iterator.next();
+			iterator.remove();
+			evictions++;
+			if (evictionListener != null) {
+				evictionListener.onEviction(eldest);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " [size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + "]";
+	}
+
+	/**
+	 * Base class of the cache entries. The key and the time the entry was stored are set by the cache
+	 */
+	public static class Entry {
+
+		String key;
+		// Ticker time
+		long storedAt;
+
+		public String getKey() {
+			return key;
+		}
+	}
+}
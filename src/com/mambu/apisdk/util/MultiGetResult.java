@@ -0,0 +1,75 @@
+package com.mambu.apisdk.util;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * Result of a multi-get request, e.g. ClientsService.getClients(): the entities retrieved by their ids and the
+ * exceptions of the ids which failed. Each requested id is either in the results or in the failures
+ * 
+ * @param <T>
+ *            the type of the entities
+ */
+public class MultiGetResult<T> {
+
+	private final Map<String, T> results;
+	private final Map<String, MambuApiException> failures;
+
+	/**
+	 * Create MultiGetResult
+	 * 
+	 * @param results
+	 *            the entities by their requested id
+	 * @param failures
+	 *            the exceptions by the requested id
+	 */
+	public MultiGetResult(Map<String, T> results, Map<String, MambuApiException> failures) {
+		this.results = Collections.unmodifiableMap(results);
+		this.failures = Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Get the retrieved entities
+	 * 
+	 * @return the entities by their requested id, in the order of the requested ids
+	 */
+	public Map<String, T> getResults() {
+		return results;
+	}
+
+	/**
+	 * Get the exceptions of the ids which failed, e.g. with INVALID_CLIENT_ID for an unknown client
+	 * 
+	 * @return the exceptions by the requested id, in the order of the requested ids
+	 */
+	public Map<String, MambuApiException> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Get the entity retrieved by its id
+	 * 
+	 * @param id
+	 *            the requested id
+	 * @return the entity or null if the id failed or was not requested
+	 */
+	public T get(String id) {
+		return results.get(id);
+	}
+
+	/**
+	 * Check whether any of the requested ids failed
+	 * 
+	 * @return true if there are failures, false if all requested ids were retrieved
+	 */
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "MultiGetResult [results=" + results.size() + ", failures=" + failures.size() + "]";
+	}
+}
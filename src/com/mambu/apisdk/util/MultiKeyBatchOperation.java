@@ -0,0 +1,27 @@
+package com.mambu.apisdk.util;
+
+import java.util.Collection;
+
+/**
+ * Operation whose commands can have several keys, e.g. a transfer ordered with the transactions of both the account it
+ * transfers from and the account it transfers to. The BatchExecutor gets the keys of its commands with getKeys(), not
+ * with getKey()
+ *
+ * @param <C>
+ *            the type of the commands
+ * @param <R>
+ *            the type of the results
+ */
+public interface MultiKeyBatchOperation<C, R> extends BatchOperation<C, R> {
+
+	/**
+	 * Get the keys of the command. The command is executed after the commands read before it with any of its keys,
+	 * and before the commands read after it with any of its keys
+	 *
+	 * @param command
+	 *            the command
+	 * @return the keys. Can contain null, like the key returned by getKey()
+	 */
+	public Collection<String> getKeys(C command);
+
+}
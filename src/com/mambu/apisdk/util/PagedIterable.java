@@ -0,0 +1,109 @@
+package com.mambu.apisdk.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+
+/**
+ * Iterable over all entities returned by an offset/limit list API. The pages are requested lazily, one page at a
+ * time, as the iterator advances: only the current page is held in memory. Iteration stops after the first page with
+ * fewer entities than the page size.
+ * 
+ * Each call to iterator() starts again from the first page. Iterators throw MambuApiRuntimeException if a page cannot
+ * be retrieved
+ * 
+ * Example usage:
+ * 
+ * for (LoanTransaction transaction : loansService.getLoanAccountTransactionsAll(accountId, 500)) { ... }
+ */
+public abstract class PagedIterable<T> implements Iterable<T> {
+
+	// Default number of entities requested per page
+	public final static int DEFAULT_PAGE_SIZE = 100;
+
+	private final int pageSize;
+
+	/**
+	 * Create PagedIterable
+	 * 
+	 * @param pageSize
+	 *            number of entities requested per page. Must be greater than zero
+	 */
+	protected PagedIterable(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Get the page of entities
+	 * 
+	 * @param offset
+	 *            offset of the first entity in the page
+	 * @param limit
+	 *            number of entities to request
+	 * @return the entities in the page. Empty list or null if there are no more entities
+	 * @throws MambuApiException
+	 */
+	protected abstract List<T> getPage(int offset, int limit) throws MambuApiException;
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new PageIterator();
+	}
+
+	/**
+	 * Iterator requesting the next page when the current page is exhausted
+	 */
+	private class PageIterator implements Iterator<T> {
+
+		private Iterator<T> page = Collections.<T> emptyList().iterator();
+		private int nextOffset = 0;
+		private boolean lastPage = false;
+
+		@Override
+		public boolean hasNext() {
+			while (!page.hasNext()) {
+				if (lastPage) {
+					return false;
+				}
+				List<T> entities;
+				try {
+					entities = getPage(nextOffset, pageSize);
+				} catch (MambuApiException e) {
+					throw new MambuApiRuntimeException(e);
+				}
+				if (entities == null) {
+					entities = Collections.emptyList();
+				}
+				// A short page is the last one
+				lastPage = entities.size() < pageSize;
+				nextOffset += entities.size();
+				page = entities.iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return page.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Entities cannot be removed");
+		}
+	}
+}
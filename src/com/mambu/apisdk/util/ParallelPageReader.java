@@ -0,0 +1,256 @@
+package com.mambu.apisdk.util;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl.DaemonThreadFactory;
+
+/**
+ * Reader for all entities returned by an offset/limit list API, fetching the pages concurrently. The offset space is
+ * split into pages of the page size, which are claimed in order by a fixed number of workers. The number of workers is
+ * the concurrency cap: no more than this number of requests are sent at the same time, which allows to keep the
+ * exports under Mambu's API usage limits (see APIExceptionData.HARD_API_USAGE_LIMIT_EXCDEDED).
+ *
+ * The entities are passed to the ItemHandler on the calling thread, either in the order of the pages or in the order
+ * the pages are received. The number of pages fetched but not yet passed to the handler is bounded, so that a slow
+ * handler doesn't accumulate the whole export in memory.
+ *
+ * As the total number of entities is not known, the workers stop claiming pages once a short page is received. Up to
+ * one page per worker may be requested past the last page, their results are discarded
+ */
+public abstract class ParallelPageReader<T> {
+
+	// Default number of concurrent page requests
+	public final static int DEFAULT_CONCURRENCY = 4;
+
+	private final int pageSize;
+	private final int concurrency;
+
+	/**
+	 * Create ParallelPageReader
+	 *
+	 * @param pageSize
+	 *            number of entities requested per page. Must be greater than zero
+	 * @param concurrency
+	 *            maximum number of pages requested concurrently. Must be greater than zero
+	 */
+	protected ParallelPageReader(int pageSize, int concurrency) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be greater than zero");
+		}
+		this.pageSize = pageSize;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Get the page of entities. Called concurrently by the workers
+	 *
+	 * @param offset
+	 *            offset of the first entity in the page
+	 * @param limit
+	 *            number of entities to request
+	 * @return the entities in the page. Empty list or null if there are no more entities
+	 * @throws MambuApiException
+	 */
+	protected abstract List<T> getPage(int offset, int limit) throws MambuApiException;
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * Read all entities and pass them to the handler. The handler is called on the calling thread only
+	 *
+	 * @param handler
+	 *            handler for the entities. Must not be null
+	 * @param ordered
+	 *            true to pass the entities in the order of the pages, false to pass the entities of each page as soon
+	 *            as the page is received
+	 * @return the number of entities passed to the handler
+	 * @throws MambuApiException
+	 *             the first exception thrown when getting a page. No more pages are requested after an exception
+	 */
+	public int readAll(ItemHandler<T> handler, boolean ordered) throws MambuApiException {
+
+		if (handler == null) {
+			throw new IllegalArgumentException("ItemHandler cannot be NULL");
+		}
+
+		// Workers get the pages with the caller's request context (timeouts and deadline)
+		final Read read = new Read(RequestContext.current());
+		ExecutorService workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("Mambu-PageReader-"));
+		try {
+			for (int i = 0; i < concurrency; i++) {
+				workers.execute(read.new Worker());
+			}
+			return read.deliver(handler, ordered);
+		} finally {
+			read.stopped = true;
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Result of getting a page
+	 */
+	private static class PageResult<T> {
+
+		private final int index;
+		private final List<T> entities;
+		private final MambuApiException exception;
+
+		PageResult(int index, List<T> entities, MambuApiException exception) {
+			this.index = index;
+			this.entities = entities;
+			this.exception = exception;
+		}
+	}
+
+	/**
+	 * State of one readAll() call
+	 */
+	private class Read {
+
+		// Pages fetched but not yet passed to the handler are limited to twice the number of workers
+		private final Semaphore pendingPages = new Semaphore(2 * concurrency);
+		private final BlockingQueue<PageResult<T>> results = new LinkedBlockingQueue<PageResult<T>>();
+		private final AtomicInteger nextPage = new AtomicInteger(0);
+		// Index of the first short page received by the workers
+		private final AtomicInteger lastPage = new AtomicInteger(Integer.MAX_VALUE);
+		private volatile boolean stopped = false;
+		private final RequestContext context;
+
+		Read(RequestContext context) {
+			this.context = context;
+		}
+
+		/**
+		 * Worker claiming the next page and getting it until the last page is reached
+		 */
+		private class Worker implements Runnable {
+
+			@Override
+			public void run() {
+				RequestContext previousContext = context.attach();
+				try {
+					getPages();
+				} finally {
+					RequestContext.restore(previousContext);
+				}
+			}
+
+			private void getPages() {
+				while (!stopped) {
+					try {
+						pendingPages.acquire();
+					} catch (InterruptedException e) {
+						return;
+					}
+					int index = nextPage.getAndIncrement();
+					if (index > lastPage.get() || stopped) {
+						pendingPages.release();
+						return;
+					}
+					try {
+						List<T> entities = getPage(index * pageSize, pageSize);
+						if (entities == null || entities.size() < pageSize) {
+							setLastPage(index);
+						}
+						results.add(new PageResult<T>(index, entities, null));
+					} catch (MambuApiException e) {
+						stopped = true;
+						results.add(new PageResult<T>(index, null, e));
+						return;
+					} catch (RuntimeException e) {
+						stopped = true;
+						results.add(new PageResult<T>(index, null, new MambuApiException(e)));
+						return;
+					}
+				}
+			}
+
+			private void setLastPage(int index) {
+				int current;
+				do {
+					current = lastPage.get();
+				} while (index < current && !lastPage.compareAndSet(current, index));
+			}
+		}
+
+		/**
+		 * Pass the received pages to the handler until all pages up to the last page are passed
+		 */
+		int deliver(ItemHandler<T> handler, boolean ordered) throws MambuApiException {
+
+			// Pages received but not yet passed to the handler (ordered only)
+			Map<Integer, List<T>> received = new HashMap<Integer, List<T>>();
+			// Pages passed to the handler
+			BitSet delivered = new BitSet();
+			int lastIndex = Integer.MAX_VALUE;
+			int count = 0;
+
+			// Done when all pages up to the last page are passed to the handler
+			while (lastIndex == Integer.MAX_VALUE || delivered.nextClearBit(0) <= lastIndex) {
+				PageResult<T> result;
+				try {
+					result = results.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MambuApiException(e);
+				}
+				if (result.exception != null) {
+					throw result.exception;
+				}
+				List<T> entities = result.entities;
+				if (entities == null || entities.size() < pageSize) {
+					lastIndex = Math.min(lastIndex, result.index);
+				}
+				if (!ordered) {
+					pendingPages.release();
+					if (result.index <= lastIndex) {
+						count += handle(entities, handler);
+						delivered.set(result.index);
+					}
+					continue;
+				}
+				received.put(result.index, entities);
+				int nextIndex = delivered.nextClearBit(0);
+				while (nextIndex <= lastIndex && received.containsKey(nextIndex)) {
+					count += handle(received.remove(nextIndex), handler);
+					pendingPages.release();
+					delivered.set(nextIndex);
+					nextIndex++;
+				}
+			}
+			return count;
+		}
+
+		private int handle(List<T> entities, ItemHandler<T> handler) {
+			if (entities == null) {
+				return 0;
+			}
+			for (T entity : entities) {
+				handler.handleItem(entity);
+			}
+			return entities.size();
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.mambu.apisdk.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Deserializer for a Mambu model class with the field bindings resolved once, when the deserializer is created.
+ *
+ * Gson's reflective deserialization walks the class hierarchy, applies the exclusion strategies and the naming policy
+ * for each field of each deserialized object. For the classes deserialized in bulk (e.g. loan and savings
+ * transactions) this deserializer looks up the precompiled binding for each JSON member instead. Values of the common
+ * types (String, Long, Integer, Boolean, BigDecimal and Date) are converted directly, all other values are deserialized
+ * by the Gson context.
+ *
+ * Fields are bound the same way as by Gson's default configuration: static, transient and synthetic fields are
+ * excluded, the SerializedName annotation is respected and JSON null values set the non primitive fields to null
+ */
+class PrecompiledDeserializer<T> implements JsonDeserializer<T> {
+
+	private final Constructor<T> constructor;
+	private final Map<String, FieldBinding> bindings;
+	private final DateDeserializer dateDeserializer;
+
+	private PrecompiledDeserializer(Constructor<T> constructor, Map<String, FieldBinding> bindings,
+			DateDeserializer dateDeserializer) {
+		this.constructor = constructor;
+		this.bindings = bindings;
+		this.dateDeserializer = dateDeserializer;
+	}
+
+	/**
+	 * Create the deserializer for the specified class
+	 *
+	 * @param clazz
+	 *            model class
+	 * @param dateDeserializer
+	 *            deserializer to be used for Date fields
+	 * @return the deserializer or null if the class is not supported: the class must have a no-argument constructor
+	 *         and it must not have generic fields
+	 */
+	static <T> PrecompiledDeserializer<T> create(Class<T> clazz, DateDeserializer dateDeserializer) {
+
+		final Constructor<T> constructor;
+		try {
+			constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		}
+		if (clazz.getTypeParameters().length > 0 || Modifier.isAbstract(clazz.getModifiers())) {
+			return null;
+		}
+
+		Map<String, FieldBinding> bindings = new HashMap<String, FieldBinding>();
+		for (Class<?> current = clazz; current != null && current != Object.class; current = current
+				.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (isExcluded(field)) {
+					continue;
+				}
+				if (hasTypeVariable(field.getGenericType())) {
+					return null;
+				}
+				try {
+					field.setAccessible(true);
+				} catch (SecurityException e) {
+					return null;
+				}
+				String name = getFieldName(field);
+				if (!bindings.containsKey(name)) {
+					bindings.put(name, new FieldBinding(field));
+				}
+			}
+		}
+
+		return new PrecompiledDeserializer<T>(constructor, bindings, dateDeserializer);
+	}
+
+	@Override
+	public T deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+			throws JsonParseException {
+		if (json.isJsonNull()) {
+			return null;
+		}
+		if (!json.isJsonObject()) {
+			throw new JsonParseException("Expecting object but found: " + json);
+		}
+
+		T object;
+		try {
+			object = constructor.newInstance();
+		} catch (Exception e) {
+			throw new JsonParseException("Unable to create " + constructor.getDeclaringClass().getName(), e);
+		}
+
+		JsonObject jsonObject = json.getAsJsonObject();
+		for (Map.Entry<String, JsonElement> member : jsonObject.entrySet()) {
+			FieldBinding binding = bindings.get(member.getKey());
+			if (binding == null) {
+				// Unknown members are ignored, as by Gson
+				continue;
+			}
+			JsonElement element = member.getValue();
+			try {
+				if (element == null || element.isJsonNull()) {
+					if (!binding.isPrimitive) {
+						binding.field.set(object, null);
+					}
+				} else {
+					binding.field.set(object, binding.read(element, context, dateDeserializer));
+				}
+			} catch (IllegalAccessException e) {
+				throw new JsonParseException(e);
+			} catch (RuntimeException e) {
+				if (e instanceof JsonParseException) {
+					throw e;
+				}
+				throw new JsonParseException("Invalid value for " + binding.field.getName() + ": " + element, e);
+			}
+		}
+		return object;
+	}
+
+	private static boolean isExcluded(Field field) {
+		int modifiers = field.getModifiers();
+		if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+			return true;
+		}
+		// Gson excludes fields of anonymous, local and inner (non static) classes
+		Class<?> type = field.getType();
+		return type.isAnonymousClass() || type.isLocalClass()
+				|| (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()));
+	}
+
+	private static String getFieldName(Field field) {
+		SerializedName serializedName = field.getAnnotation(SerializedName.class);
+		return serializedName != null ? serializedName.value() : field.getName();
+	}
+
+	private static boolean hasTypeVariable(Type type) {
+		if (type instanceof Class<?>) {
+			return false;
+		}
+		if (type instanceof ParameterizedType) {
+			for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+				if (hasTypeVariable(argument)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (type instanceof GenericArrayType) {
+			return hasTypeVariable(((GenericArrayType) type).getGenericComponentType());
+		}
+		// Type variables and wildcards
+		return true;
+	}
+
+	/**
+	 * Binding of a JSON member to the object's field
+	 */
+	private static class FieldBinding {
+
+		// Value kinds converted directly
+		private static final int OTHER = 0;
+		private static final int STRING = 1;
+		private static final int LONG = 2;
+		private static final int INTEGER = 3;
+		private static final int BOOLEAN = 4;
+		private static final int BIG_DECIMAL = 5;
+		private static final int DATE = 6;
+
+		private final Field field;
+		private final Type type;
+		private final boolean isPrimitive;
+		private final int kind;
+
+		FieldBinding(Field field) {
+			this.field = field;
+			this.type = field.getGenericType();
+
+			Class<?> fieldClass = field.getType();
+			this.isPrimitive = fieldClass.isPrimitive();
+			if (fieldClass == String.class) {
+				kind = STRING;
+			} else if (fieldClass == Long.class || fieldClass == long.class) {
+				kind = LONG;
+			} else if (fieldClass == Integer.class || fieldClass == int.class) {
+				kind = INTEGER;
+			} else if (fieldClass == Boolean.class || fieldClass == boolean.class) {
+				kind = BOOLEAN;
+			} else if (fieldClass == BigDecimal.class) {
+				kind = BIG_DECIMAL;
+			} else if (fieldClass == Date.class) {
+				kind = DATE;
+			} else {
+				kind = OTHER;
+			}
+		}
+
+		Object read(JsonElement element, JsonDeserializationContext context, DateDeserializer dateDeserializer) {
+			if (kind != OTHER && !element.isJsonPrimitive()) {
+				throw new JsonParseException("Expecting a primitive value for " + field.getName());
+			}
+			switch (kind) {
+			case STRING:
+				return element.getAsString();
+			case LONG:
+				return element.getAsLong();
+			case INTEGER:
+				return element.getAsInt();
+			case BOOLEAN:
+				return element.getAsBoolean();
+			case BIG_DECIMAL:
+				return element.getAsBigDecimal();
+			case DATE:
+				return dateDeserializer.parse(element.getAsString());
+			default:
+				return context.deserialize(element, type);
+			}
+		}
+	}
+}
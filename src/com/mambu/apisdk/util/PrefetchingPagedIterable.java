@@ -0,0 +1,148 @@
+package com.mambu.apisdk.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+
+/**
+ * PagedIterable requesting the next pages in the background while the current page is being processed, so that the
+ * round-trip latency is hidden for sequential scans over many pages.
+ * 
+ * The number of pages requested ahead of the current page is bounded by the look-ahead window: no new page is
+ * requested until the consumer moves on to the next page, so a slow consumer never accumulates more than the window's
+ * pages in memory. As the total number of entities is not known, up to the window's number of pages may be requested
+ * past the last page: their results are discarded when the last (short) page is reached
+ */
+public abstract class PrefetchingPagedIterable<T> extends PagedIterable<T> {
+
+	// Default number of pages requested ahead of the current page
+	public final static int DEFAULT_PREFETCH_PAGES = 2;
+
+	private final int prefetchPages;
+
+	/**
+	 * Create PrefetchingPagedIterable
+	 * 
+	 * @param pageSize
+	 *            number of entities requested per page. Must be greater than zero
+	 * @param prefetchPages
+	 *            number of pages requested ahead of the current page. Must be greater than zero
+	 */
+	protected PrefetchingPagedIterable(int pageSize, int prefetchPages) {
+		super(pageSize);
+		if (prefetchPages < 1) {
+			throw new IllegalArgumentException("Prefetch pages must be greater than zero");
+		}
+		this.prefetchPages = prefetchPages;
+	}
+
+	/**
+	 * Request the page of entities asynchronously
+	 * 
+	 * @param offset
+	 *            offset of the first entity in the page
+	 * @param limit
+	 *            number of entities to request
+	 * @return future entities in the page. Future's get() throws ExecutionException with the MambuApiException as its
+	 *         cause if the request failed
+	 */
+	protected abstract Future<List<T>> getPageAsync(int offset, int limit);
+
+	@Override
+	protected List<T> getPage(int offset, int limit) throws MambuApiException {
+		return await(getPageAsync(offset, limit));
+	}
+
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new PrefetchingIterator();
+	}
+
+	// Wait for the requested page
+	private List<T> await(Future<List<T>> future) throws MambuApiException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (ExecutionException e) {
+			throw AsyncRequestExecutorImpl.toMambuApiException(e);
+		}
+	}
+
+	/**
+	 * Iterator keeping the requests for the current page and the look-ahead pages in a window
+	 */
+	private class PrefetchingIterator implements Iterator<T> {
+
+		private final LinkedList<Future<List<T>>> window = new LinkedList<Future<List<T>>>();
+		private Iterator<T> page = Collections.<T> emptyList().iterator();
+		private int nextRequestOffset = 0;
+		private boolean lastPage = false;
+
+		@Override
+		public boolean hasNext() {
+			while (!page.hasNext()) {
+				if (lastPage) {
+					return false;
+				}
+				// Keep the window full: the current page plus the look-ahead pages
+				final int pageSize = getPageSize();
+				while (window.size() < prefetchPages + 1) {
+					window.add(getPageAsync(nextRequestOffset, pageSize));
+					nextRequestOffset += pageSize;
+				}
+
+				List<T> entities;
+				try {
+					entities = await(window.removeFirst());
+				} catch (MambuApiException e) {
+					lastPage = true;
+					cancelWindow();
+					throw new MambuApiRuntimeException(e);
+				}
+				if (entities == null) {
+					entities = Collections.emptyList();
+				}
+				// A short page is the last one. The pages requested after it are not needed
+				if (entities.size() < pageSize) {
+					lastPage = true;
+					cancelWindow();
+				}
+				page = entities.iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return page.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Entities cannot be removed");
+		}
+
+		private void cancelWindow() {
+			for (Future<List<T>> future : window) {
+				future.cancel(false);
+			}
+			window.clear();
+		}
+	}
+}
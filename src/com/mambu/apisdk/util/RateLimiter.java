@@ -0,0 +1,18 @@
+package com.mambu.apisdk.util;
+
+/**
+ * Rate limiter for the API requests. The RequestExecutor calls acquire() before sending each request it is applied
+ * to. See RequestLimit for configuring the rate limiters, applications can provide their own implementation by
+ * overriding RequestLimit.createRateLimiter()
+ */
+public interface RateLimiter {
+
+	/**
+	 * Wait until the request is allowed to be sent
+	 * 
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException;
+
+}
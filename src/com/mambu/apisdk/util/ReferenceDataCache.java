@@ -0,0 +1,596 @@
+package com.mambu.apisdk.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+import com.mambu.accounts.shared.model.TransactionChannel;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiReturnFormat;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl.DaemonThreadFactory;
+import com.mambu.core.shared.model.Currency;
+import com.mambu.core.shared.model.CustomField;
+import com.mambu.core.shared.model.CustomFieldSet;
+import com.mambu.loans.shared.model.LoanProduct;
+import com.mambu.savings.shared.model.SavingsProduct;
+
+/**
+ * Cache for the reference data which rarely changes in Mambu: loan and savings products, transaction channels,
+ * currencies, custom fields and custom field sets. The results of the GET requests returning the reference data
+ * classes are kept for the time to live, keyed by the request's URL and params. The least recently used results are
+ * evicted when the cache is full.
+ *
+ * The cache is per tenant: it is set on the tenant's MambuAPIService and is used by all its services, for example:
+ *
+ * MambuAPIFactory.getMambuAPIService().setReferenceDataCache(new ReferenceDataCache());
+ *
+ * Cached results can be refreshed explicitly with refresh() and can be loaded at the start of the application (see
+ * ReferenceDataService). The cached objects are shared by all callers and must not be modified
+ *
+ * The cache can be saved to a snapshot file and loaded from it when the application restarts (see setSnapshotFile()),
+ * so that the reference data is available without downloading it again. The results loaded from the snapshot are
+ * returned immediately and are revalidated with Mambu in the background on their first use. They are kept for the
+ * rest of their time to live: the snapshot keeps the age of each result. The snapshot is a compact gzip compressed
+ * file with the JSON of each result; a separate file should be used for each tenant
+ */
+public class ReferenceDataCache {
+
+	private final static Logger LOGGER = Logger.getLogger(ReferenceDataCache.class.getName());
+
+	// Default values
+	public final static long DEFAULT_TIME_TO_LIVE = 600000L; // milliseconds
+	public final static int DEFAULT_MAX_ENTRIES = 500;
+
+	// Snapshot file format
+	private final static int SNAPSHOT_MAGIC = 0x4D425244;
+	private final static int SNAPSHOT_VERSION = 2;
+
+	private final Set<Class<?>> cachedClasses = new HashSet<Class<?>>(Arrays.<Class<?>> asList(LoanProduct.class,
+			SavingsProduct.class, TransactionChannel.class, Currency.class, CustomField.class, CustomFieldSet.class));
+
+	// Cached results by request key
+	private final LruCache<Entry> entries;
+
+	// Snapshot file saved after the results are loaded. Null if not set
+	private volatile File snapshotFile = null;
+	private final AtomicBoolean savePending = new AtomicBoolean();
+	// Revalidates the results loaded from the snapshot and saves the snapshot. Created when needed
+	private ExecutorService backgroundExecutor = null;
+
+	/**
+	 * Create ReferenceDataCache with default values
+	 */
+	public ReferenceDataCache() {
+		this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create ReferenceDataCache
+	 *
+	 * @param timeToLive
+	 *            time to keep a result in the cache, in milliseconds. Must be greater than zero
+	 * @param maxEntries
+	 *            max number of results in the cache. Must be greater than zero
+	 */
+	public ReferenceDataCache(long timeToLive, int maxEntries) {
+		this(timeToLive, maxEntries, Ticker.SYSTEM);
+	}
+
+	/**
+	 * Create ReferenceDataCache measuring the time to live with the ticker
+	 *
+	 * @param timeToLive
+	 *            time to keep a result in the cache, in milliseconds. Must be greater than zero
+	 * @param maxEntries
+	 *            max number of results in the cache. Must be greater than zero
+	 * @param ticker
+	 *            source of the time. Must not be null
+	 */
+	public ReferenceDataCache(long timeToLive, int maxEntries, Ticker ticker) {
+		if (timeToLive < 1) {
+			throw new IllegalArgumentException("Time to live must be greater than zero");
+		}
+		this.entries = new LruCache<Entry>("ReferenceDataCache", timeToLive, maxEntries, ticker);
+	}
+
+	public synchronized long getTimeToLive() {
+		return entries.getTimeToLive();
+	}
+
+	public synchronized int getMaxEntries() {
+		return entries.getMaxEntries();
+	}
+
+	/**
+	 * Cache the results of the requests returning the specified class, in addition to the default reference data
+	 * classes
+	 *
+	 * @param returnClass
+	 *            class returned by the API requests
+	 */
+	public synchronized void addCachedClass(Class<?> returnClass) {
+		if (returnClass == null) {
+			throw new IllegalArgumentException("Class must not be null");
+		}
+		cachedClasses.add(returnClass);
+	}
+
+	/**
+	 * Check whether the results of the requests returning the class are cached
+	 *
+	 * @param returnClass
+	 *            class returned by the API request
+	 * @return true if the results are cached
+	 */
+	public synchronized boolean isCachedClass(Class<?> returnClass) {
+		return cachedClasses.contains(returnClass);
+	}
+
+	// Statistics
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized long getEvictions() {
+		return entries.getEvictions();
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Remove all results from the cache. The statistics are not reset
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Reload all results in the cache now, e.g. after the products were changed in Mambu. The results which could not
+	 * be reloaded are removed from the cache
+	 *
+	 * @throws MambuApiException
+	 *             the first exception thrown when reloading the results
+	 */
+	public void refresh() throws MambuApiException {
+
+		List<Entry> toRefresh = new ArrayList<Entry>();
+		synchronized (this) {
+			for (Entry entry : entries) {
+				toRefresh.add(entry);
+			}
+		}
+
+		MambuApiException firstException = null;
+		for (Entry entry : toRefresh) {
+			String key = entry.getKey();
+			Callable<?> loader = entry.loader;
+			if (loader == null) {
+				// Loaded from the snapshot and not used yet: it is revalidated on its first use
+				continue;
+			}
+			try {
+				put(key, load(loader), loader, entry.resultType);
+			} catch (MambuApiException e) {
+				LOGGER.warning("Failed to refresh " + key + ": " + e.getMessage());
+				synchronized (this) {
+					entries.remove(key);
+				}
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+		if (firstException != null) {
+			throw firstException;
+		}
+	}
+
+	/**
+	 * Get the cached result or load it. Loaded results are kept in the cache
+	 *
+	 * @param key
+	 *            request key
+	 * @param loader
+	 *            loader executing the request
+	 * @return the result
+	 * @throws MambuApiException
+	 *             the exception thrown by the loader
+	 */
+	<R> R get(String key, Callable<R> loader) throws MambuApiException {
+		return get(key, (ResultType) null, loader);
+	}
+
+	/**
+	 * Get the cached result or load it. Loaded results are kept in the cache and saved in the snapshot
+	 *
+	 * @param key
+	 *            request key
+	 * @param apiDefinition
+	 *            API definition of the request, with the type of the result. Null if the result is not saved in the
+	 *            snapshot
+	 * @param loader
+	 *            loader executing the request
+	 * @return the result
+	 * @throws MambuApiException
+	 *             the exception thrown by the loader
+	 */
+	<R> R get(String key, ApiDefinition apiDefinition, Callable<R> loader) throws MambuApiException {
+		return get(key, ResultType.of(apiDefinition), loader);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> R get(final String key, final ResultType resultType, final Callable<R> loader)
+			throws MambuApiException {
+
+		synchronized (this) {
+			final Entry entry = entries.getEntry(key);
+			if (entry != null && !entries.isExpired(entry)) {
+				entries.recordHit();
+				if (entry.fromSnapshot && !entry.revalidating) {
+					// Revalidate the result from the snapshot in the background, once
+					entry.revalidating = true;
+					getBackgroundExecutor().execute(new Runnable() {
+						@Override
+						public void run() {
+							revalidate(key, entry, resultType, loader);
+						}
+					});
+				}
+				return (R) entry.value;
+			}
+			entries.recordMiss();
+		}
+
+		R value = load(loader);
+		put(key, value, loader, resultType);
+		return value;
+	}
+
+	// Reload the result loaded from the snapshot. If it fails, the result is revalidated again on its next use
+	private void revalidate(String key, Entry entry, ResultType resultType, Callable<?> loader) {
+		try {
+			put(key, load(loader), loader, resultType);
+		} catch (MambuApiException e) {
+			LOGGER.warning("Failed to revalidate " + key + ": " + e.getMessage());
+			synchronized (this) {
+				entry.revalidating = false;
+			}
+		} catch (RuntimeException e) {
+			LOGGER.warning("Failed to revalidate " + key + ": " + e);
+			synchronized (this) {
+				entry.revalidating = false;
+			}
+		}
+	}
+
+	private void put(String key, Object value, Callable<?> loader, ResultType resultType) {
+		synchronized (this) {
+			removeExpired();
+			entries.put(key, new Entry(value, loader, resultType, false));
+		}
+		if (resultType != null) {
+			scheduleSave();
+		}
+	}
+
+	// Remove the expired results, so that they don't take the place of the live ones
+	private void removeExpired() {
+		for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext();) {
+			Entry entry = iterator.next();
+			if (entries.isExpired(entry)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Get the snapshot file
+	 *
+	 * @return snapshot file or null if not set
+	 */
+	public File getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	/**
+	 * Set the snapshot file for this cache. The results are loaded from the file now, if it exists, and the file is
+	 * saved in the background each time the results are loaded from Mambu. A missing or unreadable file is ignored:
+	 * the results are then requested from Mambu as usual
+	 *
+	 * @param snapshotFile
+	 *            snapshot file, one per tenant. Null to stop saving the snapshot
+	 * @return number of the results loaded from the file
+	 */
+	public int setSnapshotFile(File snapshotFile) {
+		this.snapshotFile = snapshotFile;
+		if (snapshotFile == null || !snapshotFile.isFile()) {
+			return 0;
+		}
+		try {
+			return loadSnapshot(snapshotFile);
+		} catch (IOException e) {
+			LOGGER.warning("Failed to load reference data snapshot " + snapshotFile + ": " + e.getMessage());
+			return 0;
+		}
+	}
+
+	/**
+	 * Load the results from the snapshot file. They are returned without requesting them from Mambu and are
+	 * revalidated in the background on their first use. The results already in the cache are not replaced and the
+	 * results older than the time to live are not loaded
+	 *
+	 * @param file
+	 *            snapshot file
+	 * @return number of the results loaded
+	 * @throws IOException
+	 *             if the file cannot be read or is not a snapshot
+	 */
+	public int loadSnapshot(File file) throws IOException {
+
+		Gson gson = GsonUtils.createGson();
+		Map<String, Entry> loaded = new LinkedHashMap<String, Entry>();
+		Map<String, Long> loadedAges = new HashMap<String, Long>();
+		long timeToLive = getTimeToLive();
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(
+				file))));
+		try {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Not a reference data snapshot: " + file);
+			}
+			// The results aged since the snapshot was saved
+			long savedAge = Math.max(0, System.currentTimeMillis() - in.readLong());
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				ApiReturnFormat returnFormat = ApiReturnFormat.valueOf(in.readUTF());
+				String className = in.readUTF();
+				long age = in.readLong() + savedAge;
+				byte[] json = new byte[in.readInt()];
+				in.readFully(json);
+				if (age >= timeToLive) {
+					continue;
+				}
+
+				ResultType resultType;
+				try {
+					resultType = new ResultType(returnFormat, Class.forName(className));
+				} catch (ClassNotFoundException e) {
+					// Model class is no longer available
+					continue;
+				}
+				Object value = gson.fromJson(new String(json, "UTF-8"), resultType.getType());
+				loaded.put(key, new Entry(value, null, resultType, true));
+				loadedAges.put(key, age);
+			}
+		} catch (RuntimeException e) {
+			// Invalid JSON or API type
+			throw new IOException("Invalid reference data snapshot " + file + ": " + e);
+		} finally {
+			in.close();
+		}
+
+		int added = 0;
+		synchronized (this) {
+			for (Map.Entry<String, Entry> entry : loaded.entrySet()) {
+				if (!entries.containsKey(entry.getKey())) {
+					entries.put(entry.getKey(), entry.getValue(), loadedAges.get(entry.getKey()));
+					added++;
+				}
+			}
+		}
+		LOGGER.fine("Loaded " + added + " reference data results from " + file);
+		return added;
+	}
+
+	/**
+	 * Save the cached results to the snapshot file, with their age. The expired results are not saved. The file is
+	 * replaced atomically, where the file system allows it
+	 *
+	 * @param file
+	 *            snapshot file
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void saveSnapshot(File file) throws IOException {
+
+		List<Entry> toSave = new ArrayList<Entry>();
+		List<Long> ages = new ArrayList<Long>();
+		long savedAt;
+		synchronized (this) {
+			savedAt = System.currentTimeMillis();
+			for (Entry entry : entries) {
+				if (entry.resultType != null && !entries.isExpired(entry)) {
+					toSave.add(entry);
+					ages.add(entries.getAge(entry));
+				}
+			}
+		}
+
+		Gson gson = GsonUtils.createGson();
+		File directory = file.getAbsoluteFile().getParentFile();
+		File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+		boolean saved = false;
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+					new FileOutputStream(tempFile))));
+			try {
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(SNAPSHOT_VERSION);
+				out.writeLong(savedAt);
+				out.writeInt(toSave.size());
+				for (int i = 0; i < toSave.size(); i++) {
+					Entry entry = toSave.get(i);
+					ResultType resultType = entry.resultType;
+					byte[] json = gson.toJson(entry.value, resultType.getType()).getBytes("UTF-8");
+					out.writeUTF(entry.getKey());
+					out.writeUTF(resultType.returnFormat.name());
+					out.writeUTF(resultType.returnClass.getName());
+					out.writeLong(ages.get(i));
+					out.writeInt(json.length);
+					out.write(json);
+				}
+			} finally {
+				out.close();
+			}
+			if (!tempFile.renameTo(file)) {
+				// Not atomic on some platforms: replace the file
+				if (!file.delete() || !tempFile.renameTo(file)) {
+					throw new IOException("Cannot replace " + file);
+				}
+			}
+			saved = true;
+		} finally {
+			if (!saved) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	// Save the snapshot in the background, unless a save is already pending
+	private void scheduleSave() {
+		if (snapshotFile == null || !savePending.compareAndSet(false, true)) {
+			return;
+		}
+		getBackgroundExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				savePending.set(false);
+				File file = snapshotFile;
+				if (file == null) {
+					return;
+				}
+				try {
+					saveSnapshot(file);
+				} catch (IOException e) {
+					LOGGER.warning("Failed to save reference data snapshot " + file + ": " + e.getMessage());
+				}
+			}
+		});
+	}
+
+	private synchronized ExecutorService getBackgroundExecutor() {
+		if (backgroundExecutor == null) {
+			backgroundExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("Mambu-ReferenceData-"));
+		}
+		return backgroundExecutor;
+	}
+
+	/**
+	 * Stop the background thread revalidating the results and saving the snapshot, e.g. when the MambuAPIService using
+	 * the cache is closed. The tasks already started are completed. A new thread is started if the cache is used again
+	 */
+	public synchronized void close() {
+		if (backgroundExecutor != null) {
+			backgroundExecutor.shutdown();
+			backgroundExecutor = null;
+		}
+	}
+
+	private static <R> R load(Callable<R> loader) throws MambuApiException {
+		try {
+			return loader.call();
+		} catch (MambuApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MambuApiException(e);
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return entries.toString();
+	}
+
+	/**
+	 * Cached result and the loader to refresh it
+	 */
+	private static class Entry extends LruCache.Entry {
+
+		private final Object value;
+		// Null if loaded from the snapshot
+		private final Callable<?> loader;
+		// Null if not saved in the snapshot
+		private final ResultType resultType;
+		// Loaded from the snapshot, not revalidated yet
+		private final boolean fromSnapshot;
+		private boolean revalidating = false;
+
+		Entry(Object value, Callable<?> loader, ResultType resultType, boolean fromSnapshot) {
+			this.value = value;
+			this.loader = loader;
+			this.resultType = resultType;
+			this.fromSnapshot = fromSnapshot;
+		}
+	}
+
+	/**
+	 * Type of the result saved in the snapshot: an object or a collection of the return class
+	 */
+	private static class ResultType {
+
+		private final ApiReturnFormat returnFormat;
+		private final Class<?> returnClass;
+
+		ResultType(ApiReturnFormat returnFormat, Class<?> returnClass) {
+			this.returnFormat = returnFormat;
+			this.returnClass = returnClass;
+		}
+
+		/**
+		 * Get the result type for the request
+		 *
+		 * @param apiDefinition
+		 *            API definition of the request. Can be null
+		 * @return the result type or null if the result cannot be saved: only OBJECT and COLLECTION results are saved
+		 */
+		static ResultType of(ApiDefinition apiDefinition) {
+			if (apiDefinition == null) {
+				return null;
+			}
+			ApiReturnFormat returnFormat = apiDefinition.getApiReturnFormat();
+			if (returnFormat != ApiReturnFormat.OBJECT && returnFormat != ApiReturnFormat.COLLECTION) {
+				return null;
+			}
+			return new ResultType(returnFormat, apiDefinition.getReturnClass());
+		}
+
+		Type getType() {
+			if (returnFormat == ApiReturnFormat.COLLECTION) {
+				return ServiceExecutor.getCollectionType(returnClass);
+			}
+			return returnClass;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.mambu.apisdk.util;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * Coalesces concurrent identical requests: while a request with a given key is in flight, the other callers with the
+ * same key wait for its result instead of executing their own request. The first caller executes the request on its
+ * own thread, all callers get the same result object or the same exception. The exception is not shared if the first
+ * caller's request failed because of its own timeouts or deadline (see RequestContext) and the waiting caller's are
+ * different: the waiting caller then executes the request with its own request context.
+ *
+ * Only the requests in flight are coalesced, the results are not cached. Each MambuAPIService has its own coalescer,
+ * so that the requests made with different credentials are never coalesced
+ */
+public class RequestCoalescer {
+
+	// Requests in flight by key
+	private final ConcurrentMap<String, InFlightRequest> inFlight = new ConcurrentHashMap<String, InFlightRequest>();
+
+	/**
+	 * Create RequestCoalescer with no requests in flight
+	 */
+	public RequestCoalescer() {
+	}
+
+	/**
+	 * Execute the request or wait for the identical request in flight
+	 *
+	 * @param key
+	 *            key identifying identical requests
+	 * @param request
+	 *            the request
+	 * @return the request's result
+	 * @throws MambuApiException
+	 *             the exception thrown by the request. Or, when waiting for the request of another caller, with the
+	 *             RequestContext.DEADLINE_EXCEEDED_ERROR_CODE error code if the current request context's deadline
+	 *             passes
+	 */
+	@SuppressWarnings("unchecked")
+	<R> R execute(String key, Callable<R> request) throws MambuApiException {
+
+		RequestContext context = RequestContext.current();
+		InFlightRequest task = new InFlightRequest((Callable<Object>) request, context);
+		InFlightRequest existing = inFlight.putIfAbsent(key, task);
+		if (existing == null) {
+			// Execute the request on this thread
+			try {
+				task.run();
+			} finally {
+				inFlight.remove(key, task);
+			}
+			try {
+				return (R) task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MambuApiException(e);
+			} catch (ExecutionException e) {
+				throw toMambuApiException(e);
+			}
+		}
+
+		existing.waiters.incrementAndGet();
+		try {
+			long remaining = context.getRemainingTime();
+			if (remaining == Long.MAX_VALUE) {
+				return (R) existing.get();
+			}
+			return (R) existing.get(remaining, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (TimeoutException e) {
+			throw new MambuApiException(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE, "Request deadline exceeded");
+		} catch (ExecutionException e) {
+			if (isTimeout(e.getCause()) && !existing.context.hasSameLimits(context)) {
+				// The other caller's timeouts or deadline don't apply to this caller
+				return call(request);
+			}
+			throw toMambuApiException(e);
+		} finally {
+			existing.waiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Get the number of callers waiting for the request in flight. Used by the tests
+	 *
+	 * @param key
+	 *            key identifying identical requests
+	 * @return number of waiting callers, zero if no request is in flight
+	 */
+	int getWaiters(String key) {
+		InFlightRequest request = inFlight.get(key);
+		return (request == null) ? 0 : request.waiters.get();
+	}
+
+	// Check whether the request failed because of the timeouts or the deadline of its request context
+	private static boolean isTimeout(Throwable exception) {
+		if (exception instanceof MambuApiException
+				&& Integer.valueOf(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE).equals(
+						((MambuApiException) exception).getErrorCode())) {
+			return true;
+		}
+		// Socket, connect and connection pool timeouts
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof InterruptedIOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Execute the request on this thread, without coalescing
+	private static <R> R call(Callable<R> request) throws MambuApiException {
+		try {
+			return request.call();
+		} catch (MambuApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MambuApiException(e);
+		}
+	}
+
+	private static MambuApiException toMambuApiException(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return AsyncRequestExecutorImpl.toMambuApiException(e);
+	}
+
+	/**
+	 * A request in flight, with the request context of the caller executing it
+	 */
+	private static class InFlightRequest extends FutureTask<Object> {
+
+		private final RequestContext context;
+		private final AtomicInteger waiters = new AtomicInteger();
+
+		InFlightRequest(Callable<Object> request, RequestContext context) {
+			super(request);
+			this.context = context;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+
+/**
+ * RequestContext holds the per call settings for the API requests made by the current thread: the timeouts overriding
+ * the timeouts from the HttpClientSettings and the overall deadline for all requests. The context is carried to the
+ * threads executing the requests in the background (async, prefetched and parallel requests), so that the deadline
+ * applies to all requests made for the call, including the retries and the requests for the next pages.
+ *
+ * The context is immutable. Applications attach a new context to the current thread and restore the previous one when
+ * done, for example:
+ *
+ * RequestContext previous = RequestContext.current().withDeadline(60000).attach();
+ *
+ * try {
+ *
+ * ... loansService.getLoanAccountTransactionsAll(accountId, 100) ...
+ *
+ * } finally {
+ *
+ * RequestContext.restore(previous);
+ *
+ * }
+ *
+ * Requests made after the deadline fail with a MambuApiException with the DEADLINE_EXCEEDED_ERROR_CODE error code. The
+ * timeouts of the requests made before the deadline are reduced to the remaining time
+ */
+public final class RequestContext {
+
+	/**
+	 * Error code of the MambuApiException thrown when the request is made after the deadline
+	 */
+	public final static int DEADLINE_EXCEEDED_ERROR_CODE = -3;
+
+	private final static RequestContext EMPTY = new RequestContext(null, false, 0L, null);
+	private final static ThreadLocal<RequestContext> CURRENT = new ThreadLocal<RequestContext>();
+
+	private final RequestTimeouts timeouts;
+	private final boolean hasDeadline;
+	private final long deadline; // System.nanoTime() based
+	private final ApiType apiType;
+
+	private RequestContext(RequestTimeouts timeouts, boolean hasDeadline, long deadline, ApiType apiType) {
+		this.timeouts = timeouts;
+		this.hasDeadline = hasDeadline;
+		this.deadline = deadline;
+		this.apiType = apiType;
+	}
+
+	/**
+	 * Get the context of the current thread
+	 *
+	 * @return the context attached to the current thread or an empty context (no timeouts and no deadline)
+	 */
+	public static RequestContext current() {
+		RequestContext context = CURRENT.get();
+		return context == null ? EMPTY : context;
+	}
+
+	/**
+	 * Restore the context which was attached to the current thread before attach() was called
+	 *
+	 * @param previous
+	 *            the context returned by attach(). Can be null
+	 */
+	public static void restore(RequestContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Attach this context to the current thread
+	 *
+	 * @return the previously attached context, to be passed to restore(). Can be null
+	 */
+	public RequestContext attach() {
+		RequestContext previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Create a context with the specified timeouts
+	 *
+	 * @param timeouts
+	 *            timeouts for the requests. Null to use the timeouts from the HttpClientSettings
+	 * @return new context
+	 */
+	public RequestContext withTimeouts(RequestTimeouts timeouts) {
+		return new RequestContext(timeouts, hasDeadline, deadline, apiType);
+	}
+
+	/**
+	 * Create a context with the deadline after the specified time. The existing deadline is kept if it is earlier
+	 *
+	 * @param timeout
+	 *            time from now, in milliseconds
+	 * @return new context
+	 */
+	public RequestContext withDeadline(long timeout) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout must not be negative");
+		}
+		long newDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		if (hasDeadline && deadline - newDeadline < 0) {
+			newDeadline = deadline;
+		}
+		return new RequestContext(timeouts, true, newDeadline, apiType);
+	}
+
+	/**
+	 * Create a context for the requests of the specified API type. Used by the ServiceExecutor
+	 *
+	 * @param apiType
+	 *            API type of the request
+	 * @return new context
+	 */
+	RequestContext withApiType(ApiType apiType) {
+		return new RequestContext(timeouts, hasDeadline, deadline, apiType);
+	}
+
+	public RequestTimeouts getTimeouts() {
+		return timeouts;
+	}
+
+	public ApiType getApiType() {
+		return apiType;
+	}
+
+	public boolean hasDeadline() {
+		return hasDeadline;
+	}
+
+	/**
+	 * Get the time remaining until the deadline
+	 *
+	 * @return remaining time in milliseconds. Zero if the deadline has passed, Long.MAX_VALUE if there is no deadline
+	 */
+	public long getRemainingTime() {
+		if (!hasDeadline) {
+			return Long.MAX_VALUE;
+		}
+		long remaining = deadline - System.nanoTime();
+		return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining);
+	}
+
+	/**
+	 * Check whether the requests are executed with the same timeouts and deadline in both contexts
+	 *
+	 * @param other
+	 *            other context
+	 * @return true if the timeouts, the deadline and the API type are the same
+	 */
+	boolean hasSameLimits(RequestContext other) {
+		return timeouts == other.timeouts && hasDeadline == other.hasDeadline
+				&& (!hasDeadline || deadline == other.deadline) && apiType == other.apiType;
+	}
+
+	/**
+	 * Check that at least a millisecond remains until the deadline
+	 *
+	 * @return the remaining time in milliseconds (Long.MAX_VALUE if there is no deadline)
+	 * @throws MambuApiException
+	 *             with the DEADLINE_EXCEEDED_ERROR_CODE error code if less than a millisecond remains
+	 */
+	long checkDeadline() throws MambuApiException {
+		long remaining = getRemainingTime();
+		if (remaining < 1) {
+			throw new MambuApiException(DEADLINE_EXCEEDED_ERROR_CODE, "Request deadline exceeded");
+		}
+		return remaining;
+	}
+}
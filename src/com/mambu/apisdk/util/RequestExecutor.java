@@ -95,4 +95,47 @@ public interface RequestExecutor {
 	public String executeRequest(String urlString, Method method, ContentType contentTypeFormat)
 			throws MambuApiException;
 
+	/**
+	 * Executes a request with given url, params, request method and content type and passes the content of the
+	 * successful response to the handler. Can be used to deserialize the response directly from the HTTP stream,
+	 * without creating the response String
+	 * 
+	 * @param urlString
+	 *            the url to execute on. eg: https://demo.mambu.com/api/clients
+	 * @param params
+	 *            the parameters eg: {clientId=id}, {JSON=jsonString}
+	 * @param method
+	 *            the method (e.g. GET or PUT)
+	 * @param contentTypeFormat
+	 *            enum for the content type (e.g WWW_FORM or JSON)
+	 * @param handler
+	 *            handler for the response content. Must not be null
+	 * 
+	 * @return the result returned by the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public <T> T executeRequest(String urlString, ParamsMap params, Method method, ContentType contentTypeFormat,
+			ResponseStreamHandler<T> handler) throws MambuApiException;
+
+	/**
+	 * Release resources held by the executor, such as pooled HTTP connections. The executor must not be used after it
+	 * was closed
+	 */
+	public void close();
+
+	/**
+	 * Get the metrics of the responses received by the executor
+	 * 
+	 * @return transfer metrics
+	 */
+	public TransferMetrics getTransferMetrics();
+
+	/**
+	 * Get the cache of the entity reads
+	 * 
+	 * @return response cache or null if the responses are not cached
+	 */
+	public ResponseCache getResponseCache();
+
 }
@@ -1,42 +1,74 @@
 package com.mambu.apisdk.util;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
+import org.apache.http.ParseException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mambu.apisdk.MambuAPIFactory;
 import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
 
 /**
- * Implementation of executing url requests with basic authorization
+ * Implementation of executing url requests with basic authorization.
+ * 
+ * All requests are executed using a single HttpClient backed by a pool of persistent connections. The pool and the
+ * keep-alive behaviour are configured with HttpClientSettings. The executor owns the pool: it must be closed with
+ * close() when the application no longer needs it.
+ * 
+ * Unless disabled in the HttpClientSettings, the responses are requested with gzip or deflate compression and are
+ * decompressed while they are read, so that the compressed content is never buffered. The received and the decoded
+ * bytes are counted in the TransferMetrics
  * 
  * @author edanilkis
  * 
@@ -54,11 +86,85 @@ public class RequestExecutorImpl implements RequestExecutor {
 
 	private final static String APPLICATION_KEY = APIData.APPLICATION_KEY; // as per JIRA issue MBU-3236
 
+	// Buffer sizes used when reading response content
+	private final static int DEFAULT_BUFFER_SIZE = 8192;
+	private final static int MAX_INITIAL_BUFFER_SIZE = 8 * 1024 * 1024;
+
+	// Supported response content encodings
+	private final static String ACCEPT_ENCODING = "gzip,deflate";
+
 	private final static Logger LOGGER = Logger.getLogger(RequestExecutorImpl.class.getName());
 
-	@Inject
+	// Pooled connections manager and the HttpClient shared by all requests
+	private final PoolingClientConnectionManager connectionManager;
+	private final HttpClient httpClient;
+	// Monitor thread closing expired and idle connections. Null if idle connections eviction is disabled
+	private final IdleConnectionMonitor idleConnectionMonitor;
+	// Client side request limits
+	private final RequestThrottle requestThrottle;
+	// Settings with the request timeouts
+	private final HttpClientSettings settings;
+	// Metrics of the received responses
+	private final TransferMetrics transferMetrics = new TransferMetrics();
+	// Cache of the entity reads. Null if disabled
+	private final ResponseCache responseCache;
+
+	/**
+	 * Create RequestExecutorImpl with the default HttpClientSettings
+	 * 
+	 * @param urlHelper
+	 *            url helper
+	 */
 	public RequestExecutorImpl(URLHelper urlHelper) {
+		this(urlHelper, new HttpClientSettings());
+	}
+
+	/**
+	 * Create RequestExecutorImpl with the specified HttpClientSettings
+	 * 
+	 * @param urlHelper
+	 *            url helper
+	 * @param settings
+	 *            settings for the connections pool and for the keep-alive strategy
+	 */
+	@Inject
+	public RequestExecutorImpl(URLHelper urlHelper, HttpClientSettings settings) {
 		this.urlHelper = urlHelper;
+
+		if (settings == null) {
+			throw new IllegalArgumentException("HttpClientSettings must not be null");
+		}
+
+		this.settings = settings;
+
+		// Create connections pool
+		connectionManager = new PoolingClientConnectionManager();
+		connectionManager.setMaxTotal(settings.getMaxConnectionsTotal());
+		connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+
+		// Create HttpClient using the pool
+		HttpParams httpParameters = new BasicHttpParams();
+		DefaultHttpClient pooledClient = new DefaultHttpClient(connectionManager, httpParameters);
+		pooledClient.setKeepAliveStrategy(new KeepAliveStrategy(settings.getKeepAliveDuration()));
+		httpClient = pooledClient;
+
+		requestThrottle = new RequestThrottle(settings);
+
+		if (settings.isResponseCacheEnabled()) {
+			responseCache = new ResponseCache(settings.getResponseCacheTimeToLive(),
+					settings.getResponseCacheMaxEntries());
+		} else {
+			responseCache = null;
+		}
+
+		// Start idle connections eviction, if enabled
+		if (settings.getIdleEvictionInterval() > 0) {
+			idleConnectionMonitor = new IdleConnectionMonitor(connectionManager, settings.getIdleEvictionInterval(),
+					settings.getIdleConnectionTimeout());
+			idleConnectionMonitor.start();
+		} else {
+			idleConnectionMonitor = null;
+		}
 	}
 
 	// Without params and with default contentType (ContentType.WWW_FORM)
@@ -94,6 +200,20 @@ public class RequestExecutorImpl implements RequestExecutor {
 	@Override
 	public String executeRequest(String urlString, ParamsMap params, Method method, ContentType contentTypeFormat)
 			throws MambuApiException {
+		// Read the response into a String
+		return executeRequest(urlString, params, method, contentTypeFormat, stringResponseHandler);
+	}
+
+	/*
+	 * Use this method to process the response content stream directly, without reading it into a String first
+	 */
+	@Override
+	public <T> T executeRequest(String urlString, ParamsMap params, Method method, ContentType contentTypeFormat,
+			ResponseStreamHandler<T> handler) throws MambuApiException {
+
+		if (handler == null) {
+			throw new IllegalArgumentException("ResponseStreamHandler must not be null");
+		}
 
 		// Log API Request details
 		logApiRequest(method, contentTypeFormat, urlString, params);
@@ -114,20 +234,20 @@ public class RequestExecutorImpl implements RequestExecutor {
 
 		}
 
-		String response = "";
+		T response = null;
 		try {
 			switch (method) {
 			case GET:
-				response = executeGetRequest(urlString, params);
+				response = executeGetRequest(urlString, params, handler);
 				break;
 			case POST:
-				response = executePostRequest(urlString, params, contentTypeFormat);
+				response = executePostRequest(urlString, params, contentTypeFormat, handler);
 				break;
 			case PATCH:
-				response = executePatchRequest(urlString, params);
+				response = executePatchRequest(urlString, params, handler);
 				break;
 			case DELETE:
-				response = executeDeleteRequest(urlString, params);
+				response = executeDeleteRequest(urlString, params, handler);
 				break;
 			default:
 				throw new IllegalArgumentException("Only methods GET, POST and DELETE are supported, not "
@@ -146,17 +266,14 @@ public class RequestExecutorImpl implements RequestExecutor {
 	/**
 	 * Executes a POST request as per the interface specification
 	 */
-	private String executePostRequest(String urlString, ParamsMap params, ContentType contentTypeFormat)
-			throws MalformedURLException, IOException, MambuApiException {
+	private <T> T executePostRequest(String urlString, ParamsMap params, ContentType contentTypeFormat,
+			ResponseStreamHandler<T> handler) throws MalformedURLException, IOException, MambuApiException {
 
 		// Get properly formatted ContentType
 		final String contentType = getFormattedContentTypeString(contentTypeFormat);
 
-		HttpParams httpParameters = new BasicHttpParams();
-		HttpClient httpClient = new DefaultHttpClient(httpParameters);
 		HttpPost httpPost = new HttpPost(urlString);
 		httpPost.setHeader("Content-Type", contentType);
-		httpPost.setHeader("Authorization", "Basic " + encodedAuthorization);
 
 		if (params != null && params.size() > 0) {
 			switch (contentTypeFormat) {
@@ -183,31 +300,22 @@ public class RequestExecutorImpl implements RequestExecutor {
 		}
 
 		// execute
-		HttpResponse httpResponse = httpClient.execute(httpPost);
-
-		// Process response
-		String response = processResponse(httpResponse, urlString);
-
-		return response;
+		return executeHttpRequest(httpPost, urlString, handler);
 
 	}
 
 	/**
 	 * Executes a PATCH request as per the interface specification
 	 */
-	private String executePatchRequest(String urlString, ParamsMap params) throws MalformedURLException, IOException,
-			MambuApiException {
+	private <T> T executePatchRequest(String urlString, ParamsMap params, ResponseStreamHandler<T> handler)
+			throws MalformedURLException, IOException, MambuApiException {
 
 		// PATCH request is using json ContentType
 		final String contentType = jsonContentType;
 
-		HttpParams httpParameters = new BasicHttpParams();
-		HttpClient httpClient = new DefaultHttpClient(httpParameters);
-
 		// HttpPatch is available since org.apache.httpcomponents v4.2
 		HttpPatch httpPatch = new HttpPatch(urlString);
 		httpPatch.setHeader("Content-Type", contentType);
-		httpPatch.setHeader("Authorization", "Basic " + encodedAuthorization);
 
 		// Format jsonEntity
 		StringEntity jsonEntity = makeJsonEntity(params);
@@ -215,12 +323,7 @@ public class RequestExecutorImpl implements RequestExecutor {
 		httpPatch.setEntity(jsonEntity);
 
 		// execute
-		HttpResponse httpResponse = httpClient.execute(httpPatch);
-
-		// Process response
-		String response = processResponse(httpResponse, urlString);
-
-		return response;
+		return executeHttpRequest(httpPatch, urlString, handler);
 
 	}
 
@@ -229,29 +332,50 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 * 
 	 * @param urlString
 	 */
-	private String executeGetRequest(String urlString, ParamsMap params) throws MalformedURLException, IOException,
-			MambuApiException {
+	private <T> T executeGetRequest(String urlString, ParamsMap params, ResponseStreamHandler<T> handler)
+			throws MalformedURLException, IOException, MambuApiException {
 
 		if (params != null && params.size() > 0) {
 			urlString = new String((urlHelper.createUrlWithParams(urlString, params)));
 		}
 
-		HttpParams httpParameters = new BasicHttpParams();
-
-		HttpClient httpClient = new DefaultHttpClient(httpParameters);
-
 		HttpGet httpGet = new HttpGet(urlString);
-		// add Authorozation header
-		httpGet.setHeader("Authorization", "Basic " + encodedAuthorization);
 		// setHeader("Content-Type") not need for GET requests
 
-		// execute
-		HttpResponse httpResponse = httpClient.execute(httpGet);
+		// Entity reads can be returned from the response cache or revalidated with the stored response's validators
+		if (isCacheable(handler)) {
+			ResponseCache.Entry cached = responseCache.get(urlString);
+			if (cached != null && responseCache.isFresh(cached)) {
+				logApiResponse(HttpURLConnection.HTTP_OK, "(cached)");
+				@SuppressWarnings("unchecked")
+				T response = (T) cached.getBody();
+				return response;
+			}
+			if (cached != null) {
+				if (cached.getETag() != null) {
+					httpGet.setHeader("If-None-Match", cached.getETag());
+				}
+				if (cached.getLastModified() != null) {
+					httpGet.setHeader("If-Modified-Since", cached.getLastModified());
+				}
+			}
+			return executeHttpRequest(httpGet, urlString, handler, cached, true);
+		}
 
-		// Process response
-		String response = processResponse(httpResponse, urlString);
+		// execute
+		return executeHttpRequest(httpGet, urlString, handler);
+	}
 
-		return response;
+	/**
+	 * Check whether the GET request's response can be cached: the response cache is enabled, the request reads an
+	 * entity and its response is read into a String
+	 */
+	private boolean isCacheable(ResponseStreamHandler<?> handler) {
+		if (responseCache == null || handler != stringResponseHandler) {
+			return false;
+		}
+		ApiType apiType = RequestContext.current().getApiType();
+		return apiType == ApiType.GET_ENTITY || apiType == ApiType.GET_ENTITY_DETAILS;
 	}
 
 	/***
@@ -262,27 +386,134 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 * @param params
 	 *            ParamsMap with parameters
 	 */
-	private String executeDeleteRequest(String urlString, ParamsMap params) throws MalformedURLException, IOException,
-			MambuApiException {
+	private <T> T executeDeleteRequest(String urlString, ParamsMap params, ResponseStreamHandler<T> handler)
+			throws MalformedURLException, IOException, MambuApiException {
 
 		if (params != null && params.size() > 0) {
 			urlString = new String((urlHelper.createUrlWithParams(urlString, params)));
 		}
 
-		HttpParams httpParameters = new BasicHttpParams();
-
-		HttpClient httpClient = new DefaultHttpClient(httpParameters);
-
 		HttpDelete httpDelete = new HttpDelete(urlString);
-		httpDelete.setHeader("Authorization", "Basic " + encodedAuthorization);
 
 		// execute
-		HttpResponse httpResponse = httpClient.execute(httpDelete);
+		return executeHttpRequest(httpDelete, urlString, handler);
+	}
+
+	/**
+	 * Execute HTTP request using the shared pooled HttpClient and process its response. The connection is always
+	 * released back to the pool: the response entity is fully consumed on success and the request is aborted on
+	 * failure
+	 * 
+	 * @param httpRequest
+	 *            HTTP request to be executed
+	 * @param urlString
+	 *            URL string for the HTTP request
+	 * @param handler
+	 *            handler for the response content of the successful requests
+	 * @return the result returned by the handler
+	 */
+	private <T> T executeHttpRequest(HttpRequestBase httpRequest, String urlString, ResponseStreamHandler<T> handler)
+			throws IOException, MambuApiException {
+		return executeHttpRequest(httpRequest, urlString, handler, null, false);
+	}
+
+	/**
+	 * Execute HTTP request as above, caching its response in the response cache
+	 * 
+	 * @param httpRequest
+	 *            HTTP request to be executed
+	 * @param urlString
+	 *            URL string for the HTTP request
+	 * @param handler
+	 *            handler for the response content of the successful requests
+	 * @param cached
+	 *            stored response, returned if Mambu answers with 304 Not Modified. Null if there is none
+	 * @param cacheable
+	 *            true to store the successful response in the response cache
+	 * @return the result returned by the handler
+	 */
+	private <T> T executeHttpRequest(HttpRequestBase httpRequest, String urlString, ResponseStreamHandler<T> handler,
+			ResponseCache.Entry cached, boolean cacheable) throws IOException, MambuApiException {
 
-		// Process response
-		String response = processResponse(httpResponse, urlString);
+		// add Authorization header
+		httpRequest.setHeader("Authorization", "Basic " + encodedAuthorization);
 
-		return response;
+		// Request compressed response, if enabled
+		if (settings.isCompressionEnabled()) {
+			httpRequest.setHeader("Accept-Encoding", ACCEPT_ENCODING);
+		}
+
+		// Wait for the request limits, if any. Only the requests sent to Mambu are limited, not the responses returned
+		// from the response cache
+		Semaphore inFlightPermit = requestThrottle.acquire(urlString, Method.valueOf(httpRequest.getMethod()));
+
+		boolean completed = false;
+		try {
+			// Set the timeouts for this request
+			applyTimeouts(httpRequest, RequestContext.current());
+
+			// execute
+			HttpResponse httpResponse = httpClient.execute(httpRequest);
+
+			try {
+				// Process response
+				T response = processResponse(httpResponse, urlString, handler, cached, cacheable);
+				completed = true;
+				return response;
+			} catch (MambuApiException e) {
+				// Error response was read completely, the connection can be reused
+				completed = true;
+				throw e;
+			} finally {
+				// Ensure the connection is returned to the pool
+				if (completed) {
+					EntityUtils.consume(httpResponse.getEntity());
+				}
+			}
+		} finally {
+			// Abort the failed request, so that the connection is not reused
+			if (!completed) {
+				httpRequest.abort();
+			}
+			requestThrottle.release(inFlightPermit);
+		}
+	}
+
+	/**
+	 * Set the request's timeouts. The timeouts are taken from the request context, if set, or from the
+	 * HttpClientSettings for the context's API type. The timeouts are reduced to the time remaining until the context's
+	 * deadline
+	 * 
+	 * @param httpRequest
+	 *            HTTP request
+	 * @param context
+	 *            context of the request
+	 * @throws MambuApiException
+	 *             if the context's deadline has passed
+	 */
+	void applyTimeouts(HttpRequestBase httpRequest, RequestContext context) throws MambuApiException {
+
+		// Read the remaining time once: a zero timeout would mean no timeout
+		long remaining = context.checkDeadline();
+
+		RequestTimeouts timeouts = context.getTimeouts();
+		if (timeouts == null) {
+			timeouts = settings.getTimeouts(context.getApiType());
+		}
+
+		HttpParams params = httpRequest.getParams();
+		HttpConnectionParams.setConnectionTimeout(params, (int) getTimeout(timeouts.getConnectTimeout(), remaining));
+		HttpConnectionParams.setSoTimeout(params, (int) getTimeout(timeouts.getSocketTimeout(), remaining));
+		params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT,
+				getTimeout(timeouts.getConnectionRequestTimeout(), remaining));
+	}
+
+	// Get the timeout not exceeding the remaining time (Long.MAX_VALUE if there is no deadline). Zero means no timeout
+	private static long getTimeout(long timeout, long remaining) {
+		if (remaining != Long.MAX_VALUE && (timeout == 0 || timeout > remaining)) {
+			timeout = remaining;
+		}
+		return Math.min(timeout, Integer.MAX_VALUE);
 	}
 
 	/**
@@ -314,40 +545,67 @@ public class RequestExecutorImpl implements RequestExecutor {
 	}
 
 	/**
-	 * Process and return the response to an HTTP request. Throw MambuApiException if request failed
+	 * Process the response to an HTTP request. Pass the content of the successful response to the handler and return
+	 * the handler's result. Throw MambuApiException if request failed
 	 * 
 	 * @param httpResponse
 	 *            HTTP response
 	 * @param urlString
 	 *            URL string for the HTTP request
-	 * @return HTTP response string
+	 * @param handler
+	 *            handler for the response content
+	 * @param cached
+	 *            stored response for the 304 Not Modified status. Null if the request was not conditional
+	 * @param cacheable
+	 *            true to store the successful response in the response cache
+	 * @return the result returned by the handler
 	 */
-	private String processResponse(HttpResponse httpResponse, String urlString) throws IOException, MambuApiException {
+	private <T> T processResponse(HttpResponse httpResponse, String urlString, ResponseStreamHandler<T> handler,
+			ResponseCache.Entry cached, boolean cacheable) throws IOException, MambuApiException {
 
 		// get status
 		int status = httpResponse.getStatusLine().getStatusCode();
 
-		InputStream content = null;
-		String response = "";
-
 		// Get the response Entity
 		HttpEntity entity = httpResponse.getEntity();
 
-		if (entity != null) {
-			content = entity.getContent();
-			if (content != null) {
-				response = readStream(content);
-			}
+		// The stored response was not modified: return it
+		if (cached != null && status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			responseCache.onRevalidated();
+			logApiResponse(status, "(not modified)");
+			@SuppressWarnings("unchecked")
+			T response = (T) cached.getBody();
+			return response;
 		}
 
-		// Log Mambu response
-		logApiResponse(status, response);
-
 		// if status is Ok - return the response
 		if (status == HttpURLConnection.HTTP_OK || status == HttpURLConnection.HTTP_CREATED) {
+
+			InputStream content = getContent(entity);
+			long contentLength = getDecodedContentLength(entity);
+			T response = handler.handleResponse(content, getContentCharset(entity), contentLength);
+
+			// Store the entity read with its validators
+			if (cacheable && status == HttpURLConnection.HTTP_OK) {
+				responseCache.put(urlString, (String) response, getHeader(httpResponse, "ETag"),
+						getHeader(httpResponse, "Last-Modified"));
+			}
+
+			// Log Mambu response
+			if (response instanceof String) {
+				logApiResponse(status, (String) response);
+			} else {
+				logApiResponse(status, "(streamed to " + handler.getClass().getName() + ")");
+			}
 			return response;
 		}
 
+		// Read the error response
+		String response = readStream(getContent(entity), getContentCharset(entity), getDecodedContentLength(entity));
+
+		// Log Mambu response
+		logApiResponse(status, response);
+
 		// Set error code and throw Mambu Exception
 		Integer errorCode = status;
 
@@ -360,26 +618,204 @@ public class RequestExecutorImpl implements RequestExecutor {
 
 	}
 
+	// Get the value of the response header or null if the response has no such header
+	private static String getHeader(HttpResponse httpResponse, String name) {
+		Header header = httpResponse.getFirstHeader(name);
+		return (header == null) ? null : header.getValue();
+	}
+
+	/**
+	 * Get the content of the response entity, decompressing it if it is compressed
+	 * 
+	 * @param entity
+	 *            response entity. Can be null
+	 * @return the decoded content stream. Empty stream if the response has no content
+	 */
+	private InputStream getContent(HttpEntity entity) throws IOException {
+		InputStream content = (entity == null) ? null : entity.getContent();
+		if (content == null) {
+			transferMetrics.onResponse(false);
+			return new ByteArrayInputStream(new byte[0]);
+		}
+		Header contentEncoding = entity.getContentEncoding();
+		return decodeContent(content, (contentEncoding == null) ? null : contentEncoding.getValue(), transferMetrics);
+	}
+
+	/**
+	 * Get the length of the decoded content of the response entity
+	 * 
+	 * @param entity
+	 *            response entity. Can be null
+	 * @return content length or a negative number if unknown (always unknown for the compressed content)
+	 */
+	private static long getDecodedContentLength(HttpEntity entity) {
+		if (entity == null) {
+			return 0;
+		}
+		return (entity.getContentEncoding() == null) ? entity.getContentLength() : -1;
+	}
+
+	/**
+	 * Wrap the content stream with the decoder for its content encoding. The bytes read from the content stream and
+	 * the decoded bytes are counted in the transfer metrics
+	 * 
+	 * @param content
+	 *            content stream as received
+	 * @param contentEncoding
+	 *            value of the Content-Encoding header. Can be null
+	 * @param metrics
+	 *            transfer metrics
+	 * @return the decoded content stream
+	 * @throws IOException
+	 */
+	static InputStream decodeContent(InputStream content, String contentEncoding, TransferMetrics metrics)
+			throws IOException {
+
+		String encoding = (contentEncoding == null) ? "" : contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+		boolean gzip = encoding.equals("gzip") || encoding.equals("x-gzip");
+		boolean deflate = encoding.equals("deflate");
+		metrics.onResponse(gzip || deflate);
+
+		if (!gzip && !deflate) {
+			// Not compressed, the received bytes are the decoded bytes
+			return new CountingInputStream(content, metrics, true, true);
+		}
+		InputStream received = new CountingInputStream(content, metrics, true, false);
+		InputStream decoded = gzip ? new GZIPInputStream(received, DEFAULT_BUFFER_SIZE) : inflate(received);
+		return new CountingInputStream(decoded, metrics, false, true);
+	}
+
+	/**
+	 * Create the decoder for the deflate content encoding. The content should be zlib wrapped (RFC 1950) but some
+	 * servers send raw deflate data (RFC 1951), the format is detected from the zlib header
+	 */
+	private static InputStream inflate(InputStream content) throws IOException {
+
+		PushbackInputStream pushback = new PushbackInputStream(content, 2);
+		byte[] header = new byte[2];
+		int count = 0;
+		int read;
+		while (count < header.length && (read = pushback.read(header, count, header.length - count)) != -1) {
+			count += read;
+		}
+		if (count > 0) {
+			pushback.unread(header, 0, count);
+		}
+		// zlib header: compression method 8 and the header checksum
+		boolean zlib = count == 2 && (header[0] & 0x0f) == 8
+				&& (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+
+		return new InflaterInputStream(pushback, new Inflater(!zlib), DEFAULT_BUFFER_SIZE) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					// The inflater is not released by InflaterInputStream if it was provided by the caller
+					inf.end();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Get the charset of the response entity. Defaults to UTF-8 if the charset is not specified by the server, or if
+	 * the server's Content-Type header can't be parsed or names an unsupported charset
+	 * 
+	 * @param entity
+	 *            response entity. Can be null
+	 * @return charset name
+	 */
+	static String getContentCharset(HttpEntity entity) {
+		if (entity == null) {
+			return UTF8_charset;
+		}
+		Charset charset;
+		try {
+			charset = org.apache.http.entity.ContentType.getOrDefault(entity).getCharset();
+		} catch (ParseException e) {
+			LOGGER.warning("Invalid response Content-Type " + entity.getContentType() + ", reading it as UTF-8");
+			return UTF8_charset;
+		} catch (IllegalArgumentException e) {
+			// Illegal or unsupported charset name
+			LOGGER.warning("Invalid response Content-Type " + entity.getContentType() + ", reading it as UTF-8");
+			return UTF8_charset;
+		}
+		return (charset == null) ? UTF8_charset : charset.name();
+	}
+
 	/**
-	 * Reads a stream into a String
+	 * Reads a stream into a String, preserving the line breaks. The buffer is pre-sized from the expected content
+	 * length, if known
 	 * 
 	 * @param content
+	 *            input stream
+	 * @param charset
+	 *            charset of the content
+	 * @param contentLength
+	 *            length of the content in bytes, or a negative number if unknown
 	 * 
-	 * @return
+	 * @return the content string
 	 * 
 	 * @throws IOException
 	 */
-	private String readStream(InputStream content) throws IOException {
+	static String readStream(InputStream content, String charset, long contentLength) throws IOException {
 
-		String response = "";
+		// For multi-byte charsets the number of chars is less than the number of bytes, so contentLength is enough
+		int capacity = (contentLength > 0) ? (int) Math.min(contentLength, MAX_INITIAL_BUFFER_SIZE)
+				: DEFAULT_BUFFER_SIZE;
+		StringBuilder response = new StringBuilder(capacity);
 
 		// read the response content
-		BufferedReader in = new BufferedReader(new InputStreamReader(content, UTF8_charset));
-		String line;
-		while ((line = in.readLine()) != null) {
-			response += line;
+		Reader in = new InputStreamReader(content, charset);
+		try {
+			char[] buffer = new char[DEFAULT_BUFFER_SIZE];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				response.append(buffer, 0, count);
+			}
+		} finally {
+			in.close();
 		}
-		return response;
+		return response.toString();
+	}
+
+	/**
+	 * Response handler reading the response content into a String
+	 */
+	private final static ResponseStreamHandler<String> stringResponseHandler = new ResponseStreamHandler<String>() {
+		@Override
+		public String handleResponse(InputStream content, String charset, long contentLength) throws IOException {
+			return readStream(content, charset, contentLength);
+		}
+	};
+
+	/**
+	 * Get the metrics of the responses received by this executor
+	 */
+	@Override
+	public TransferMetrics getTransferMetrics() {
+		return transferMetrics;
+	}
+
+	/**
+	 * Get the cache of the entity reads. Null unless enabled with HttpClientSettings.setResponseCacheEnabled()
+	 */
+	@Override
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Shut down the connections pool and stop the idle connections monitor. This executor cannot be used after it was
+	 * closed
+	 */
+	@Override
+	public void close() {
+		if (idleConnectionMonitor != null) {
+			idleConnectionMonitor.shutdown();
+		}
+		connectionManager.shutdown();
 	}
 
 	@Override
@@ -388,6 +824,11 @@ public class RequestExecutorImpl implements RequestExecutor {
 		String userNamePassword = username + ":" + password;
 		encodedAuthorization = new String(Base64.encodeBase64(userNamePassword.getBytes()));
 
+		// The cached responses were read with the previous credentials
+		if (responseCache != null) {
+			responseCache.invalidateAll();
+		}
+
 	}
 
 	/**
@@ -651,4 +1092,131 @@ public class RequestExecutorImpl implements RequestExecutor {
 		}
 
 	}
+
+	/**
+	 * Input stream counting the bytes read in the transfer metrics
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private final TransferMetrics metrics;
+		private final boolean received;
+		private final boolean decoded;
+
+		CountingInputStream(InputStream in, TransferMetrics metrics, boolean received, boolean decoded) {
+			super(in);
+			this.metrics = metrics;
+			this.received = received;
+			this.decoded = decoded;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value != -1) {
+				count(1);
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+			if (count > 0) {
+				count(count);
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			if (skipped > 0) {
+				count(skipped);
+			}
+			return skipped;
+		}
+
+		private void count(long bytes) {
+			if (received) {
+				metrics.addReceivedBytes(bytes);
+			}
+			if (decoded) {
+				metrics.addDecodedBytes(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Keep-alive strategy using the timeout specified by the server in the "Keep-Alive" response header. If the server
+	 * doesn't specify the timeout then the default duration from the HttpClientSettings is used
+	 */
+	private static class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+		private final long defaultDuration;
+
+		KeepAliveStrategy(long defaultDuration) {
+			this.defaultDuration = defaultDuration;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			// Honour 'Keep-Alive: timeout=seconds' header
+			HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+			while (it.hasNext()) {
+				HeaderElement element = it.nextElement();
+				String value = element.getValue();
+				if (value != null && element.getName().equalsIgnoreCase("timeout")) {
+					try {
+						return Long.parseLong(value) * 1000L;
+					} catch (NumberFormatException ignore) {
+					}
+				}
+			}
+			return defaultDuration;
+		}
+	}
+
+	/**
+	 * Daemon thread closing expired connections and the connections which were idle for longer than the specified
+	 * timeout
+	 */
+	private static class IdleConnectionMonitor extends Thread {
+
+		private final ClientConnectionManager connectionManager;
+		private final long interval;
+		private final long idleTimeout;
+		private volatile boolean shutdown = false;
+
+		IdleConnectionMonitor(ClientConnectionManager connectionManager, long interval, long idleTimeout) {
+			super("Mambu-IdleConnectionMonitor");
+			setDaemon(true);
+			this.connectionManager = connectionManager;
+			this.interval = interval;
+			this.idleTimeout = idleTimeout;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!shutdown) {
+					synchronized (this) {
+						wait(interval);
+					}
+					connectionManager.closeExpiredConnections();
+					if (idleTimeout > 0) {
+						connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+					}
+				}
+			} catch (InterruptedException e) {
+				// Terminate
+			}
+		}
+
+		void shutdown() {
+			shutdown = true;
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
 }
@@ -0,0 +1,66 @@
+package com.mambu.apisdk.util;
+
+/**
+ * RequestLimit defines the client side limits for the API requests: the rate of requests and the maximum number of
+ * requests in flight. Limits are set in the HttpClientSettings for all requests or for the requests with a specific
+ * HTTP method and are enforced separately for each Mambu domain, for example:
+ * 
+ * settings.setRequestLimit(Method.GET, new RequestLimit(20, 10, 8));
+ * 
+ * Mambu throttles the API usage per tenant (see APIExceptionData.HARD_API_USAGE_LIMIT_EXCDEDED), limiting the requests
+ * on the client side allows to use the quota without hitting the hard limits
+ */
+public class RequestLimit {
+
+	private final double requestsPerSecond;
+	private final int burst;
+	private final int maxInFlight;
+
+	/**
+	 * Create RequestLimit
+	 * 
+	 * @param requestsPerSecond
+	 *            sustained rate of requests. Zero for no rate limit
+	 * @param burst
+	 *            maximum number of requests which can be sent at once after an idle period. Ignored if there is no rate
+	 *            limit
+	 * @param maxInFlight
+	 *            maximum number of requests being executed at the same time. Zero for no limit
+	 */
+	public RequestLimit(double requestsPerSecond, int burst, int maxInFlight) {
+		if (requestsPerSecond < 0 || maxInFlight < 0) {
+			throw new IllegalArgumentException("Request limits must not be negative");
+		}
+		if (requestsPerSecond > 0 && burst < 1) {
+			throw new IllegalArgumentException("Burst must be greater than zero");
+		}
+		this.requestsPerSecond = requestsPerSecond;
+		this.burst = burst;
+		this.maxInFlight = maxInFlight;
+	}
+
+	public double getRequestsPerSecond() {
+		return requestsPerSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Create the rate limiter for this limit. Called once for each Mambu domain the limit is applied to. Override to
+	 * provide a different rate limiter implementation
+	 * 
+	 * @return rate limiter or null if there is no rate limit
+	 */
+	public RateLimiter createRateLimiter() {
+		if (requestsPerSecond == 0) {
+			return null;
+		}
+		return new TokenBucketRateLimiter(requestsPerSecond, burst);
+	}
+}
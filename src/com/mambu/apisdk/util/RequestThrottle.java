@@ -0,0 +1,113 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * Enforces the request limits defined in the HttpClientSettings. Limits are kept separately for each Mambu domain and
+ * HTTP method
+ */
+class RequestThrottle {
+
+	private final HttpClientSettings settings;
+	// Limits in use, by domain and method
+	private final ConcurrentMap<String, Limits> limitsMap = new ConcurrentHashMap<String, Limits>();
+
+	RequestThrottle(HttpClientSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Wait until the request is allowed to be sent. Each acquire() which returned a permit must be followed by
+	 * release() when the request completes
+	 * 
+	 * @param urlString
+	 *            request's url
+	 * @param method
+	 *            request's method
+	 * @return in flight permit to be released or null if the number of requests in flight is not limited
+	 * @throws MambuApiException
+	 *             if interrupted while waiting
+	 */
+	Semaphore acquire(String urlString, Method method) throws MambuApiException {
+
+		RequestLimit requestLimit = settings.getRequestLimit(method);
+		if (requestLimit == null) {
+			if (!limitsMap.isEmpty()) {
+				// Drop the limits of a removed request limit
+				limitsMap.remove(makeKey(urlString, method));
+			}
+			return null;
+		}
+
+		String key = makeKey(urlString, method);
+		Limits limits = limitsMap.get(key);
+		// Make the limits on first use and again when the request limit is changed in the settings
+		while (limits == null || limits.requestLimit != requestLimit) {
+			Limits newLimits = new Limits(requestLimit);
+			boolean stored;
+			if (limits == null) {
+				stored = limitsMap.putIfAbsent(key, newLimits) == null;
+			} else {
+				stored = limitsMap.replace(key, limits, newLimits);
+			}
+			limits = stored ? newLimits : limitsMap.get(key);
+		}
+
+		Semaphore inFlight = limits.inFlight;
+		try {
+			if (inFlight != null) {
+				inFlight.acquire();
+			}
+			try {
+				if (limits.rateLimiter != null) {
+					limits.rateLimiter.acquire();
+				}
+			} catch (InterruptedException e) {
+				release(inFlight);
+				throw e;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		}
+		return inFlight;
+	}
+
+	/**
+	 * Release the in flight permit returned by acquire()
+	 * 
+	 * @param inFlight
+	 *            in flight permit (can be null)
+	 */
+	void release(Semaphore inFlight) {
+		if (inFlight != null) {
+			inFlight.release();
+		}
+	}
+
+	private static String makeKey(String urlString, Method method) {
+		return URLHelper.getDomain(urlString) + " " + method.name();
+	}
+
+	/**
+	 * Rate limiter and the in flight requests semaphore for a domain and method, made from a request limit. The
+	 * permits acquired before the limit was changed are released to the semaphore they were acquired from
+	 */
+	private static class Limits {
+
+		private final RequestLimit requestLimit;
+		private final RateLimiter rateLimiter;
+		private final Semaphore inFlight;
+
+		Limits(RequestLimit requestLimit) {
+			this.requestLimit = requestLimit;
+			rateLimiter = requestLimit.createRateLimiter();
+			inFlight = requestLimit.getMaxInFlight() > 0 ? new Semaphore(requestLimit.getMaxInFlight(), true) : null;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.mambu.apisdk.util;
+
+/**
+ * RequestTimeouts defines how long the RequestExecutor waits for each stage of an API request: for a pooled connection
+ * to become available, for a new connection to be established and for the data to be received from Mambu. Zero value
+ * means no timeout.
+ *
+ * Timeouts are set in the HttpClientSettings for all requests or for the requests of a specific API type, for example:
+ *
+ * settings.setTimeouts(ApiType.GET_ENTITY, new RequestTimeouts(5000, 10000, 5000));
+ *
+ * The timeouts can also be set for the requests made by the current thread (see RequestContext)
+ */
+public class RequestTimeouts {
+
+	// Default values
+	public final static long DEFAULT_CONNECT_TIMEOUT = 10000L; // milliseconds
+	public final static long DEFAULT_SOCKET_TIMEOUT = 60000L; // milliseconds
+	public final static long DEFAULT_CONNECTION_REQUEST_TIMEOUT = 30000L; // milliseconds
+
+	private final long connectTimeout;
+	private final long socketTimeout;
+	private final long connectionRequestTimeout;
+
+	/**
+	 * Create RequestTimeouts with default values
+	 */
+	public RequestTimeouts() {
+		this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_SOCKET_TIMEOUT, DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+	}
+
+	/**
+	 * Create RequestTimeouts
+	 *
+	 * @param connectTimeout
+	 *            max time to establish a new connection, in milliseconds
+	 * @param socketTimeout
+	 *            max time of inactivity while waiting for the response data, in milliseconds
+	 * @param connectionRequestTimeout
+	 *            max time to wait for a connection from the pool, in milliseconds
+	 */
+	public RequestTimeouts(long connectTimeout, long socketTimeout, long connectionRequestTimeout) {
+		if (connectTimeout < 0 || socketTimeout < 0 || connectionRequestTimeout < 0) {
+			throw new IllegalArgumentException("Timeouts must not be negative");
+		}
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	public long getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public long getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	public long getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+}
@@ -0,0 +1,249 @@
+package com.mambu.apisdk.util;
+
+import java.util.IdentityHashMap;
+
+import com.mambu.apisdk.util.LruCache.EvictionListener;
+
+/**
+ * HTTP level cache for the responses to the entity reads (GET_ENTITY and GET_ENTITY_DETAILS requests). It is used by
+ * the RequestExecutorImpl when enabled in the HttpClientSettings (see HttpClientSettings.setResponseCacheEnabled()).
+ *
+ * Responses with an ETag or a Last-Modified header are stored with these validators, and the next request for the same
+ * URL is sent with the If-None-Match and If-Modified-Since headers. If Mambu answers with 304 Not Modified, the
+ * stored response is returned without downloading it again, and the object parsed from it by the ServiceExecutor is
+ * returned again without parsing it. Responses without validators are returned from the cache until their time to
+ * live expires, without sending a request. The least recently used responses are evicted when the cache is full.
+ *
+ * The cache belongs to one RequestExecutor, so the responses are never shared between different credentials. The
+ * returned objects are shared by all callers of the same request and must not be modified
+ */
+public class ResponseCache {
+
+	// Default values
+	public final static long DEFAULT_TIME_TO_LIVE = 30000L; // milliseconds
+	public final static int DEFAULT_MAX_ENTRIES = 1000;
+
+	// Responses by URL
+	private final LruCache<Entry> entries;
+	// Entries by their response string instance, to find the parsed object for a response returned from the cache
+	private final IdentityHashMap<String, Entry> entriesByBody = new IdentityHashMap<String, Entry>();
+
+	// Statistics, in addition to the hits and misses of the entries
+	private long revalidations = 0;
+
+	/**
+	 * Create ResponseCache with default values
+	 */
+	public ResponseCache() {
+		this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create ResponseCache
+	 *
+	 * @param timeToLive
+	 *            time to return a response without validators from the cache, in milliseconds. Zero to always request
+	 *            such responses again
+	 * @param maxEntries
+	 *            max number of responses in the cache. Must be greater than zero
+	 */
+	public ResponseCache(long timeToLive, int maxEntries) {
+		this(timeToLive, maxEntries, Ticker.SYSTEM);
+	}
+
+	/**
+	 * Create ResponseCache measuring the time to live with the ticker
+	 *
+	 * @param timeToLive
+	 *            time to return a response without validators from the cache, in milliseconds. Zero to always request
+	 *            such responses again
+	 * @param maxEntries
+	 *            max number of responses in the cache. Must be greater than zero
+	 * @param ticker
+	 *            source of the time. Must not be null
+	 */
+	public ResponseCache(long timeToLive, int maxEntries, Ticker ticker) {
+		this.entries = new LruCache<Entry>("ResponseCache", timeToLive, maxEntries, ticker);
+		this.entries.setEvictionListener(new EvictionListener<Entry>() {
+			@Override
+			public void onEviction(Entry entry) {
+				entriesByBody.remove(entry.body);
+			}
+		});
+	}
+
+	/**
+	 * Get the number of responses returned from the cache without sending a request
+	 *
+	 * @return number of hits
+	 */
+	public synchronized long getHits() {
+		return entries.getHits();
+	}
+
+	/**
+	 * Get the number of responses revalidated by Mambu (304 Not Modified)
+	 *
+	 * @return number of revalidations
+	 */
+	public synchronized long getRevalidations() {
+		return revalidations;
+	}
+
+	/**
+	 * Get the number of cacheable responses downloaded in full
+	 *
+	 * @return number of misses
+	 */
+	public synchronized long getMisses() {
+		return entries.getMisses();
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Remove all responses from the cache. The statistics are not reset
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		entriesByBody.clear();
+	}
+
+	/**
+	 * Get the stored response for the URL
+	 *
+	 * @param url
+	 *            request's URL, with the params
+	 * @return the stored response or null
+	 */
+	synchronized Entry get(String url) {
+		return entries.getEntry(url);
+	}
+
+	/**
+	 * Check whether the stored response can be returned without sending a request: it has no validators and its time
+	 * to live has not expired. Counts a hit if it can
+	 *
+	 * @param entry
+	 *            stored response
+	 * @return true if the response is fresh
+	 */
+	synchronized boolean isFresh(Entry entry) {
+		if (entry.hasValidators() || entries.isExpired(entry)) {
+			return false;
+		}
+		entries.recordHit();
+		return true;
+	}
+
+	/**
+	 * Record the 304 Not Modified response for the stored response
+	 */
+	synchronized void onRevalidated() {
+		revalidations++;
+	}
+
+	/**
+	 * Store the response downloaded in full
+	 *
+	 * @param url
+	 *            request's URL, with the params
+	 * @param body
+	 *            response string
+	 * @param eTag
+	 *            value of the ETag header or null
+	 * @param lastModified
+	 *            value of the Last-Modified header or null
+	 */
+	synchronized void put(String url, String body, String eTag, String lastModified) {
+		entries.recordMiss();
+		Entry previous = entries.remove(url);
+		if (previous != null) {
+			entriesByBody.remove(previous.body);
+		}
+		if (body == null || (eTag == null && lastModified == null && entries.getTimeToLive() == 0)) {
+			// Nothing to revalidate or to return from the cache
+			return;
+		}
+		Entry entry = new Entry(body, eTag, lastModified);
+		entries.put(url, entry);
+		entriesByBody.put(body, entry);
+	}
+
+	/**
+	 * Get the object parsed from the response returned from the cache
+	 *
+	 * @param body
+	 *            response string returned by the RequestExecutor
+	 * @param type
+	 *            key of the parsed object's type
+	 * @return the parsed object or null if the response was not returned from the cache or was not parsed into this
+	 *         type yet
+	 */
+	synchronized Object getDecoded(String body, String type) {
+		Entry entry = entriesByBody.get(body);
+		return (entry == null || !type.equals(entry.decodedType)) ? null : entry.decoded;
+	}
+
+	/**
+	 * Keep the object parsed from the stored response, so that it is reused while the response is not modified
+	 *
+	 * @param body
+	 *            response string returned by the RequestExecutor
+	 * @param type
+	 *            key of the parsed object's type
+	 * @param decoded
+	 *            the parsed object
+	 */
+	synchronized void putDecoded(String body, String type, Object decoded) {
+		Entry entry = entriesByBody.get(body);
+		if (entry != null) {
+			entry.decodedType = type;
+			entry.decoded = decoded;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ResponseCache [size=" + entries.size() + ", hits=" + entries.getHits() + ", revalidations="
+				+ revalidations + ", misses=" + entries.getMisses() + ", evictions=" + entries.getEvictions() + "]";
+	}
+
+	/**
+	 * Stored response with its validators
+	 */
+	static class Entry extends LruCache.Entry {
+
+		private final String body;
+		private final String eTag;
+		private final String lastModified;
+
+		// Object parsed from the response
+		private String decodedType;
+		private Object decoded;
+
+		Entry(String body, String eTag, String lastModified) {
+			this.body = body;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+
+		String getBody() {
+			return body;
+		}
+
+		String getETag() {
+			return eTag;
+		}
+
+		String getLastModified() {
+			return lastModified;
+		}
+
+		boolean hasValidators() {
+			return eTag != null || lastModified != null;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.mambu.apisdk.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Handler for processing the content of a successful API response directly from the HTTP stream. It allows the caller
+ * to deserialize large responses without reading the whole response into a String first.
+ * 
+ * The handler is invoked only for successful responses. Error responses are still converted into MambuApiException.
+ * The handler doesn't need to close the stream, the stream is closed and the connection is released by the
+ * RequestExecutor after the handler returns.
+ * 
+ * @param <T>
+ *            the type of the result produced by the handler
+ */
+public interface ResponseStreamHandler<T> {
+
+	/**
+	 * Process the response content
+	 * 
+	 * @param content
+	 *            the response content stream. Never null
+	 * @param charset
+	 *            the charset of the content (UTF-8, if not specified by the server)
+	 * @param contentLength
+	 *            the length of the content in bytes, or a negative number if unknown
+	 * 
+	 * @return the result of processing the content
+	 * 
+	 * @throws IOException
+	 */
+	public T handleResponse(InputStream content, String charset, long contentLength) throws IOException;
+
+}
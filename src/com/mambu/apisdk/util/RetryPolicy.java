@@ -0,0 +1,255 @@
+package com.mambu.apisdk.util;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiResponseMessage;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+
+/**
+ * RetryPolicy defines which failed API requests are retried by the ServiceExecutor and how long to wait before each
+ * retry.
+ *
+ * Requests of the idempotent API types (by default all GET types and PATCH_OWNED_ENTITY) are retried after I/O errors,
+ * after the retryable HTTP statuses (by default 502, 503 and 504) and after the retryable Mambu return statuses (by
+ * default INTERNAL_ERROR). Requests of other API types, e.g. POST_OWNED_ENTITY repayments, are retried only if the
+ * connection to Mambu could not be established, so that the request has certainly not been processed: Mambu API
+ * doesn't support idempotency keys.
+ *
+ * The wait before each retry grows exponentially from the initial backoff up to the max backoff, with random jitter
+ * (the wait is a random value between zero and the exponential backoff). The number of retries is limited by a retry
+ * budget: each request adds a fraction of a retry to the budget, each retry takes one, so that a failing Mambu tenant
+ * doesn't get a multiple of the normal requests.
+ *
+ * The failed requests are not retried unless the application sets a policy on the MambuAPIService, for example:
+ *
+ * RetryPolicy retryPolicy = new RetryPolicy();
+ *
+ * retryPolicy.setMaxAttempts(5);
+ *
+ * MambuAPIFactory.getMambuAPIService().setRetryPolicy(retryPolicy);
+ */
+public class RetryPolicy {
+
+	// Default values
+	public final static int DEFAULT_MAX_ATTEMPTS = 3;
+	public final static long DEFAULT_INITIAL_BACKOFF = 200L; // milliseconds
+	public final static long DEFAULT_MAX_BACKOFF = 5000L; // milliseconds
+	public final static double DEFAULT_BUDGET_RATIO = 0.1; // retries per request
+	public final static int DEFAULT_BUDGET_MAX_RETRIES = 10;
+
+	// Max number of attempts for a request, including the first one
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+	private final Set<ApiType> idempotentApiTypes = EnumSet.of(ApiType.GET_ENTITY, ApiType.GET_ENTITY_DETAILS,
+			ApiType.GET_LIST, ApiType.GET_OWNED_ENTITIES, ApiType.GET_RELATED_ENTITIES, ApiType.PATCH_OWNED_ENTITY);
+	private final Set<Integer> retryableStatuses = new HashSet<Integer>(Arrays.asList(502, 503, 504));
+	private final Set<String> retryableReturnStatuses = new HashSet<String>(
+			Arrays.asList(APIExceptionData.INTERNAL_ERROR));
+
+	// Retry budget
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private int budgetMaxRetries = DEFAULT_BUDGET_MAX_RETRIES;
+	private double budget = DEFAULT_BUDGET_MAX_RETRIES;
+
+	private final Random random = new Random();
+
+	/**
+	 * Create RetryPolicy with default values
+	 */
+	public RetryPolicy() {
+	}
+
+	/**
+	 * Create RetryPolicy which doesn't retry any requests
+	 *
+	 * @return retry policy
+	 */
+	public static RetryPolicy noRetries() {
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setMaxAttempts(1);
+		return retryPolicy;
+	}
+
+	// Getters
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public long getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	public long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	// Setters
+	public void setMaxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("Max attempts must be greater than zero");
+		}
+		this.maxAttempts = maxAttempts;
+	}
+
+	public void setInitialBackoff(long initialBackoff) {
+		if (initialBackoff < 0) {
+			throw new IllegalArgumentException("Initial backoff must not be negative");
+		}
+		this.initialBackoff = initialBackoff;
+	}
+
+	public void setMaxBackoff(long maxBackoff) {
+		if (maxBackoff < 0) {
+			throw new IllegalArgumentException("Max backoff must not be negative");
+		}
+		this.maxBackoff = maxBackoff;
+	}
+
+	/**
+	 * Set the retry budget
+	 *
+	 * @param budgetRatio
+	 *            retries added to the budget by each request, e.g. 0.1 allows one retry per ten requests
+	 * @param budgetMaxRetries
+	 *            max retries in the budget. The budget is full initially
+	 */
+	public synchronized void setBudget(double budgetRatio, int budgetMaxRetries) {
+		if (budgetRatio < 0 || budgetMaxRetries < 0) {
+			throw new IllegalArgumentException("Budget must not be negative");
+		}
+		this.budgetRatio = budgetRatio;
+		this.budgetMaxRetries = budgetMaxRetries;
+		this.budget = budgetMaxRetries;
+	}
+
+	/**
+	 * Set whether requests of the API type are safe to be retried after any retryable failure
+	 *
+	 * @param apiType
+	 *            API type
+	 * @param idempotent
+	 *            true if the requests can be retried even if Mambu could have processed the failed request
+	 */
+	public synchronized void setIdempotent(ApiType apiType, boolean idempotent) {
+		if (idempotent) {
+			idempotentApiTypes.add(apiType);
+		} else {
+			idempotentApiTypes.remove(apiType);
+		}
+	}
+
+	/**
+	 * Add HTTP status after which the idempotent requests are retried
+	 *
+	 * @param status
+	 *            HTTP status, e.g. 503
+	 */
+	public synchronized void addRetryableStatus(int status) {
+		retryableStatuses.add(status);
+	}
+
+	/**
+	 * Add Mambu return status after which the idempotent requests are retried
+	 *
+	 * @param returnStatus
+	 *            Mambu return status, e.g. APIExceptionData.INTERNAL_ERROR
+	 */
+	public synchronized void addRetryableReturnStatus(String returnStatus) {
+		retryableReturnStatuses.add(returnStatus);
+	}
+
+	/**
+	 * Record a new request in the retry budget. Called once for each request, not for its retries
+	 */
+	synchronized void onRequest() {
+		budget = Math.min(budgetMaxRetries, budget + budgetRatio);
+	}
+
+	/**
+	 * Decide whether the failed request shall be retried. Takes a retry from the budget if it shall
+	 *
+	 * @param apiType
+	 *            API type of the request
+	 * @param exception
+	 *            exception thrown by the request
+	 * @param attempts
+	 *            number of attempts made so far
+	 * @return true if the request shall be retried
+	 */
+	synchronized boolean shouldRetry(ApiType apiType, MambuApiException exception, int attempts) {
+
+		if (attempts >= maxAttempts || !isRetryable(apiType, exception)) {
+			return false;
+		}
+		if (budget < 1) {
+			return false;
+		}
+		budget -= 1;
+		return true;
+	}
+
+	/**
+	 * Get the time to wait before the next attempt
+	 *
+	 * @param attempts
+	 *            number of attempts made so far
+	 * @return backoff in milliseconds
+	 */
+	long getBackoff(int attempts) {
+		// Exponential backoff capped at maxBackoff, with full jitter
+		long backoff = maxBackoff;
+		if (attempts <= 30) {
+			backoff = Math.min(maxBackoff, initialBackoff << (attempts - 1));
+		}
+		return (long) (random.nextDouble() * backoff);
+	}
+
+	private boolean isRetryable(ApiType apiType, MambuApiException exception) {
+
+		Throwable cause = exception.getCause();
+		if (isConnectFailure(cause)) {
+			// The request was not sent, any request can be retried
+			return true;
+		}
+		if (apiType == null || !idempotentApiTypes.contains(apiType)) {
+			return false;
+		}
+		if (cause instanceof IOException) {
+			return true;
+		}
+		Integer errorCode = exception.getErrorCode();
+		if (errorCode != null && retryableStatuses.contains(errorCode)) {
+			return true;
+		}
+		if (!retryableReturnStatuses.isEmpty() && exception.getErrorMessage() != null) {
+			String returnStatus;
+			try {
+				returnStatus = new MambuApiResponseMessage(exception.getErrorMessage()).getReturnStatus();
+			} catch (RuntimeException e) {
+				// Not a Mambu response message
+				return false;
+			}
+			return returnStatus != null && retryableReturnStatuses.contains(returnStatus);
+		}
+		return false;
+	}
+
+	// Failures to get a connection to Mambu: the request has not been sent
+	private static boolean isConnectFailure(Throwable cause) {
+		return cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+				|| cause instanceof ConnectionPoolTimeoutException || cause instanceof UnknownHostException;
+	}
+}
@@ -1,11 +1,26 @@
 package com.mambu.apisdk.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
 
+import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.mambu.accounting.shared.model.GLJournalEntry;
 import com.mambu.accounts.shared.model.TransactionChannel;
 import com.mambu.api.server.handler.activityfeed.model.JSONActivity;
 import com.mambu.api.server.handler.savings.model.JSONSavingsAccount;
@@ -14,6 +29,8 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.exception.MambuApiResponseMessage;
 import com.mambu.apisdk.model.LoanAccountExpanded;
 import com.mambu.apisdk.util.ApiDefinition.ApiReturnFormat;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.AsyncRequestExecutorImpl.CallbackFutureTask;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
 import com.mambu.apisdk.util.RequestExecutor.Method;
 import com.mambu.clients.shared.model.Client;
@@ -83,6 +100,8 @@ import com.mambu.tasks.shared.model.Task;
  */
 public class ServiceExecutor {
 
+	private final static Logger LOGGER = Logger.getLogger(ServiceExecutor.class.getName());
+
 	private MambuAPIService mambuAPIService;
 
 	/***
@@ -111,7 +130,6 @@ public class ServiceExecutor {
 	 * 
 	 * @throws MambuApiException
 	 */
-	@SuppressWarnings("unchecked")
 	public <R> R execute(ApiDefinition apiDefinition, String objectId, String relatedEntityId, ParamsMap paramsMap)
 			throws MambuApiException {
 
@@ -124,48 +142,205 @@ public class ServiceExecutor {
 		String apiUrlPath = getApiPath(apiDefinition, objectId, relatedEntityId);
 
 		// Add full details parameter if required by apiDefintion specification
-		if (apiDefinition.getWithFullDetails()) {
-			if (paramsMap == null) {
-				paramsMap = new ParamsMap();
-			}
-			paramsMap.put(APIData.FULL_DETAILS, "true");
-		}
+		paramsMap = addFullDetailsParam(apiDefinition, paramsMap);
 
 		// Execute Request. Get Method and ContentType from the apiDefintion
 		Method method = apiDefinition.getMethod();
 		ContentType contentType = apiDefinition.getContentType();
 
-		// Use mambuAPIService to execute request
-		String jsonResponse = mambuAPIService.executeRequest(apiUrlPath, paramsMap, method, contentType);
+		// GET requests can be served from the reference data cache or share the identical request in flight
+		if (method == Method.GET) {
+			ReferenceDataCache cache = mambuAPIService.getReferenceDataCache();
+			if (cache != null && !cache.isCachedClass(apiDefinition.getReturnClass())) {
+				cache = null;
+			}
+			if (cache != null || mambuAPIService.isRequestCoalescingEnabled()) {
+				return executeSharedGet(apiDefinition, apiUrlPath, paramsMap, cache);
+			}
+		}
 
-		// Process API Response. Get the return format and returnClass from the apiDefintion
-		Class<?> returnClass = apiDefinition.getReturnClass();
-		ApiReturnFormat returnFormat = apiDefinition.getApiReturnFormat();
+		// Use mambuAPIService to execute request, retrying it as defined by the retry policy
+		String jsonResponse = executeWithRetries(apiDefinition, apiUrlPath, paramsMap, method, contentType);
 
-		R result = null;
-		switch (returnFormat) {
-		case OBJECT:
-			// Get Single Object from the response
-			result = getObject(jsonResponse, returnClass);
-			break;
-		case COLLECTION:
-			// Get a list of Objects from the response
-			Type collectionType = getCollectionType(returnClass);
-			// Get result as a collection
-			result = getCollection(jsonResponse, collectionType);
-			break;
-		case BOOLEAN:
-			// Get result as a boolean
-			result = (R) getBoolean(jsonResponse);
-			break;
-		case RESPONSE_STRING:
-			// Return the response string as is, with no additional processing.
-			// This can be used for the services to perform any subsequent processing or for such APIs as getDocument()
-			result = (R) jsonResponse;
-			break;
+		// Process API Response
+		return processResponse(apiDefinition, jsonResponse);
+	}
+
+	/**
+	 * Execute the GET request and process its response, unless its result is in the reference data cache or an
+	 * identical request is already in flight. In this case return the cached result or wait for the request in flight
+	 * and return its result. Identical requests have the same URL, params and the returned type
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param apiUrlPath
+	 *            request's url
+	 * @param paramsMap
+	 *            request's params
+	 * @param cache
+	 *            reference data cache for the request's result. Null if the result is not cached
+	 * @return result object, shared by all callers of the identical requests
+	 * @throws MambuApiException
+	 */
+	private <R> R executeSharedGet(final ApiDefinition apiDefinition, final String apiUrlPath,
+			final ParamsMap paramsMap, ReferenceDataCache cache) throws MambuApiException {
+
+		final String key = apiUrlPath + "?" + ((paramsMap == null) ? "" : paramsMap.toString()) + " "
+				+ apiDefinition.getApiReturnFormat() + " " + apiDefinition.getReturnClass().getName();
+
+		final Callable<R> request = new Callable<R>() {
+			@Override
+			public R call() throws MambuApiException {
+				String jsonResponse = executeWithRetries(apiDefinition, apiUrlPath, paramsMap, Method.GET,
+						apiDefinition.getContentType());
+				return processResponse(apiDefinition, jsonResponse);
+			}
+		};
+		Callable<R> sharedRequest = request;
+		if (mambuAPIService.isRequestCoalescingEnabled()) {
+			final RequestCoalescer requestCoalescer = mambuAPIService.getRequestCoalescer();
+			sharedRequest = new Callable<R>() {
+				@Override
+				public R call() throws MambuApiException {
+					return requestCoalescer.execute(key, request);
+				}
+			};
 		}
 
-		return result;
+		if (cache != null) {
+			return cache.get(key, apiDefinition, sharedRequest);
+		}
+		try {
+			return sharedRequest.call();
+		} catch (MambuApiException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MambuApiException(e);
+		}
+	}
+
+	/**
+	 * Execute the request using mambuAPIService. Retry the failed request if required by the MambuAPIService's retry
+	 * policy. Each attempt is rejected without sending it if the circuit for the API end point is open (see
+	 * CircuitBreakerPolicy). No attempts are made after the deadline of the current RequestContext
+	 * 
+	 * @param apiDefinition
+	 *            API definition of the request
+	 * @param apiUrlPath
+	 *            request's url
+	 * @param paramsMap
+	 *            request's params
+	 * @param method
+	 *            request's method
+	 * @param contentType
+	 *            request's content type
+	 * @return response string
+	 * @throws MambuApiException
+	 *             the exception thrown by the last attempt
+	 */
+	private String executeWithRetries(ApiDefinition apiDefinition, String apiUrlPath, ParamsMap paramsMap,
+			Method method, ContentType contentType) throws MambuApiException {
+
+		ApiType apiType = apiDefinition.getApiType();
+		RetryPolicy retryPolicy = mambuAPIService.getRetryPolicy();
+		retryPolicy.onRequest();
+		CircuitBreaker circuitBreaker = mambuAPIService.getCircuitBreakerPolicy().getCircuitBreaker(apiUrlPath,
+				getCircuitName(apiDefinition));
+
+		// The request executor gets the timeouts for the API type from the request context
+		RequestContext context = RequestContext.current().withApiType(apiType);
+		RequestContext previousContext = context.attach();
+		try {
+			int attempts = 0;
+			while (true) {
+				try {
+					attempts++;
+					context.checkDeadline();
+					return executeWithCircuitBreaker(circuitBreaker, apiUrlPath, paramsMap, method, contentType);
+				} catch (MambuApiException e) {
+					if (!retryPolicy.shouldRetry(apiType, e, attempts)) {
+						throw e;
+					}
+					long backoff = retryPolicy.getBackoff(attempts);
+					if (backoff >= context.getRemainingTime()) {
+						// No time left for another attempt before the deadline
+						throw e;
+					}
+					LOGGER.warning("Retrying " + method + " " + apiUrlPath + " in " + backoff
+							+ " ms after error code=" + e.getErrorCode() + ", attempt " + attempts);
+					try {
+						Thread.sleep(backoff);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						throw e;
+					}
+				}
+			}
+		} finally {
+			RequestContext.restore(previousContext);
+		}
+	}
+
+	/**
+	 * Execute the request using mambuAPIService if allowed by the circuit breaker and record its outcome
+	 * 
+	 * @param circuitBreaker
+	 *            circuit breaker for the request's end point. Null to always execute the request
+	 * @param apiUrlPath
+	 *            request's url
+	 * @param paramsMap
+	 *            request's params
+	 * @param method
+	 *            request's method
+	 * @param contentType
+	 *            request's content type
+	 * @return response string
+	 * @throws MambuApiException
+	 *             with the CircuitBreakerPolicy.CIRCUIT_OPEN_ERROR_CODE error code if the circuit is open
+	 */
+	private String executeWithCircuitBreaker(CircuitBreaker circuitBreaker, String apiUrlPath, ParamsMap paramsMap,
+			Method method, ContentType contentType) throws MambuApiException {
+
+		if (circuitBreaker == null) {
+			return mambuAPIService.executeRequest(apiUrlPath, paramsMap, method, contentType);
+		}
+		if (!circuitBreaker.tryAcquire()) {
+			throw CircuitBreakerPolicy.circuitOpenException(circuitBreaker);
+		}
+
+		long start = System.currentTimeMillis();
+		boolean recorded = false;
+		try {
+			String response = mambuAPIService.executeRequest(apiUrlPath, paramsMap, method, contentType);
+			circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+			recorded = true;
+			return response;
+		} catch (MambuApiException e) {
+			if (CircuitBreakerPolicy.isFailure(e)) {
+				circuitBreaker.onFailure(System.currentTimeMillis() - start);
+				recorded = true;
+			} else if (e.getCause() == null && e.getErrorCode() != null && e.getErrorCode() > 0) {
+				// Mambu rejected the request, e.g. invalid parameters: the tenant itself is healthy
+				circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+				recorded = true;
+			}
+			throw e;
+		} finally {
+			if (!recorded) {
+				circuitBreaker.onIgnored();
+			}
+		}
+	}
+
+	// Get the name of the circuit for the API definition: its end point and related entity, e.g. "loans/transactions"
+	private static String getCircuitName(ApiDefinition apiDefinition) {
+		String relatedEntity = apiDefinition.getRelatedEntity();
+		if (relatedEntity == null || relatedEntity.isEmpty()) {
+			return apiDefinition.getEndPoint();
+		}
+		return apiDefinition.getEndPoint() + "/" + relatedEntity;
 	}
 
 	/****
@@ -261,17 +436,8 @@ public class ServiceExecutor {
 	 */
 	public <R, T> R executeJson(ApiDefinition apiDefinition, T object, String objectId) throws MambuApiException {
 
-		if (object == null) {
-			throw new IllegalArgumentException("JSON object must not be NULL");
-		}
-
-		// Parse input object into a JSON string
-		final String dateTimeFormat = APIData.yyyyMmddFormat;
-		final String jsonData = GsonUtils.createGson(dateTimeFormat).toJson(object, object.getClass());
-
-		// Add JSON string as JSON_OBJECT to the ParamsMap
-		ParamsMap paramsMap = new ParamsMap();
-		paramsMap.put(APIData.JSON_OBJECT, jsonData);
+		// Make ParamsMap with the JSON string for the input object
+		ParamsMap paramsMap = makeJsonParams(object);
 
 		// Execute this request with apiDefintion, objectId and paramsMap
 		return execute(apiDefinition, objectId, paramsMap);
@@ -295,6 +461,449 @@ public class ServiceExecutor {
 		return executeJson(apiDefinition, object, objectId);
 	}
 
+	/****
+	 * Execute API Request returning a collection of entities and pass each entity to the handler as it is read from
+	 * the response stream. Unlike execute(), neither the response string nor the list of entities is created, so the
+	 * memory needed to process a page of entities doesn't depend on the page size
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * @param paramsMap
+	 *            map with API parameters
+	 * @param handler
+	 *            handler for the returned entities. Must not be null
+	 * 
+	 * @return the number of entities passed to the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public <T> int executeStreaming(ApiDefinition apiDefinition, String objectId, ParamsMap paramsMap,
+			ItemHandler<T> handler) throws MambuApiException {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+		if (handler == null) {
+			throw new IllegalArgumentException("ItemHandler cannot be NULL");
+		}
+		if (apiDefinition.getApiReturnFormat() != ApiReturnFormat.COLLECTION) {
+			throw new IllegalArgumentException("Only COLLECTION requests can be streamed");
+		}
+		// The collection must be a list of the return class entities (e.g. not the Search API map)
+		Class<?> returnClass = apiDefinition.getReturnClass();
+		Type collectionType = getCollectionType(returnClass);
+		if (!(collectionType instanceof ParameterizedType)
+				|| ((ParameterizedType) collectionType).getRawType() != List.class) {
+			throw new IllegalArgumentException("Class " + returnClass + " is not returned as a list");
+		}
+
+		// Create URL for this API request using specification in its apiDefintion and input IDs
+		String relatedEntityId = null;
+		String apiUrlPath = getApiPath(apiDefinition, objectId, relatedEntityId);
+		paramsMap = addFullDetailsParam(apiDefinition, paramsMap);
+
+		// Use mambuAPIService to execute request, parse the response directly from the stream
+		CollectionStreamParser<T> parser = new CollectionStreamParser<T>(returnClass, handler);
+		RequestContext previousContext = RequestContext.current().withApiType(apiDefinition.getApiType()).attach();
+		try {
+			return mambuAPIService.executeRequest(apiUrlPath, paramsMap, apiDefinition.getMethod(),
+					apiDefinition.getContentType(), parser);
+		} finally {
+			RequestContext.restore(previousContext);
+		}
+	}
+
+	/****
+	 * Convenience method to execute streaming API Request without objectId
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param paramsMap
+	 *            map with API parameters
+	 * @param handler
+	 *            handler for the returned entities. Must not be null
+	 * 
+	 * @return the number of entities passed to the handler
+	 * 
+	 * @throws MambuApiException
+	 */
+	public <T> int executeStreaming(ApiDefinition apiDefinition, ParamsMap paramsMap, ItemHandler<T> handler)
+			throws MambuApiException {
+		String objectId = null;
+		return executeStreaming(apiDefinition, objectId, paramsMap, handler);
+	}
+
+	/****
+	 * Get all entities returned by an offset/limit list API Request. The entities are requested lazily, one page at a
+	 * time, as the returned PagedIterable is iterated
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * @param paramsMap
+	 *            map with API parameters. The offset and limit parameters are set for each page
+	 * @param pageSize
+	 *            number of entities to request per page
+	 * 
+	 * @return iterable over all the entities
+	 */
+	public <T> PagedIterable<T> executePaged(final ApiDefinition apiDefinition, final String objectId,
+			ParamsMap paramsMap, int pageSize) {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+		if (apiDefinition.getApiReturnFormat() != ApiReturnFormat.COLLECTION) {
+			throw new IllegalArgumentException("Only COLLECTION requests can be paged");
+		}
+
+		// Copy the params, so that the caller's map is not modified and each page gets its own params
+		final ParamsMap params = new ParamsMap();
+		if (paramsMap != null) {
+			params.putAll(paramsMap);
+		}
+
+		return new PagedIterable<T>(pageSize) {
+			@Override
+			protected List<T> getPage(int offset, int limit) throws MambuApiException {
+				return execute(apiDefinition, objectId, makePageParams(params, offset, limit));
+			}
+		};
+	}
+
+	/****
+	 * Convenience method to get all entities returned by an offset/limit list API Request without objectId
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param paramsMap
+	 *            map with API parameters. The offset and limit parameters are set for each page
+	 * @param pageSize
+	 *            number of entities to request per page
+	 * 
+	 * @return iterable over all the entities
+	 */
+	public <T> PagedIterable<T> executePaged(ApiDefinition apiDefinition, ParamsMap paramsMap, int pageSize) {
+		String objectId = null;
+		return executePaged(apiDefinition, objectId, paramsMap, pageSize);
+	}
+
+	/****
+	 * Get all entities returned by an offset/limit list API Request, requesting the next pages in the background while
+	 * the current page is processed. See PrefetchingPagedIterable
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * @param paramsMap
+	 *            map with API parameters. The offset and limit parameters are set for each page
+	 * @param pageSize
+	 *            number of entities to request per page
+	 * @param prefetchPages
+	 *            number of pages to request ahead of the current page
+	 * 
+	 * @return iterable over all the entities
+	 */
+	public <T> PrefetchingPagedIterable<T> executePrefetching(final ApiDefinition apiDefinition,
+			final String objectId, ParamsMap paramsMap, int pageSize, int prefetchPages) {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+		if (apiDefinition.getApiReturnFormat() != ApiReturnFormat.COLLECTION) {
+			throw new IllegalArgumentException("Only COLLECTION requests can be paged");
+		}
+
+		final ParamsMap params = new ParamsMap();
+		if (paramsMap != null) {
+			params.putAll(paramsMap);
+		}
+
+		return new PrefetchingPagedIterable<T>(pageSize, prefetchPages) {
+			@Override
+			protected Future<List<T>> getPageAsync(int offset, int limit) {
+				return executeAsync(apiDefinition, objectId, makePageParams(params, offset, limit));
+			}
+		};
+	}
+
+	/****
+	 * Convenience method to get all entities returned by an offset/limit list API Request without objectId, requesting
+	 * the next pages in the background
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param paramsMap
+	 *            map with API parameters. The offset and limit parameters are set for each page
+	 * @param pageSize
+	 *            number of entities to request per page
+	 * @param prefetchPages
+	 *            number of pages to request ahead of the current page
+	 * 
+	 * @return iterable over all the entities
+	 */
+	public <T> PrefetchingPagedIterable<T> executePrefetching(ApiDefinition apiDefinition, ParamsMap paramsMap,
+			int pageSize, int prefetchPages) {
+		String objectId = null;
+		return executePrefetching(apiDefinition, objectId, paramsMap, pageSize, prefetchPages);
+	}
+
+	/****
+	 * Make a reader for all entities returned by an offset/limit list API Request, fetching the pages concurrently. See
+	 * ParallelPageReader
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.COLLECTION
+	 * @param paramsMap
+	 *            map with API parameters. The offset and limit parameters are set for each page
+	 * @param pageSize
+	 *            number of entities to request per page
+	 * @param concurrency
+	 *            maximum number of pages requested concurrently
+	 * 
+	 * @return reader for all the entities
+	 */
+	public <T> ParallelPageReader<T> executeParallel(final ApiDefinition apiDefinition, ParamsMap paramsMap,
+			int pageSize, int concurrency) {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+		if (apiDefinition.getApiReturnFormat() != ApiReturnFormat.COLLECTION) {
+			throw new IllegalArgumentException("Only COLLECTION requests can be paged");
+		}
+
+		final ParamsMap params = new ParamsMap();
+		if (paramsMap != null) {
+			params.putAll(paramsMap);
+		}
+
+		return new ParallelPageReader<T>(pageSize, concurrency) {
+			@Override
+			protected List<T> getPage(int offset, int limit) throws MambuApiException {
+				return execute(apiDefinition, makePageParams(params, offset, limit));
+			}
+		};
+	}
+
+	/****
+	 * Execute a get entity API Request for each of the object ids, concurrently. Duplicate ids are requested once. The
+	 * requests are sent as by execute(apiDefinition, objectId), so the entity reads cached by the transport (see
+	 * HttpClientSettings.setResponseCacheEnabled()) are revalidated rather than downloaded again
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request. Its return format must be ApiReturnFormat.OBJECT
+	 * @param objectIds
+	 *            the ids of the entities. Must not contain null
+	 * @param concurrency
+	 *            maximum number of requests sent concurrently
+	 * 
+	 * @return the entities and the failures by their id
+	 * 
+	 * @throws MambuApiException
+	 *             if the calling thread is interrupted
+	 */
+	public <T> MultiGetResult<T> executeMultiGet(final ApiDefinition apiDefinition, Collection<String> objectIds,
+			int concurrency) throws MambuApiException {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+		if (apiDefinition.getApiReturnFormat() != ApiReturnFormat.OBJECT) {
+			throw new IllegalArgumentException("Only OBJECT requests can be executed for many ids");
+		}
+		if (objectIds == null) {
+			throw new IllegalArgumentException("Object IDs cannot be NULL");
+		}
+		Set<String> uniqueIds = new LinkedHashSet<String>(objectIds);
+		if (uniqueIds.contains(null)) {
+			throw new IllegalArgumentException("Object IDs must not contain NULL");
+		}
+
+		BatchOperation<String, T> get = new BatchOperation<String, T>() {
+			@Override
+			public String getKey(String objectId) {
+				return objectId;
+			}
+
+			@Override
+			public T execute(String objectId) throws MambuApiException {
+				return ServiceExecutor.this.execute(apiDefinition, objectId);
+			}
+		};
+		BatchReport<String, T> report = new BatchExecutor<String, T>(get, concurrency).execute(uniqueIds);
+
+		Map<String, T> results = new LinkedHashMap<String, T>();
+		Map<String, MambuApiException> failures = new LinkedHashMap<String, MambuApiException>();
+		for (BatchReport.Item<String, T> item : report.getItems()) {
+			if (item.isSuccessful()) {
+				results.put(item.getCommand(), item.getResult());
+			} else {
+				failures.put(item.getCommand(), item.getException());
+			}
+		}
+		return new MultiGetResult<T>(results, failures);
+	}
+
+	// Make params for a page: copy the request's params and set the page's offset and limit
+	private static ParamsMap makePageParams(ParamsMap params, int offset, int limit) {
+		ParamsMap pageParams = new ParamsMap();
+		pageParams.putAll(params);
+		pageParams.put(APIData.OFFSET, Integer.toString(offset));
+		pageParams.put(APIData.LIMIT, Integer.toString(limit));
+
+		return pageParams;
+	}
+
+	/****
+	 * Execute API Request asynchronously using its ApiDefinition and supplied input data. The HTTP request is executed
+	 * in the background and Mambu response is parsed into the result object on a dedicated parsing thread pool, so
+	 * neither the calling thread nor the I/O threads are blocked by this request
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * @param relatedEntityId
+	 *            an id of the relatedEntity (optional, must be null if not used)
+	 * @param paramsMap
+	 *            map with API parameters
+	 * @param callback
+	 *            callback to be notified with the result object or with the exception (optional, can be null)
+	 * 
+	 * @return future result object, which will be an API specific object or a list of objects. Future's get() throws
+	 *         ExecutionException with the MambuApiException as its cause if the request failed
+	 */
+	public <R> Future<R> executeAsync(ApiDefinition apiDefinition, String objectId, String relatedEntityId,
+			ParamsMap paramsMap, ApiCallback<R> callback) {
+
+		if (apiDefinition == null) {
+			throw new IllegalArgumentException("ApiDefinition cannot be NULL");
+		}
+
+		// Create URL and params for this API request using specification in its apiDefintion and input IDs
+		String apiUrlPath = getApiPath(apiDefinition, objectId, relatedEntityId);
+		paramsMap = addFullDetailsParam(apiDefinition, paramsMap);
+
+		// The result is parsed by the ParsingTask once the response is received
+		final ParsingTask<R> parsingTask = new ParsingTask<R>(new ResponseParser<R>(this, apiDefinition), callback);
+
+		// The request context is carried to the I/O thread by the asynchronous request executor
+		RequestContext previousContext = RequestContext.current().withApiType(apiDefinition.getApiType()).attach();
+		try {
+			mambuAPIService.executeRequestAsync(apiUrlPath, paramsMap, apiDefinition.getMethod(),
+					apiDefinition.getContentType(), new ApiCallback<String>() {
+						@Override
+						public void onSuccess(String jsonResponse) {
+							// Hand over the response to the parsing pool, don't parse on the I/O thread
+							parsingTask.setResponse(jsonResponse);
+							mambuAPIService.getParsingExecutor().execute(parsingTask);
+						}
+
+						@Override
+						public void onFailure(MambuApiException exception) {
+							parsingTask.setFailure(exception);
+						}
+					});
+		} finally {
+			RequestContext.restore(previousContext);
+		}
+
+		return parsingTask;
+	}
+
+	/****
+	 * Convenience method to execute API Request asynchronously using its ApiDefinition, object ID and params map
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * @param paramsMap
+	 *            map with API parameters
+	 * 
+	 * @return future result object
+	 */
+	public <R> Future<R> executeAsync(ApiDefinition apiDefinition, String objectId, ParamsMap paramsMap) {
+		String relatedEntityId = null;
+		ApiCallback<R> callback = null;
+		return executeAsync(apiDefinition, objectId, relatedEntityId, paramsMap, callback);
+	}
+
+	/****
+	 * Convenience method to execute API Request asynchronously using its ApiDefinition and object ID
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param objectId
+	 *            api's object id (optional, must be null if not used)
+	 * 
+	 * @return future result object
+	 */
+	public <R> Future<R> executeAsync(ApiDefinition apiDefinition, String objectId) {
+		ParamsMap paramsMap = null;
+		return executeAsync(apiDefinition, objectId, paramsMap);
+	}
+
+	/****
+	 * Convenience method to execute API Request asynchronously using its ApiDefinition and params map
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param paramsMap
+	 *            map with API parameters
+	 * 
+	 * @return future result object
+	 */
+	public <R> Future<R> executeAsync(ApiDefinition apiDefinition, ParamsMap paramsMap) {
+		String objectId = null;
+		return executeAsync(apiDefinition, objectId, paramsMap);
+	}
+
+	/****
+	 * Execute API JSON Post Request asynchronously using its ApiDefinition and supplied input data. The input object is
+	 * converted to JSON on the calling thread, the request is executed and its response is parsed in the background
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param object
+	 *            the Mambu object to be created or updated
+	 * @param objectId
+	 *            object's id (optional, could be null if not used, for example for JSON create requests)
+	 * @param callback
+	 *            callback to be notified with the result object or with the exception (optional, can be null)
+	 * 
+	 * @return future result object, which will be an API specific object
+	 */
+	public <R, T> Future<R> executeJsonAsync(ApiDefinition apiDefinition, T object, String objectId,
+			ApiCallback<R> callback) {
+
+		ParamsMap paramsMap = makeJsonParams(object);
+		String relatedEntityId = null;
+		return executeAsync(apiDefinition, objectId, relatedEntityId, paramsMap, callback);
+	}
+
+	/****
+	 * Convenience method for executing API JSON Post Request asynchronously for requests which do not require objectId
+	 * parameter
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param object
+	 *            the Mambu object to be created.
+	 * 
+	 * @return future result object, which will be an API specific object
+	 */
+	public <R, T> Future<R> executeJsonAsync(ApiDefinition apiDefinition, T object) {
+		String objectId = null;
+		ApiCallback<R> callback = null;
+		return executeJsonAsync(apiDefinition, object, objectId, callback);
+	}
+
 	// // Private Helper methods ////
 	/****
 	 * Get URL path for the API request based on the request's ApiDefinition. The URL path is created to comply with the
@@ -341,6 +950,109 @@ public class ServiceExecutor {
 
 	}
 
+	/****
+	 * Add full details parameter to the params map if required by the apiDefintion specification
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param paramsMap
+	 *            map with API parameters. Can be null
+	 * 
+	 * @return params map with the full details parameter added, if required
+	 */
+	private ParamsMap addFullDetailsParam(ApiDefinition apiDefinition, ParamsMap paramsMap) {
+		if (apiDefinition.getWithFullDetails()) {
+			if (paramsMap == null) {
+				paramsMap = new ParamsMap();
+			}
+			paramsMap.put(APIData.FULL_DETAILS, "true");
+		}
+		return paramsMap;
+	}
+
+	/****
+	 * Make ParamsMap for a JSON request: convert the input object into a JSON string and add it as JSON_OBJECT param
+	 * 
+	 * @param object
+	 *            the Mambu object to be sent. Must not be null
+	 * 
+	 * @return params map with the JSON string
+	 */
+	private <T> ParamsMap makeJsonParams(T object) {
+
+		if (object == null) {
+			throw new IllegalArgumentException("JSON object must not be NULL");
+		}
+
+		// Parse input object into a JSON string
+		final String dateTimeFormat = APIData.yyyyMmddFormat;
+		final String jsonData = GsonUtils.createGson(dateTimeFormat).toJson(object, object.getClass());
+
+		// Add JSON string as JSON_OBJECT to the ParamsMap
+		ParamsMap paramsMap = new ParamsMap();
+		paramsMap.put(APIData.JSON_OBJECT, jsonData);
+
+		return paramsMap;
+	}
+
+	/****
+	 * Process Mambu response string: convert it into the result specified by the request's ApiDefinition
+	 * 
+	 * @param apiDefinition
+	 *            API definition for the request
+	 * @param jsonResponse
+	 *            JSON response string
+	 * 
+	 * @return object result object, which will be an API specific object or a list of objects
+	 */
+	@SuppressWarnings("unchecked")
+	private <R> R processResponse(ApiDefinition apiDefinition, String jsonResponse) {
+
+		// Get the return format and returnClass from the apiDefintion
+		Class<?> returnClass = apiDefinition.getReturnClass();
+		ApiReturnFormat returnFormat = apiDefinition.getApiReturnFormat();
+
+		// Reuse the object parsed from the same response returned by the response cache
+		ResponseCache responseCache = mambuAPIService.getResponseCache();
+		String decodedType = null;
+		if (responseCache != null && jsonResponse != null
+				&& (returnFormat == ApiReturnFormat.OBJECT || returnFormat == ApiReturnFormat.COLLECTION)) {
+			decodedType = returnFormat + " " + returnClass.getName();
+			Object decoded = responseCache.getDecoded(jsonResponse, decodedType);
+			if (decoded != null) {
+				return (R) decoded;
+			}
+		}
+
+		R result = null;
+		switch (returnFormat) {
+		case OBJECT:
+			// Get Single Object from the response
+			result = getObject(jsonResponse, returnClass);
+			break;
+		case COLLECTION:
+			// Get a list of Objects from the response
+			Type collectionType = getCollectionType(returnClass);
+			// Get result as a collection
+			result = getCollection(jsonResponse, collectionType);
+			break;
+		case BOOLEAN:
+			// Get result as a boolean
+			result = (R) getBoolean(jsonResponse);
+			break;
+		case RESPONSE_STRING:
+			// Return the response string as is, with no additional processing.
+			// This can be used for the services to perform any subsequent processing or for such APIs as getDocument()
+			result = (R) jsonResponse;
+			break;
+		}
+
+		if (decodedType != null && result != null) {
+			responseCache.putDecoded(jsonResponse, decodedType, result);
+		}
+		return result;
+	}
+
 	/****
 	 * Get Object represented by Mambu's JSON response string
 	 * 
@@ -385,6 +1097,85 @@ public class ServiceExecutor {
 		return false;
 	}
 
+	/**
+	 * ResponseStreamHandler reading a JSON array of entities from the response stream and passing the entities to the
+	 * ItemHandler one by one
+	 */
+	private static class CollectionStreamParser<T> implements ResponseStreamHandler<Integer> {
+
+		private final Class<?> itemClass;
+		private final ItemHandler<T> handler;
+
+		CollectionStreamParser(Class<?> itemClass, ItemHandler<T> handler) {
+			this.itemClass = itemClass;
+			this.handler = handler;
+		}
+
+		@Override
+		public Integer handleResponse(InputStream content, String charset, long contentLength) throws IOException {
+
+			final Gson gson = GsonUtils.createGson();
+			final JsonReader reader = new JsonReader(new InputStreamReader(content, charset));
+
+			int count = 0;
+			try {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					T item = gson.<T> fromJson(reader, itemClass);
+					handler.handleItem(item);
+					count++;
+				}
+				reader.endArray();
+			} finally {
+				reader.close();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Callable parsing Mambu response for the asynchronous requests. The response must be set before the parser is
+	 * called
+	 */
+	private static class ResponseParser<R> implements Callable<R> {
+
+		private final ServiceExecutor serviceExecutor;
+		private final ApiDefinition apiDefinition;
+		private volatile String jsonResponse;
+
+		ResponseParser(ServiceExecutor serviceExecutor, ApiDefinition apiDefinition) {
+			this.serviceExecutor = serviceExecutor;
+			this.apiDefinition = apiDefinition;
+		}
+
+		@Override
+		public R call() {
+			return serviceExecutor.<R> processResponse(apiDefinition, jsonResponse);
+		}
+	}
+
+	/**
+	 * Future for the results of the asynchronous requests. It is either run on the parsing pool, once the response is
+	 * received, or completed with the request's failure
+	 */
+	private static class ParsingTask<R> extends CallbackFutureTask<R> {
+
+		private final ResponseParser<R> parser;
+
+		ParsingTask(ResponseParser<R> parser, ApiCallback<R> callback) {
+			super(parser, callback);
+			this.parser = parser;
+		}
+
+		void setResponse(String jsonResponse) {
+			parser.jsonResponse = jsonResponse;
+		}
+
+		void setFailure(MambuApiException exception) {
+			setException(exception);
+		}
+	}
+
 	// Collection Types Map: it maps Mambu class T to its List<T> type (TypeToken<List<T>>(){}.getType())
 	// New entries shall be added to this map when creating wrappers returning lists for classes not present in this map
 	private final static Map<Class<?>, Type> collectionTypesMap;
@@ -465,12 +1256,25 @@ public class ServiceExecutor {
 		// SearchResult. Note Search API returns Map<SearchResult.Type, List<SearchResult>>
 		collectionTypesMap.put(SearchResult.class, new TypeToken<Map<SearchResult.Type, List<SearchResult>>>() {
 		}.getType());
+		// GLJournalEntry
+		collectionTypesMap.put(GLJournalEntry.class, new TypeToken<List<GLJournalEntry>>() {
+		}.getType());
 		// Indicator. Note Indicator API returns HashMap<String, String>
 		collectionTypesMap.put(Indicator.class, new TypeToken<HashMap<String, String>>() {
 		}.getType());
 
 	}
 
+	/****
+	 * Get the classes for which collections of objects are returned by API. GsonUtils registers the precompiled
+	 * deserializers for these classes
+	 * 
+	 * @return classes present in the collection types map
+	 */
+	static Set<Class<?>> getCollectionClasses() {
+		return Collections.unmodifiableSet(collectionTypesMap.keySet());
+	}
+
 	//
 	/****
 	 * Get Type for the collection of objects returned by API for the specified class (e.g. List<Class<?>> )
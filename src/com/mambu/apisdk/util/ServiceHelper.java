@@ -68,6 +68,25 @@ public class ServiceHelper {
 			throw new IllegalArgumentException("Custom Field ID must not be null or empty");
 		}
 
+		final String patchJson = makeUpdateCustomFieldJson(fieldValue);
+
+		ParamsMap params = new ParamsMap();
+		params.put(APIData.JSON_OBJECT, patchJson);
+
+		return params;
+
+	}
+
+	/**
+	 * Make JSON string for Update Custom Field value API requests
+	 * 
+	 * @param fieldValue
+	 *            the new value of the custom field
+	 * 
+	 * @return JSON string, e.g. {"value":"newFieldValue"}
+	 */
+	public static String makeUpdateCustomFieldJson(String fieldValue) {
+
 		// Create JSON string to be used in the PATCH request
 		// The JSON string for this API must have the following format: {"value":"newFieldValue"}. See MBU-6661
 
@@ -81,13 +100,7 @@ public class ServiceHelper {
 		customFieldValue.setIndexInList(null);
 		customFieldValue.setAmount(null);
 
-		final String patchJson = GsonUtils.createGson().toJson(customFieldValue, CustomFieldValue.class);
-
-		ParamsMap params = new ParamsMap();
-		params.put(APIData.JSON_OBJECT, patchJson);
-
-		return params;
-
+		return GsonUtils.createGson().toJson(customFieldValue, CustomFieldValue.class);
 	}
 
 	/**
@@ -0,0 +1,25 @@
+package com.mambu.apisdk.util;
+
+/**
+ * Source of the time for the caches' time to live. The caches use the SYSTEM ticker, tests can use their own ticker
+ * instead of waiting for the time to pass
+ */
+public interface Ticker {
+
+	/**
+	 * Ticker reading System.nanoTime()
+	 */
+	Ticker SYSTEM = new Ticker() {
+		@Override
+		public long read() {
+			return System.nanoTime();
+		}
+	};
+
+	/**
+	 * Get the current time
+	 *
+	 * @return time in nanoseconds since an arbitrary origin, as System.nanoTime()
+	 */
+	long read();
+}
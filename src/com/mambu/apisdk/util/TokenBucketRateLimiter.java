@@ -0,0 +1,64 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter. Tokens are added at the specified rate, up to the bucket's capacity (the burst size). Each
+ * request takes one token, waiting for it if the bucket is empty. Requests waiting for tokens are served in the order
+ * they reserved their tokens
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+	private final double tokensPerNano;
+	private final double capacity;
+
+	// Tokens in the bucket at lastRefillTime. Negative when tokens are reserved by waiting requests
+	private double tokens;
+	private long lastRefillTime;
+
+	/**
+	 * Create TokenBucketRateLimiter. The bucket is initially full
+	 * 
+	 * @param requestsPerSecond
+	 *            sustained rate of requests. Must be greater than zero
+	 * @param burst
+	 *            maximum number of requests which can be sent at once after an idle period. Must be greater than zero
+	 */
+	public TokenBucketRateLimiter(double requestsPerSecond, int burst) {
+		if (requestsPerSecond <= 0) {
+			throw new IllegalArgumentException("Requests per second must be greater than zero");
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException("Burst must be greater than zero");
+		}
+		this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.capacity = burst;
+		this.tokens = burst;
+		this.lastRefillTime = System.nanoTime();
+	}
+
+	@Override
+	public void acquire() throws InterruptedException {
+		long waitNanos = reserve();
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Take a token from the bucket
+	 * 
+	 * @return nanoseconds to wait until the token is available
+	 */
+	private synchronized long reserve() {
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - lastRefillTime) * tokensPerNano);
+		lastRefillTime = now;
+
+		tokens -= 1;
+		if (tokens >= 0) {
+			return 0;
+		}
+		return (long) Math.ceil(-tokens / tokensPerNano);
+	}
+}
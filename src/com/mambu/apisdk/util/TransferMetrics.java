@@ -0,0 +1,83 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransferMetrics counts the responses received by the RequestExecutor and the size of their content, as received over
+ * the network and after decompression. The difference between the decoded bytes and the received bytes is the transfer
+ * saved by the response compression (see HttpClientSettings.setCompressionEnabled())
+ */
+public class TransferMetrics {
+
+	private final AtomicLong responses = new AtomicLong();
+	private final AtomicLong compressedResponses = new AtomicLong();
+	private final AtomicLong receivedBytes = new AtomicLong();
+	private final AtomicLong decodedBytes = new AtomicLong();
+
+	/**
+	 * Get the number of responses received
+	 *
+	 * @return number of responses
+	 */
+	public long getResponses() {
+		return responses.get();
+	}
+
+	/**
+	 * Get the number of responses received with gzip or deflate content encoding
+	 *
+	 * @return number of compressed responses
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	/**
+	 * Get the number of content bytes read from the network
+	 *
+	 * @return received bytes
+	 */
+	public long getReceivedBytes() {
+		return receivedBytes.get();
+	}
+
+	/**
+	 * Get the number of content bytes after decompression. Equals to the received bytes if no response was compressed
+	 *
+	 * @return decoded bytes
+	 */
+	public long getDecodedBytes() {
+		return decodedBytes.get();
+	}
+
+	/**
+	 * Reset all counters to zero
+	 */
+	public void reset() {
+		responses.set(0);
+		compressedResponses.set(0);
+		receivedBytes.set(0);
+		decodedBytes.set(0);
+	}
+
+	void onResponse(boolean compressed) {
+		responses.incrementAndGet();
+		if (compressed) {
+			compressedResponses.incrementAndGet();
+		}
+	}
+
+	void addReceivedBytes(long bytes) {
+		receivedBytes.addAndGet(bytes);
+	}
+
+	void addDecodedBytes(long bytes) {
+		decodedBytes.addAndGet(bytes);
+	}
+
+	@Override
+	public String toString() {
+		return "TransferMetrics [responses=" + getResponses() + ", compressedResponses=" + getCompressedResponses()
+				+ ", receivedBytes=" + getReceivedBytes() + ", decodedBytes=" + getDecodedBytes() + "]";
+	}
+}
@@ -77,4 +77,19 @@ public class URLHelper {
 			return urlString;
 		}
 	}
+
+	/**
+	 * Gets the domain (host) from a URL String, e.g. "demo.mambu.com" from "https://demo.mambu.com/api/loans"
+	 * 
+	 * @param urlString
+	 *            the URL String
+	 * 
+	 * @return the domain
+	 */
+	public static String getDomain(String urlString) {
+		int start = urlString.indexOf("://");
+		start = (start < 0) ? 0 : start + 3;
+		int end = urlString.indexOf('/', start);
+		return (end < 0) ? urlString.substring(start) : urlString.substring(start, end);
+	}
 }
@@ -0,0 +1,78 @@
+package demo;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.apisdk.util.ServiceExecutor;
+import com.mambu.loans.shared.model.LoanTransaction;
+
+/**
+ * Micro benchmark comparing the deserialization of loan transactions with the precompiled deserializers and with the
+ * Gson's reflective deserialization. Doesn't require a connection to Mambu
+ */
+public class DemoGsonDeserializationBenchmark {
+
+	private final static int TRANSACTIONS = 1000;
+	private final static int WARMUP_ITERATIONS = 200;
+	private final static int ITERATIONS = 500;
+
+	public static void main(String[] args) {
+
+		String json = makeTransactionsJson(TRANSACTIONS);
+		Type collectionType = ServiceExecutor.getCollectionType(LoanTransaction.class);
+
+		GsonUtils.setReflectionOnly(true);
+		Gson reflective = GsonUtils.createGson();
+		GsonUtils.setReflectionOnly(false);
+		Gson precompiled = GsonUtils.createGson();
+
+		// Warm up both
+		run(reflective, json, collectionType, WARMUP_ITERATIONS);
+		run(precompiled, json, collectionType, WARMUP_ITERATIONS);
+
+		double reflectiveRate = run(reflective, json, collectionType, ITERATIONS);
+		double precompiledRate = run(precompiled, json, collectionType, ITERATIONS);
+
+		System.out.println("Reflective:  " + Math.round(reflectiveRate) + " transactions/s");
+		System.out.println("Precompiled: " + Math.round(precompiledRate) + " transactions/s");
+		System.out.println("Gain: " + Math.round((precompiledRate / reflectiveRate - 1.0) * 100.0) + "%");
+	}
+
+	// Returns the number of transactions deserialized per second
+	private static double run(Gson gson, String json, Type collectionType, int iterations) {
+
+		long count = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			List<LoanTransaction> transactions = gson.fromJson(json, collectionType);
+			count += transactions.size();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		return count * 1e9 / elapsed;
+	}
+
+	private static String makeTransactionsJson(int count) {
+
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"encodedKey\":\"8a80816752a2f8d10152a3c1e4d3").append(i).append("\",");
+			json.append("\"transactionId\":").append(1000 + i).append(',');
+			json.append("\"parentAccountKey\":\"8a80816752a2f8d10152a3c1e4d30001\",");
+			json.append("\"type\":\"REPAYMENT\",");
+			json.append("\"comment\":\"Repayment ").append(i).append("\",");
+			json.append("\"creationDate\":\"2014-03-05T10:15:30+0000\",");
+			json.append("\"entryDate\":\"2014-03-05T00:00:00+0000\",");
+			json.append("\"amount\":\"100.50\",\"principalAmount\":\"80\",\"interestAmount\":\"20.5\",");
+			json.append("\"feesAmount\":\"0\",\"penaltyAmount\":\"0\",\"balance\":\"899.5\",");
+			json.append("\"userKey\":\"8a80816752a2f8d10152a3c1e4d30002\",");
+			json.append("\"branchKey\":\"8a80816752a2f8d10152a3c1e4d30003\"}");
+		}
+		return json.append(']').toString();
+	}
+}
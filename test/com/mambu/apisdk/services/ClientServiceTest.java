@@ -5,6 +5,8 @@ package com.mambu.apisdk.services;
 
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import com.mambu.apisdk.MambuAPIServiceTest;
@@ -138,4 +140,38 @@ public class ClientServiceTest extends MambuAPIServiceTest {
 				ContentType.WWW_FORM);
 
 	}
+
+	/***
+	 * Test the retrieval of clients by their ids, each id is requested once
+	 * 
+	 */
+	@Test
+	public void testGetClientsByIds() throws MambuApiException {
+
+		// execute
+		service.getClients(Arrays.asList("abc123", "def456", "abc123"), 2);
+
+		// verify
+		verify(executor).executeRequest("https://demo.mambutest.com/api/clients/abc123", null, Method.GET,
+				ContentType.WWW_FORM);
+		verify(executor).executeRequest("https://demo.mambutest.com/api/clients/def456", null, Method.GET,
+				ContentType.WWW_FORM);
+	}
+
+	/***
+	 * Test the retrieval of groups by their ids, each id is requested once
+	 * 
+	 */
+	@Test
+	public void testGetGroupsByIds() throws MambuApiException {
+
+		// execute
+		service.getGroups(Arrays.asList("grp1", "grp2", "grp2"), 2);
+
+		// verify
+		verify(executor).executeRequest("https://demo.mambutest.com/api/groups/grp1", null, Method.GET,
+				ContentType.WWW_FORM);
+		verify(executor).executeRequest("https://demo.mambutest.com/api/groups/grp2", null, Method.GET,
+				ContentType.WWW_FORM);
+	}
 }
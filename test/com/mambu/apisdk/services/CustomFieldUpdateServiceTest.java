@@ -0,0 +1,73 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomFieldUpdate;
+import com.mambu.apisdk.model.CustomFieldUpdate.EntityType;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.apisdk.util.RequestLimit;
+import com.mambu.apisdk.util.ServiceHelper;
+
+public class CustomFieldUpdateServiceTest extends MambuAPIServiceTest {
+
+	private final static String SUCCESS = "{\"returnCode\":0,\"returnStatus\":\"SUCCESS\"}";
+
+	private CustomFieldUpdateService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new CustomFieldUpdateService(super.mambuApiService);
+	}
+
+	@Test
+	public void updateCustomFieldsReportsEachUpdate() throws MambuApiException {
+
+		Mockito.when(
+				executor.executeRequest(Matchers.anyString(), Matchers.any(ParamsMap.class), Matchers.eq(Method.PATCH),
+						Matchers.eq(ContentType.JSON))).thenReturn(SUCCESS);
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/loans/L1/custominformation/Risk"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.PATCH), Matchers.eq(ContentType.JSON)))
+				.thenThrow(new MambuApiException(400,
+						"{\"returnCode\":3,\"returnStatus\":\"INVALID_LOAN_ACCOUNT_ID\"}"));
+
+		List<CustomFieldUpdate> updates = new ArrayList<CustomFieldUpdate>();
+		updates.add(new CustomFieldUpdate(EntityType.CLIENT, "C1", "Segment", "Gold"));
+		updates.add(new CustomFieldUpdate(EntityType.CLIENT, "C1", "Risk", "Low"));
+		updates.add(new CustomFieldUpdate(EntityType.USER, "jdoe", "Segment", "Gold"));
+		updates.add(new CustomFieldUpdate(EntityType.LOAN_ACCOUNT, "L1", "Risk", "High"));
+		updates.add(new CustomFieldUpdate(null, "S1", "Risk", "High"));
+
+		// Send the updates
+		BatchReport<CustomFieldUpdate, Boolean> report = service.updateCustomFields(updates, 2, new RequestLimit(
+				1000, 10, 0));
+
+		// verify
+		assertEquals(3, report.getSuccessCount());
+		assertTrue(report.getItems().get(2).getResult());
+		assertEquals(updates.subList(3, 5), report.getFailedCommands());
+		assertEquals("INVALID_LOAN_ACCOUNT_ID", report.getItems().get(3).getResponseMessage().getReturnStatus());
+
+		ParamsMap params = new ParamsMap();
+		params.put("JSON", ServiceHelper.makeUpdateCustomFieldJson("Gold"));
+		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/clients/C1/custominformation/Segment",
+				params, Method.PATCH, ContentType.JSON);
+		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/users/jdoe/custominformation/Segment",
+				params, Method.PATCH, ContentType.JSON);
+	}
+}
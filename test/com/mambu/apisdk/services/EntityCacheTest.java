@@ -0,0 +1,181 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.MultiGetResult;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.loans.shared.model.LoanAccount;
+
+public class EntityCacheTest extends MambuAPIServiceTest {
+
+	private EntityCache cache;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		cache = new EntityCache(super.mambuApiService);
+	}
+
+	@Test
+	public void activitiesInvalidateCachedEntities() throws MambuApiException {
+
+		stub("loans/L1", "{\"encodedKey\":\"8a1\",\"id\":\"L1\"}");
+		stub("loans/L2", "{\"encodedKey\":\"8a2\",\"id\":\"L2\"}");
+		String timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+		stub("activities", "[{\"activity\":{\"encodedKey\":\"a1\",\"timestamp\":\"" + timestamp
+				+ "\",\"loanAccountKey\":\"8a1\"}}]");
+
+		// execute
+		LoanAccount account = cache.getLoanAccount("L1");
+		LoanAccount other = cache.getLoanAccount("L2");
+
+		// verify
+		assertSame(account, cache.getLoanAccount("L1"));
+		assertEquals(1, cache.getHits());
+
+		assertEquals(1, cache.pollActivities());
+		// The account referenced by the activity is requested again, the other account is still cached
+		cache.getLoanAccount("L1");
+		assertSame(other, cache.getLoanAccount("L2"));
+		verifyRequests("loans/L1", 2);
+		verifyRequests("loans/L2", 1);
+
+		// Invalidated by id
+		cache.invalidate("L2");
+		cache.getLoanAccount("L2");
+		verifyRequests("loans/L2", 2);
+	}
+
+	@Test
+	public void pollReadsAllPagesOfActivities() throws MambuApiException {
+
+		String timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+		final String[] pages = {
+				"[" + activity("a1", timestamp, "8a1") + "," + activity("a2", timestamp, "8a2") + "]",
+				"[" + activity("a3", timestamp, "8a3") + "]" };
+		final AtomicBoolean failSecondPage = new AtomicBoolean(true);
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/activities"), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) throws MambuApiException {
+				ParamsMap params = (ParamsMap) invocation.getArguments()[1];
+				if ("0".equals(params.get("offset"))) {
+					return pages[0];
+				}
+				if (failSecondPage.getAndSet(false)) {
+					throw new MambuApiException(503, "");
+				}
+				return pages[1];
+			}
+		});
+		cache.setActivitiesPageSize(2);
+
+		// The window is not read completely
+		try {
+			cache.pollActivities();
+			fail("Expected MambuApiException");
+		} catch (MambuApiException e) {
+			assertEquals(Integer.valueOf(503), e.getErrorCode());
+		}
+
+		// The next poll reads the whole window again, until the short page
+		assertEquals(3, cache.pollActivities());
+		Mockito.verify(executor, Mockito.times(4)).executeRequest(eq("https://demo.mambutest.com/api/activities"),
+				any(ParamsMap.class), eq(Method.GET), eq(ContentType.WWW_FORM));
+	}
+
+	private static String activity(String encodedKey, String timestamp, String loanAccountKey) {
+		return "{\"activity\":{\"encodedKey\":\"" + encodedKey + "\",\"timestamp\":\"" + timestamp
+				+ "\",\"loanAccountKey\":\"" + loanAccountKey + "\"}}";
+	}
+
+	@Test
+	public void invalidationDuringLoadSkipsOnlyInvalidatedEntity() throws MambuApiException {
+
+		stubInvalidating("loans/L1", "{\"encodedKey\":\"8a1\",\"id\":\"L1\"}", "L2");
+		stubInvalidating("loans/L2", "{\"encodedKey\":\"8a2\",\"id\":\"L2\"}", "8a2");
+
+		// execute
+		cache.getLoanAccount("L1");
+		cache.getLoanAccount("L2");
+
+		// verify: L1 is cached despite the invalidation of L2, L2 invalidated while it was loading is not cached
+		cache.getLoanAccount("L1");
+		cache.getLoanAccount("L2");
+		verifyRequests("loans/L1", 1);
+		verifyRequests("loans/L2", 2);
+	}
+
+	@Test
+	public void multiGetRequestsOnlyEntitiesNotCached() throws MambuApiException {
+
+		stub("loans/L1", "{\"encodedKey\":\"8a1\",\"id\":\"L1\"}");
+		stub("loans/L2", "{\"encodedKey\":\"8a2\",\"id\":\"L2\"}");
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/loans/L3"), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenThrow(
+				new MambuApiException(404, "{\"returnCode\":105,\"returnStatus\":\"INVALID_ACCOUNT_ID\"}"));
+
+		LoanAccount cached = cache.getLoanAccount("L1");
+
+		// execute
+		MultiGetResult<LoanAccount> accounts = cache.getLoanAccounts(Arrays.asList("L3", "L1", "L2", "L1"));
+
+		// verify
+		assertEquals(Arrays.asList("L1", "L2"), new ArrayList<String>(accounts.getResults().keySet()));
+		assertSame(cached, accounts.get("L1"));
+		assertEquals(Integer.valueOf(404), accounts.getFailures().get("L3").getErrorCode());
+		verifyRequests("loans/L1", 1);
+		verifyRequests("loans/L2", 1);
+
+		// The loaded accounts are cached
+		assertSame(accounts.get("L2"), cache.getLoanAccount("L2"));
+		verifyRequests("loans/L2", 1);
+	}
+
+	private void stub(String path, String response) throws MambuApiException {
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/" + path), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenReturn(response);
+	}
+
+	// Stub the response, invalidating the entity key while the request is executed
+	private void stubInvalidating(String path, final String response, final String invalidatedKey)
+			throws MambuApiException {
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/" + path), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) {
+				cache.invalidate(invalidatedKey);
+				return response;
+			}
+		});
+	}
+
+	private void verifyRequests(String path, int times) throws MambuApiException {
+		Mockito.verify(executor, Mockito.times(times)).executeRequest(eq("https://demo.mambutest.com/api/" + path),
+				any(ParamsMap.class), eq(Method.GET), eq(ContentType.WWW_FORM));
+	}
+}
@@ -3,24 +3,43 @@
  */
 package com.mambu.apisdk.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.mambu.accounts.shared.model.AccountHolderType;
 import com.mambu.apisdk.MambuAPIServiceTest;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.model.LoanAccountExpanded;
+import com.mambu.apisdk.model.RepaymentCommand;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.CircuitBreakerPolicy;
+import com.mambu.apisdk.util.ItemHandler;
 import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestContext;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
 import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.apisdk.util.ResponseStreamHandler;
+import com.mambu.apisdk.util.RetryPolicy;
 import com.mambu.core.shared.model.CustomFieldValue;
 import com.mambu.core.shared.model.Money;
 import com.mambu.loans.shared.model.LoanAccount;
 import com.mambu.loans.shared.model.LoanAccount.RepaymentPeriodUnit;
+import com.mambu.loans.shared.model.LoanTransaction;
 
 /**
  * @author ipenciuc
@@ -146,4 +165,196 @@ public class LoanServiceTest extends MambuAPIServiceTest {
 				"https://demo.mambutest.com/api/loans/8ad661123b36cfaf013b42c2e0f46dca/transactions", params,
 				Method.POST, ContentType.WWW_FORM);
 	}
+
+	@Test
+	public void getAccountAsync() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("fullDetails", "true");
+
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/loans/ABC123", params, Method.GET,
+						ContentType.WWW_FORM)).thenReturn("{\"id\":\"ABC123\"}");
+
+		// Get Account asynchronously
+		LoanAccount account = service.getLoanAccountAsync("ABC123").get(5, TimeUnit.SECONDS);
+
+		assertEquals("ABC123", account.getId());
+	}
+
+	@Test
+	public void getAccountTransactionsStreaming() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("offset", "0");
+		params.addParam("limit", "3");
+
+		// Pass the response stream to the handler
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/loans/ABC123/transactions"),
+						Matchers.eq(params), Matchers.eq(Method.GET), Matchers.eq(ContentType.WWW_FORM),
+						Matchers.<ResponseStreamHandler<Integer>> any())).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				ResponseStreamHandler<?> handler = (ResponseStreamHandler<?>) invocation.getArguments()[4];
+				InputStream content = new ByteArrayInputStream(
+						"[{\"transactionId\":1},{\"transactionId\":2},{\"transactionId\":3}]".getBytes("UTF-8"));
+				return handler.handleResponse(content, "UTF-8", -1);
+			}
+		});
+
+		final List<LoanTransaction> transactions = new ArrayList<LoanTransaction>();
+		int count = service.getLoanAccountTransactions("ABC123", "0", "3", new ItemHandler<LoanTransaction>() {
+			@Override
+			public void handleItem(LoanTransaction item) {
+				transactions.add(item);
+			}
+		});
+
+		assertEquals(3, count);
+		assertEquals(3, transactions.size());
+		assertEquals(Long.valueOf(3), transactions.get(2).getTransactionId());
+	}
+
+	@Test
+	public void getAccountRetriesAfterIOException() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("fullDetails", "true");
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setInitialBackoff(0);
+		mambuApiService.setRetryPolicy(retryPolicy);
+
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/loans/ABC123", params, Method.GET,
+						ContentType.WWW_FORM)).thenThrow(new MambuApiException(new SocketTimeoutException()))
+				.thenReturn("{\"id\":\"ABC123\"}");
+
+		LoanAccount account = service.getLoanAccountDetails("ABC123");
+
+		assertEquals("ABC123", account.getId());
+		Mockito.verify(executor, Mockito.times(2)).executeRequest("https://demo.mambutest.com/api/loans/ABC123",
+				params, Method.GET, ContentType.WWW_FORM);
+	}
+
+	@Test
+	public void getAccountNotRetriedByDefault() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("fullDetails", "true");
+
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/loans/ABC123", params, Method.GET,
+						ContentType.WWW_FORM)).thenThrow(new MambuApiException(new SocketTimeoutException()))
+				.thenReturn("{\"id\":\"ABC123\"}");
+
+		try {
+			service.getLoanAccountDetails("ABC123");
+			fail("Expected MambuApiException");
+		} catch (MambuApiException e) {
+			assertTrue(e.getCause() instanceof SocketTimeoutException);
+		}
+		Mockito.verify(executor, Mockito.times(1)).executeRequest("https://demo.mambutest.com/api/loans/ABC123",
+				params, Method.GET, ContentType.WWW_FORM);
+	}
+
+	@Test
+	public void getAccountNotRejectedByDefault() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("fullDetails", "true");
+
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/loans/ABC123", params, Method.GET,
+						ContentType.WWW_FORM)).thenThrow(new MambuApiException(503, ""));
+
+		// Every request is sent, however many failed
+		for (int i = 0; i < CircuitBreakerPolicy.DEFAULT_WINDOW_SIZE; i++) {
+			try {
+				service.getLoanAccountDetails("ABC123");
+				fail("Expected MambuApiException");
+			} catch (MambuApiException e) {
+				assertEquals(Integer.valueOf(503), e.getErrorCode());
+			}
+		}
+		Mockito.verify(executor, Mockito.times(CircuitBreakerPolicy.DEFAULT_WINDOW_SIZE)).executeRequest(
+				"https://demo.mambutest.com/api/loans/ABC123", params, Method.GET, ContentType.WWW_FORM);
+	}
+
+	@Test
+	public void getAccountFailsFastWhenCircuitOpen() throws Exception {
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("fullDetails", "true");
+
+		mambuApiService.setRetryPolicy(RetryPolicy.noRetries());
+		CircuitBreakerPolicy circuitBreakerPolicy = new CircuitBreakerPolicy();
+		circuitBreakerPolicy.setMinimumCalls(2);
+		mambuApiService.setCircuitBreakerPolicy(circuitBreakerPolicy);
+
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/loans/ABC123", params, Method.GET,
+						ContentType.WWW_FORM)).thenThrow(new MambuApiException(503, ""));
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				service.getLoanAccountDetails("ABC123");
+				fail("Expected MambuApiException");
+			} catch (MambuApiException e) {
+				int expectedErrorCode = (i < 2) ? 503 : CircuitBreakerPolicy.CIRCUIT_OPEN_ERROR_CODE;
+				assertEquals(Integer.valueOf(expectedErrorCode), e.getErrorCode());
+			}
+		}
+
+		// The third request was rejected without being sent
+		Mockito.verify(executor, Mockito.times(2)).executeRequest("https://demo.mambutest.com/api/loans/ABC123",
+				params, Method.GET, ContentType.WWW_FORM);
+		assertEquals(CircuitBreakerPolicy.State.OPEN, circuitBreakerPolicy.getState("demo.mambutest.com", "loans"));
+	}
+
+	@Test
+	public void getAccountFailsAfterDeadline() throws Exception {
+
+		RequestContext previousContext = RequestContext.current().withDeadline(0).attach();
+		try {
+			service.getLoanAccountDetails("ABC123");
+			fail("Expected MambuApiException");
+		} catch (MambuApiException e) {
+			assertEquals(Integer.valueOf(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE), e.getErrorCode());
+		} finally {
+			RequestContext.restore(previousContext);
+		}
+
+		Mockito.verify(executor, Mockito.never()).executeRequest(Matchers.anyString(), Matchers.any(ParamsMap.class),
+				Matchers.any(Method.class), Matchers.any(ContentType.class));
+	}
+
+	@Test
+	public void makeLoanRepaymentsContinuesAfterFailure() throws Exception {
+
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/loans/A1/transactions"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.POST), Matchers.eq(ContentType.WWW_FORM)))
+				.thenThrow(new MambuApiException(400,
+						"{\"returnCode\":110,\"returnStatus\":\"INSUFFICIENT_BALANCE\"}"));
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/loans/B1/transactions"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.POST), Matchers.eq(ContentType.WWW_FORM)))
+				.thenReturn("{\"transactionId\":1}", "{\"transactionId\":2}");
+
+		List<RepaymentCommand> repayments = new ArrayList<RepaymentCommand>();
+		repayments.add(new RepaymentCommand("B1", "10", null, null, null));
+		repayments.add(new RepaymentCommand("A1", "20", null, null, null));
+		repayments.add(new RepaymentCommand("B1", "30", null, null, null));
+
+		// Post the repayments
+		BatchReport<RepaymentCommand, LoanTransaction> report = service.makeLoanRepayments(repayments, 2);
+
+		assertEquals(2, report.getSuccessCount());
+		assertEquals(Long.valueOf(1), report.getItems().get(0).getResult().getTransactionId());
+		assertEquals(Long.valueOf(2), report.getItems().get(2).getResult().getTransactionId());
+		assertEquals("INSUFFICIENT_BALANCE", report.getItems().get(1).getResponseMessage().getReturnStatus());
+		assertEquals(repayments.subList(1, 2), report.getFailedCommands());
+	}
 }
\ No newline at end of file
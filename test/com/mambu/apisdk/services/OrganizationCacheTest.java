@@ -0,0 +1,104 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.core.shared.model.User;
+import com.mambu.organization.shared.model.Centre;
+
+public class OrganizationCacheTest extends MambuAPIServiceTest {
+
+	private final static String BRANCHES = "[{\"encodedKey\":\"b1\",\"id\":\"B1\","
+			+ "\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"},{\"encodedKey\":\"b2\",\"id\":\"B2\","
+			+ "\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"}]";
+	private final static String CENTRES = "[{\"encodedKey\":\"c1\",\"id\":\"C1\",\"assignedBranchKey\":\"b1\","
+			+ "\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"},{\"encodedKey\":\"c2\",\"id\":\"C2\","
+			+ "\"assignedBranchKey\":\"b1\",\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"}]";
+	private final static String CHANGED_CENTRES = "[{\"encodedKey\":\"c1\",\"id\":\"C1\",\"assignedBranchKey\":\"b1\","
+			+ "\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"},{\"encodedKey\":\"c2\",\"id\":\"C2\","
+			+ "\"assignedBranchKey\":\"b2\",\"lastModifiedDate\":\"2014-02-01T10:00:00+0000\"}]";
+	private final static String USERS = "[{\"encodedKey\":\"u1\",\"id\":\"1\",\"assignedBranchKey\":\"b2\","
+			+ "\"lastModifiedDate\":\"2014-01-01T10:00:00+0000\"}]";
+
+	private OrganizationCache cache;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		cache = new OrganizationCache(super.mambuApiService);
+	}
+
+	@Test
+	public void answersLookupsFromSnapshot() throws MambuApiException {
+
+		stub("branches", BRANCHES);
+		stub("centres", CENTRES);
+		stub("users", USERS);
+
+		// execute
+		List<Centre> centres = cache.getCentres("B1");
+
+		// verify
+		assertEquals(2, centres.size());
+		assertSame(centres.get(0), cache.getCentre("C1"));
+		assertSame(cache.getBranch("B2"), cache.getBranch("b2"));
+		assertEquals(0, cache.getCentres("B2").size());
+		assertEquals(0, cache.getCentres("unknown").size());
+		assertNull(cache.getCentre("unknown"));
+
+		List<User> users = cache.getUsers("B2");
+		assertEquals(1, users.size());
+		assertEquals("1", users.get(0).getId());
+		assertEquals(2, cache.getBranches().size());
+
+		// The snapshot is loaded once
+		Mockito.verify(executor, Mockito.times(1)).executeRequest(eq("https://demo.mambutest.com/api/centres"),
+				any(ParamsMap.class), eq(Method.GET), eq(ContentType.WWW_FORM));
+	}
+
+	@Test
+	public void refreshKeepsUnchangedEntities() throws MambuApiException {
+
+		stub("branches", BRANCHES);
+		stub("centres", CENTRES, CHANGED_CENTRES);
+		stub("users", USERS);
+
+		assertEquals(5, cache.refresh());
+		Centre unchanged = cache.getCentre("C1");
+		Centre moved = cache.getCentre("C2");
+
+		// execute
+		int changes = cache.refresh();
+
+		// verify
+		assertEquals(1, changes);
+		assertSame(unchanged, cache.getCentre("C1"));
+		assertTrue(moved != cache.getCentre("C2"));
+		assertEquals(1, cache.getCentres("B1").size());
+		assertEquals(1, cache.getCentres("B2").size());
+
+		// Nothing changed
+		assertEquals(0, cache.refresh());
+	}
+
+	private void stub(String endPoint, String response, String... nextResponses) throws MambuApiException {
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/" + endPoint), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenReturn(response, nextResponses);
+	}
+}
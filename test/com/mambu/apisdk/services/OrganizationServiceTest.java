@@ -3,6 +3,11 @@
  */
 package com.mambu.apisdk.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -10,9 +15,11 @@ import com.mambu.apisdk.MambuAPIServiceTest;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.ReferenceDataCache;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
 import com.mambu.apisdk.util.RequestExecutor.Method;
 import com.mambu.core.shared.model.CustomField;
+import com.mambu.core.shared.model.CustomFieldSet;
 
 /**
  * @author ipenciuc
@@ -142,4 +149,33 @@ public class OrganizationServiceTest extends MambuAPIServiceTest {
 		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/customfieldsets", params, Method.GET,
 				ContentType.WWW_FORM);
 	}
+
+	@Test
+	public void testGetCustomFieldSetsCached() throws MambuApiException {
+
+		ReferenceDataCache cache = new ReferenceDataCache();
+		mambuApiService.setReferenceDataCache(cache);
+
+		ParamsMap params = new ParamsMap();
+		params.addParam(APIData.CUSTOM_FIELD_SETS_TYPE, CustomField.Type.CLIENT_INFO.name());
+		Mockito.when(
+				executor.executeRequest("https://demo.mambutest.com/api/customfieldsets", params, Method.GET,
+						ContentType.WWW_FORM)).thenReturn("[]");
+
+		// execute
+		List<CustomFieldSet> first = service.getCustomFieldSets(CustomField.Type.CLIENT_INFO);
+		List<CustomFieldSet> second = service.getCustomFieldSets(CustomField.Type.CLIENT_INFO);
+
+		// verify
+		assertSame(first, second);
+		Mockito.verify(executor, Mockito.times(1)).executeRequest("https://demo.mambutest.com/api/customfieldsets",
+				params, Method.GET, ContentType.WWW_FORM);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		// Refresh reloads the cached results
+		cache.refresh();
+		Mockito.verify(executor, Mockito.times(2)).executeRequest("https://demo.mambutest.com/api/customfieldsets",
+				params, Method.GET, ContentType.WWW_FORM);
+	}
 }
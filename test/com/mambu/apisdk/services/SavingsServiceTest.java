@@ -3,21 +3,34 @@
  */
 package com.mambu.apisdk.services;
 
+import static org.junit.Assert.assertEquals;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
+import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.mambu.accounts.shared.model.AccountState;
 import com.mambu.api.server.handler.savings.model.JSONSavingsAccount;
 import com.mambu.apisdk.MambuAPIServiceTest;
 import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.SavingsTransactionCommand;
+import com.mambu.apisdk.util.APIData.ACCOUNT_TYPE;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.MultiGetResult;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
 import com.mambu.apisdk.util.RequestExecutor.Method;
 import com.mambu.core.shared.model.CustomFieldValue;
 import com.mambu.savings.shared.model.SavingsAccount;
+import com.mambu.savings.shared.model.SavingsTransaction;
 import com.mambu.savings.shared.model.SavingsType;
 
 /**
@@ -91,4 +104,105 @@ public class SavingsServiceTest extends MambuAPIServiceTest {
 		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/savings", params, Method.POST,
 				ContentType.JSON);
 	}
+
+	@Test
+	public void makeTransactionsCollectsFailuresForReplay() throws MambuApiException {
+
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/savings/S1/transactions"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.POST), Matchers.eq(ContentType.WWW_FORM)))
+				.thenReturn("{\"transactionId\":1}")
+				.thenThrow(new MambuApiException(400,
+						"{\"returnCode\":110,\"returnStatus\":\"INSUFFICIENT_BALANCE\"}"))
+				.thenReturn("{\"transactionId\":2}");
+
+		List<SavingsTransactionCommand> transactions = new ArrayList<SavingsTransactionCommand>();
+		transactions.add(SavingsTransactionCommand.deposit("S1", "100", null, null, null));
+		transactions.add(SavingsTransactionCommand.withdrawal("S1", "500", null, null, null));
+		transactions.add(SavingsTransactionCommand.transfer("S2", null, ACCOUNT_TYPE.SAVINGS, "10", null));
+		transactions.add(SavingsTransactionCommand.deposit("S1", "50", null, null, null));
+
+		// Post the transactions
+		BatchReport<SavingsTransactionCommand, SavingsTransaction> report = service.makeTransactions(transactions, 2);
+
+		// verify
+		assertEquals(2, report.getSuccessCount());
+		assertEquals(Long.valueOf(2), report.getItems().get(3).getResult().getTransactionId());
+
+		Map<String, List<SavingsTransactionCommand>> failed = report.getFailedCommandsByReturnStatus();
+		assertEquals(2, failed.size());
+		assertEquals(transactions.subList(1, 2), failed.get("INSUFFICIENT_BALANCE"));
+		assertEquals(transactions.subList(2, 3), failed.get(""));
+
+		ParamsMap params = new ParamsMap();
+		params.addParam("type", "WITHDRAWAL");
+		params.addParam("amount", "500");
+		params.addParam("date", null);
+		params.addParam("notes", null);
+		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/savings/S1/transactions", params,
+				Method.POST, ContentType.WWW_FORM);
+	}
+
+	@Test
+	public void makeTransactionsPostsTransfersBeforeTheTransactionsOfTheDestination() throws MambuApiException {
+
+		final List<String> posted = Collections.synchronizedList(new ArrayList<String>());
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/savings/S1/transactions"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.POST), Matchers.eq(ContentType.WWW_FORM)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						// A slow transfer: the withdrawal from S2 must wait for it
+						Thread.sleep(50);
+						posted.add("S1");
+						return "{\"transactionId\":1}";
+					}
+				});
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/savings/S2/transactions"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.POST), Matchers.eq(ContentType.WWW_FORM)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						posted.add("S2");
+						return "{\"transactionId\":2}";
+					}
+				});
+
+		List<SavingsTransactionCommand> transactions = new ArrayList<SavingsTransactionCommand>();
+		transactions.add(SavingsTransactionCommand.transfer("S1", "S2", ACCOUNT_TYPE.SAVINGS, "100", null));
+		transactions.add(SavingsTransactionCommand.withdrawal("S2", "100", null, null, null));
+
+		// Post the transactions
+		BatchReport<SavingsTransactionCommand, SavingsTransaction> report = service.makeTransactions(transactions, 2);
+
+		// verify
+		assertEquals(2, report.getSuccessCount());
+		assertEquals(Arrays.asList("S1", "S2"), posted);
+	}
+
+	@Test
+	public void getSavingsAccountsRequestsEachIdOnce() throws MambuApiException {
+
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/savings/S1"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.GET), Matchers.eq(ContentType.WWW_FORM)))
+				.thenReturn("{\"encodedKey\":\"8a1\",\"id\":\"S1\"}");
+		Mockito.when(
+				executor.executeRequest(Matchers.eq("https://demo.mambutest.com/api/savings/S2"),
+						Matchers.any(ParamsMap.class), Matchers.eq(Method.GET), Matchers.eq(ContentType.WWW_FORM)))
+				.thenThrow(new MambuApiException(404, "{\"returnCode\":105,\"returnStatus\":\"INVALID_ACCOUNT_ID\"}"));
+
+		// execute
+		MultiGetResult<SavingsAccount> accounts = service.getSavingsAccounts(Arrays.asList("S1", "S2", "S1"), 2);
+
+		// verify
+		assertEquals("S1", accounts.get("S1").getId());
+		assertEquals(Integer.valueOf(404), accounts.getFailures().get("S2").getErrorCode());
+		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/savings/S1", null, Method.GET,
+				ContentType.WWW_FORM);
+		Mockito.verify(executor).executeRequest("https://demo.mambutest.com/api/savings/S2", null, Method.GET,
+				ContentType.WWW_FORM);
+	}
 }
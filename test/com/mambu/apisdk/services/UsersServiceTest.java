@@ -1,14 +1,18 @@
 package com.mambu.apisdk.services;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 
 import com.mambu.apisdk.MambuAPIServiceTest;
 import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.PagedIterable;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
 import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.core.shared.model.User;
 
 /**
  * @author ipenciuc
@@ -62,4 +66,37 @@ public class UsersServiceTest extends MambuAPIServiceTest {
 		verify(executor).executeRequest("https://demo.mambutest.com/api/users", params, Method.GET,
 				ContentType.WWW_FORM);
 	}
+
+	/***
+	 * Test the retrieval of all users page by page
+	 * 
+	 */
+	@Test
+	public void testGetUsersAll() throws MambuApiException {
+
+		ParamsMap firstPage = new ParamsMap();
+		firstPage.addParam("offset", "0");
+		firstPage.addParam("limit", "2");
+		ParamsMap secondPage = new ParamsMap();
+		secondPage.addParam("offset", "2");
+		secondPage.addParam("limit", "2");
+
+		when(executor.executeRequest("https://demo.mambutest.com/api/users", firstPage, Method.GET,
+				ContentType.WWW_FORM)).thenReturn("[{\"username\":\"a\"},{\"username\":\"b\"}]");
+		when(executor.executeRequest("https://demo.mambutest.com/api/users", secondPage, Method.GET,
+				ContentType.WWW_FORM)).thenReturn("[{\"username\":\"c\"}]");
+
+		// execute
+		PagedIterable<User> users = service.getUsersAll(2);
+
+		StringBuilder usernames = new StringBuilder();
+		for (User user : users) {
+			usernames.append(user.getUsername());
+		}
+
+		// verify
+		assertEquals("abc", usernames.toString());
+		verify(executor).executeRequest("https://demo.mambutest.com/api/users", secondPage, Method.GET,
+				ContentType.WWW_FORM);
+	}
 }
@@ -0,0 +1,81 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class AsyncRequestExecutorImplTest {
+
+	private final static String URL = "https://demo.mambutest.com/api/loans";
+
+	private RequestExecutor executor;
+	private AsyncRequestExecutorImpl asyncExecutor;
+
+	@Before
+	public void setUp() {
+		executor = Mockito.mock(RequestExecutor.class);
+		asyncExecutor = new AsyncRequestExecutorImpl(executor, new HttpClientSettings());
+	}
+
+	@After
+	public void tearDown() {
+		asyncExecutor.close();
+	}
+
+	@Test
+	public void executeRequestReturnsResponse() throws Exception {
+
+		when(executor.executeRequest(URL, null, Method.GET, ContentType.WWW_FORM)).thenReturn("[]");
+
+		Future<String> future = asyncExecutor.executeRequest(URL, null, Method.GET, ContentType.WWW_FORM);
+
+		assertEquals("[]", future.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void executeRequestNotifiesCallbackOnFailure() throws Exception {
+
+		final MambuApiException exception = new MambuApiException(500, "error");
+		when(executor.executeRequest(URL, null, Method.GET, ContentType.WWW_FORM)).thenThrow(exception);
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final MambuApiException[] received = new MambuApiException[1];
+
+		Future<String> future = asyncExecutor.executeRequest(URL, null, Method.GET, ContentType.WWW_FORM,
+				new ApiCallback<String>() {
+					@Override
+					public void onSuccess(String result) {
+					}
+
+					@Override
+					public void onFailure(MambuApiException e) {
+						received[0] = e;
+						latch.countDown();
+					}
+				});
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertSame(exception, e.getCause());
+		}
+		latch.await(5, TimeUnit.SECONDS);
+		assertSame(exception, received[0]);
+	}
+}
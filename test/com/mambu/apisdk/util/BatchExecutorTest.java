@@ -0,0 +1,248 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+public class BatchExecutorTest {
+
+	@Test
+	public void serializesCommandsWithTheSameKey() throws MambuApiException {
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final Map<String, List<String>> executed = new HashMap<String, List<String>>();
+		final Map<String, AtomicInteger> runningByKey = new HashMap<String, AtomicInteger>();
+
+		List<String> commands = new ArrayList<String>();
+		for (int i = 0; i < 20; i++) {
+			for (String key : Arrays.asList("A", "B", "C", "D")) {
+				commands.add(key + ":" + i);
+			}
+		}
+		for (String key : Arrays.asList("A", "B", "C", "D")) {
+			executed.put(key, new ArrayList<String>());
+			runningByKey.put(key, new AtomicInteger());
+		}
+
+		BatchOperation<String, String> operation = new BatchOperation<String, String>() {
+			@Override
+			public String getKey(String command) {
+				return command.substring(0, 1);
+			}
+
+			@Override
+			public String execute(String command) throws MambuApiException {
+				String key = getKey(command);
+				if (runningByKey.get(key).incrementAndGet() > 1) {
+					throw new MambuApiException(-1, "Concurrent command for " + key);
+				}
+				int now = running.incrementAndGet();
+				synchronized (maxRunning) {
+					maxRunning.set(Math.max(maxRunning.get(), now));
+				}
+				try {
+					Thread.sleep(2);
+				} catch (InterruptedException e) {
+					throw new MambuApiException(e);
+				}
+				synchronized (executed) {
+					executed.get(key).add(command);
+				}
+				running.decrementAndGet();
+				runningByKey.get(key).decrementAndGet();
+				return command.toLowerCase();
+			}
+		};
+
+		// execute
+		BatchReport<String, String> report = new BatchExecutor<String, String>(operation, 3, 5).execute(commands);
+
+		// verify
+		assertEquals(80, report.getSize());
+		assertFalse(report.hasFailures());
+		for (int i = 0; i < commands.size(); i++) {
+			assertEquals(i, report.getItems().get(i).getIndex());
+			assertEquals(commands.get(i).toLowerCase(), report.getItems().get(i).getResult());
+		}
+		for (String key : executed.keySet()) {
+			List<String> expected = new ArrayList<String>();
+			for (int i = 0; i < 20; i++) {
+				expected.add(key + ":" + i);
+			}
+			assertEquals(expected, executed.get(key));
+		}
+		assertTrue(maxRunning.get() > 1);
+		assertTrue(maxRunning.get() <= 3);
+	}
+
+	@Test
+	public void continuesAfterFailedCommands() throws MambuApiException {
+
+		BatchOperation<String, String> operation = new BatchOperation<String, String>() {
+			@Override
+			public String getKey(String command) {
+				return command.substring(0, 1);
+			}
+
+			@Override
+			public String execute(String command) throws MambuApiException {
+				if (command.endsWith("!")) {
+					throw new MambuApiException(400, "{\"returnCode\":110,\"returnStatus\":\"INSUFFICIENT_BALANCE\"}");
+				}
+				if (command.endsWith("?")) {
+					throw new IllegalStateException("Unexpected");
+				}
+				return command;
+			}
+		};
+
+		// execute
+		BatchReport<String, String> report = new BatchExecutor<String, String>(operation, 2).execute(Arrays.asList(
+				"A1", "A2!", "A3", "B1?", "B2"));
+
+		// verify
+		assertEquals(5, report.getSize());
+		assertEquals(3, report.getSuccessCount());
+		assertEquals(2, report.getFailureCount());
+		assertEquals(Arrays.asList("A2!", "B1?"), report.getFailedCommands());
+		assertEquals("A3", report.getItems().get(2).getResult());
+
+		BatchReport.Item<String, String> declined = report.getFailures().get(0);
+		assertNull(declined.getResult());
+		assertEquals(Integer.valueOf(400), declined.getException().getErrorCode());
+		assertEquals(110, declined.getResponseMessage().getReturnCode());
+		assertEquals("INSUFFICIENT_BALANCE", declined.getResponseMessage().getReturnStatus());
+		assertEquals(Integer.valueOf(-1), report.getFailures().get(1).getException().getErrorCode());
+		assertNull(report.getItems().get(0).getResponseMessage());
+	}
+
+	@Test
+	public void groupsFailuresWithoutMambuResponse() throws MambuApiException {
+
+		BatchOperation<String, String> operation = new BatchOperation<String, String>() {
+			@Override
+			public String getKey(String command) {
+				return command;
+			}
+
+			@Override
+			public String execute(String command) throws MambuApiException {
+				if (command.equals("empty")) {
+					throw new MambuApiException(503, "");
+				}
+				if (command.equals("text")) {
+					throw new MambuApiException(502, "Bad Gateway");
+				}
+				throw new MambuApiException(400, "{\"returnCode\":110,\"returnStatus\":\"INSUFFICIENT_BALANCE\"}");
+			}
+		};
+
+		// execute
+		BatchReport<String, String> report = new BatchExecutor<String, String>(operation, 2).execute(Arrays.asList(
+				"empty", "declined", "text"));
+
+		// verify
+		assertEquals(-1, report.getFailures().get(0).getResponseMessage().getReturnCode());
+		assertEquals(-1, report.getFailures().get(2).getResponseMessage().getReturnCode());
+		Map<String, List<String>> byReturnStatus = report.getFailedCommandsByReturnStatus();
+		assertEquals(Arrays.asList("empty", "text"), byReturnStatus.get(""));
+		assertEquals(Arrays.asList("declined"), byReturnStatus.get("INSUFFICIENT_BALANCE"));
+	}
+
+	@Test
+	public void continuesAfterAnError() throws MambuApiException {
+
+		BatchOperation<String, String> operation = new BatchOperation<String, String>() {
+			@Override
+			public String getKey(String command) {
+				return command.substring(0, 1);
+			}
+
+			@Override
+			public String execute(String command) throws MambuApiException {
+				if (command.equals("A2")) {
+					// Let the next commands of A wait for this one
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						throw new MambuApiException(e);
+					}
+					throw new AssertionError("Unexpected");
+				}
+				return command;
+			}
+		};
+
+		// execute
+		BatchReport<String, String> report = new BatchExecutor<String, String>(operation, 2).execute(Arrays.asList(
+				"A1", "A2", "B1", "A3", "A4", "B2"));
+
+		// verify
+		assertEquals(6, report.getSize());
+		assertEquals(Arrays.asList("A2"), report.getFailedCommands());
+		assertEquals(Integer.valueOf(-1), report.getFailures().get(0).getException().getErrorCode());
+		assertTrue(report.getFailures().get(0).getException().getCause() instanceof AssertionError);
+		assertEquals("A4", report.getItems().get(4).getResult());
+		assertEquals("B2", report.getItems().get(5).getResult());
+	}
+
+	@Test
+	public void ordersCommandsWithEachOfTheirKeys() throws MambuApiException {
+
+		final List<String> executed = new ArrayList<String>();
+
+		// Transfers like "A>B" have the keys of both accounts
+		MultiKeyBatchOperation<String, String> operation = new MultiKeyBatchOperation<String, String>() {
+			@Override
+			public String getKey(String command) {
+				return command.substring(0, 1);
+			}
+
+			@Override
+			public Collection<String> getKeys(String command) {
+				return command.contains(">") ? Arrays.asList(command.split(">")) : Arrays.asList(getKey(command));
+			}
+
+			@Override
+			public String execute(String command) throws MambuApiException {
+				try {
+					Thread.sleep(command.contains(">") ? 50 : 2);
+				} catch (InterruptedException e) {
+					throw new MambuApiException(e);
+				}
+				synchronized (executed) {
+					executed.add(command);
+				}
+				return command;
+			}
+		};
+
+		// execute
+		BatchReport<String, String> report = new BatchExecutor<String, String>(operation, 3).execute(Arrays.asList(
+				"A", "A>B", "B", "C", "B>C", "C", "A"));
+
+		// verify
+		assertFalse(report.hasFailures());
+		assertEquals(7, executed.size());
+		assertTrue(executed.indexOf("A") < executed.indexOf("A>B"));
+		assertTrue(executed.indexOf("A>B") < executed.indexOf("B"));
+		assertTrue(executed.indexOf("B") < executed.indexOf("B>C"));
+		assertTrue(executed.indexOf("C") < executed.indexOf("B>C"));
+		assertTrue(executed.indexOf("B>C") < executed.lastIndexOf("C"));
+		assertTrue(executed.indexOf("A>B") < executed.lastIndexOf("A"));
+	}
+}
@@ -0,0 +1,110 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.SocketTimeoutException;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.CircuitBreakerPolicy.State;
+
+public class CircuitBreakerPolicyTest {
+
+	private static final String URL = "https://demo.mambutest.com/api/loans/ABC123";
+
+	@Test
+	public void opensOnFailureRate() {
+
+		CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+		policy.setWindowSize(4);
+		policy.setMinimumCalls(4);
+		CircuitBreaker circuitBreaker = policy.getCircuitBreaker(URL, "loans");
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(circuitBreaker.tryAcquire());
+			circuitBreaker.onSuccess(10);
+		}
+		assertTrue(circuitBreaker.tryAcquire());
+		circuitBreaker.onFailure(10);
+		assertTrue(circuitBreaker.tryAcquire());
+		circuitBreaker.onFailure(10);
+		// Two of the last four calls failed
+		assertEquals(State.OPEN, policy.getState("demo.mambutest.com", "loans"));
+		assertFalse(circuitBreaker.tryAcquire());
+
+		// Other end points are not affected
+		assertEquals(State.CLOSED, policy.getState("demo.mambutest.com", "savings"));
+		assertTrue(policy.getCircuitBreaker(URL, "savings").tryAcquire());
+	}
+
+	@Test
+	public void opensOnSlowCallRate() {
+
+		CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+		policy.setWindowSize(4);
+		policy.setMinimumCalls(4);
+		policy.setSlowCallDuration(1000);
+		policy.setSlowCallRateThreshold(0.75);
+		CircuitBreaker circuitBreaker = policy.getCircuitBreaker(URL, "loans");
+
+		circuitBreaker.onSuccess(999);
+		circuitBreaker.onSuccess(1000);
+		circuitBreaker.onSuccess(5000);
+		assertEquals(State.CLOSED, circuitBreaker.getState());
+
+		// Three of the last four calls were slow
+		circuitBreaker.onSuccess(5000);
+		assertEquals(State.OPEN, circuitBreaker.getState());
+	}
+
+	@Test
+	public void halfOpenTrialCalls() throws Exception {
+
+		CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+		policy.setMinimumCalls(1);
+		policy.setOpenDuration(0);
+		policy.setHalfOpenCalls(2);
+		CircuitBreaker circuitBreaker = policy.getCircuitBreaker(URL, "loans");
+
+		circuitBreaker.onFailure(10);
+		assertEquals(State.OPEN, circuitBreaker.getState());
+
+		// Only two trial calls are allowed
+		assertTrue(circuitBreaker.tryAcquire());
+		assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+		assertTrue(circuitBreaker.tryAcquire());
+		assertFalse(circuitBreaker.tryAcquire());
+
+		// A failed trial call opens the circuit again
+		circuitBreaker.onFailure(10);
+		assertEquals(State.OPEN, circuitBreaker.getState());
+
+		// Successful trial calls close the circuit
+		assertTrue(circuitBreaker.tryAcquire());
+		assertTrue(circuitBreaker.tryAcquire());
+		circuitBreaker.onSuccess(10);
+		assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+		circuitBreaker.onSuccess(10);
+		assertEquals(State.CLOSED, circuitBreaker.getState());
+	}
+
+	@Test
+	public void classifiesFailures() {
+
+		assertTrue(CircuitBreakerPolicy.isFailure(new MambuApiException(new SocketTimeoutException())));
+		assertTrue(CircuitBreakerPolicy.isFailure(new MambuApiException(503, "")));
+		assertTrue(CircuitBreakerPolicy.isFailure(new MambuApiException(429, "")));
+		assertFalse(CircuitBreakerPolicy.isFailure(new MambuApiException(400,
+				"{\"returnCode\":100,\"returnStatus\":\"INVALID_LOAN_ACCOUNT_ID\"}")));
+	}
+
+	@Test
+	public void disabledPolicy() {
+
+		assertNull(CircuitBreakerPolicy.disabled().getCircuitBreaker(URL, "loans"));
+	}
+}
@@ -0,0 +1,71 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.mambu.loans.shared.model.LoanTransaction;
+import com.mambu.loans.shared.model.Repayment;
+
+public class GsonUtilsTest {
+
+	@After
+	public void tearDown() {
+		GsonUtils.setReflectionOnly(false);
+	}
+
+	@Test
+	public void gsonIsCachedPerFormat() {
+
+		assertSame(GsonUtils.createGson(), GsonUtils.createGson());
+		assertSame(GsonUtils.createGson(APIData.yyyyMmddFormat), GsonUtils.createGson(APIData.yyyyMmddFormat));
+		assertNotSame(GsonUtils.createGson(), GsonUtils.createGson(APIData.yyyyMmddFormat));
+	}
+
+	@Test
+	public void gsonUsesFormat() {
+
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2013, Calendar.MARCH, 15);
+		Date date = calendar.getTime();
+
+		// Requesting the default format first must not change the format of the other instance
+		GsonUtils.createGson();
+		assertEquals("\"2013-03-15\"", GsonUtils.createGson(APIData.yyyyMmddFormat).toJson(date));
+	}
+
+	@Test
+	public void precompiledDeserializersMatchReflection() {
+
+		String transactionJson = "{\"encodedKey\":\"8a33\",\"transactionId\":1234,\"type\":\"REPAYMENT\","
+				+ "\"creationDate\":\"2014-03-05T10:15:30+0000\",\"amount\":\"100.50\",\"comment\":null,"
+				+ "\"balance\":\"899.5\",\"unknownMember\":\"ignored\"}";
+		String repaymentJson = "{\"encodedKey\":\"8a34\",\"dueDate\":\"2014-04-01T00:00:00+0000\","
+				+ "\"principalDue\":\"50\",\"state\":\"PENDING\"}";
+
+		Gson precompiled = GsonUtils.createGson();
+		GsonUtils.setReflectionOnly(true);
+		Gson reflective = GsonUtils.createGson();
+		assertNotSame(precompiled, reflective);
+
+		// Serialize with the same Gson to compare the deserialized objects
+		LoanTransaction transaction = precompiled.fromJson(transactionJson, LoanTransaction.class);
+		assertEquals(Long.valueOf(1234), transaction.getTransactionId());
+		assertEquals(reflective.toJson(reflective.fromJson(transactionJson, LoanTransaction.class)),
+				reflective.toJson(transaction));
+
+		Repayment repayment = precompiled.fromJson(repaymentJson, Repayment.class);
+		assertEquals(Repayment.State.PENDING, repayment.getState());
+		assertEquals(reflective.toJson(reflective.fromJson(repaymentJson, Repayment.class)),
+				reflective.toJson(repayment));
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.util.LruCache.EvictionListener;
+
+public class LruCacheTest {
+
+	private static class TestEntry extends LruCache.Entry {
+	}
+
+	@Test
+	public void expiresEntries() {
+
+		ManualTicker ticker = new ManualTicker();
+		LruCache<TestEntry> cache = new LruCache<TestEntry>("TestCache", 50, 10, ticker);
+		TestEntry entry = new TestEntry();
+		cache.put("first", entry);
+
+		assertSame(entry, cache.get("first"));
+		ticker.advance(49);
+		assertSame(entry, cache.get("first"));
+		ticker.advance(1);
+		assertNull(cache.get("first"));
+		// Expired entries are kept until replaced or evicted
+		assertSame(entry, cache.getEntry("first"));
+		assertTrue(cache.isExpired(entry));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals("TestCache [size=1, hits=2, misses=1, evictions=0]", cache.toString());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+
+		LruCache<TestEntry> cache = new LruCache<TestEntry>("TestCache", 60000, 2, Ticker.SYSTEM);
+		final List<String> evicted = new ArrayList<String>();
+		cache.setEvictionListener(new EvictionListener<TestEntry>() {
+			@Override
+			public void onEviction(TestEntry entry) {
+				evicted.add(entry.getKey());
+			}
+		});
+
+		cache.put("first", new TestEntry());
+		cache.put("second", new TestEntry());
+		// Use the first entry, so that the second one is the least recently used
+		cache.get("first");
+		cache.put("third", new TestEntry());
+
+		assertEquals(2, cache.size());
+		assertFalse(cache.containsKey("second"));
+		assertEquals(1, cache.getEvictions());
+
+		cache.setMaxEntries(1);
+		assertEquals(1, cache.size());
+		assertTrue(cache.containsKey("third"));
+		assertEquals("[second, first]", evicted.toString());
+	}
+}
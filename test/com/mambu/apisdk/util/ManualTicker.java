@@ -0,0 +1,20 @@
+package com.mambu.apisdk.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticker advanced by the tests
+ */
+public class ManualTicker implements Ticker {
+
+	private long time = 0;
+
+	@Override
+	public synchronized long read() {
+		return time;
+	}
+
+	public synchronized void advance(long millis) {
+		time += TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
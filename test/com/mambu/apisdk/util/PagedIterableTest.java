@@ -0,0 +1,107 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+
+public class PagedIterableTest {
+
+	/**
+	 * Pages over the integers 0..total-1, recording the requested offsets
+	 */
+	private static class IntegersIterable extends PagedIterable<Integer> {
+
+		private final int total;
+		private final List<Integer> requestedOffsets = new ArrayList<Integer>();
+
+		IntegersIterable(int total, int pageSize) {
+			super(pageSize);
+			this.total = total;
+		}
+
+		@Override
+		protected List<Integer> getPage(int offset, int limit) throws MambuApiException {
+			requestedOffsets.add(offset);
+			List<Integer> page = new ArrayList<Integer>();
+			for (int i = offset; i < Math.min(total, offset + limit); i++) {
+				page.add(i);
+			}
+			return page;
+		}
+	}
+
+	@Test
+	public void stopsOnShortPage() {
+
+		IntegersIterable iterable = new IntegersIterable(25, 10);
+
+		int expected = 0;
+		for (Integer value : iterable) {
+			assertEquals(expected++, value.intValue());
+		}
+		assertEquals(25, expected);
+		assertEquals("[0, 10, 20]", iterable.requestedOffsets.toString());
+	}
+
+	@Test
+	public void stopsOnEmptyPage() {
+
+		IntegersIterable iterable = new IntegersIterable(20, 10);
+
+		int count = 0;
+		for (Iterator<Integer> iterator = iterable.iterator(); iterator.hasNext(); iterator.next()) {
+			count++;
+		}
+		assertEquals(20, count);
+		assertEquals("[0, 10, 20]", iterable.requestedOffsets.toString());
+	}
+
+	@Test
+	public void fetchesPagesLazily() {
+
+		IntegersIterable iterable = new IntegersIterable(100, 10);
+
+		Iterator<Integer> iterator = iterable.iterator();
+		assertEquals("[]", iterable.requestedOffsets.toString());
+		for (int i = 0; i < 11; i++) {
+			iterator.next();
+		}
+		assertEquals("[0, 10]", iterable.requestedOffsets.toString());
+	}
+
+	@Test
+	public void wrapsMambuApiException() {
+
+		final MambuApiException exception = new MambuApiException(500, "Server error");
+		PagedIterable<Integer> iterable = new PagedIterable<Integer>(10) {
+			@Override
+			protected List<Integer> getPage(int offset, int limit) throws MambuApiException {
+				throw exception;
+			}
+		};
+
+		Iterator<Integer> iterator = iterable.iterator();
+		try {
+			iterator.hasNext();
+			fail("MambuApiRuntimeException expected");
+		} catch (MambuApiRuntimeException e) {
+			assertSame(exception, e.getMambuApiException());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsInvalidPageSize() {
+		assertFalse(new IntegersIterable(10, 0).iterator().hasNext());
+	}
+
+}
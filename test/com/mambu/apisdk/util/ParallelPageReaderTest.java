@@ -0,0 +1,111 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+public class ParallelPageReaderTest {
+
+	/**
+	 * Pages over the integers 0..total-1 with a delay, recording the max number of concurrent requests
+	 */
+	private static class IntegersReader extends ParallelPageReader<Integer> {
+
+		private final int total;
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicInteger maxInFlight = new AtomicInteger();
+
+		IntegersReader(int total, int pageSize, int concurrency) {
+			super(pageSize, concurrency);
+			this.total = total;
+		}
+
+		@Override
+		protected List<Integer> getPage(int offset, int limit) throws MambuApiException {
+			int current = inFlight.incrementAndGet();
+			synchronized (maxInFlight) {
+				maxInFlight.set(Math.max(maxInFlight.get(), current));
+			}
+			try {
+				// Later pages complete first
+				Thread.sleep(Math.max(1, 20 - offset / limit));
+			} catch (InterruptedException e) {
+				throw new MambuApiException(e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			List<Integer> page = new ArrayList<Integer>();
+			for (int i = offset; i < Math.min(total, offset + limit); i++) {
+				page.add(i);
+			}
+			return page;
+		}
+	}
+
+	private static class CollectingHandler implements ItemHandler<Integer> {
+
+		private final List<Integer> items = new ArrayList<Integer>();
+
+		@Override
+		public void handleItem(Integer item) {
+			items.add(item);
+		}
+	}
+
+	@Test
+	public void readsAllInOrder() throws MambuApiException {
+
+		IntegersReader reader = new IntegersReader(95, 10, 3);
+		CollectingHandler handler = new CollectingHandler();
+
+		assertEquals(95, reader.readAll(handler, true));
+		for (int i = 0; i < 95; i++) {
+			assertEquals(i, handler.items.get(i).intValue());
+		}
+		assertTrue(reader.maxInFlight.get() <= 3);
+	}
+
+	@Test
+	public void readsAllUnordered() throws MambuApiException {
+
+		IntegersReader reader = new IntegersReader(100, 10, 4);
+		CollectingHandler handler = new CollectingHandler();
+
+		assertEquals(100, reader.readAll(handler, false));
+		Collections.sort(handler.items);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, handler.items.get(i).intValue());
+		}
+		assertTrue(reader.maxInFlight.get() <= 4);
+	}
+
+	@Test
+	public void throwsFirstException() {
+
+		final MambuApiException exception = new MambuApiException(500, "Server error");
+		ParallelPageReader<Integer> reader = new ParallelPageReader<Integer>(10, 2) {
+			@Override
+			protected List<Integer> getPage(int offset, int limit) throws MambuApiException {
+				throw exception;
+			}
+		};
+
+		try {
+			reader.readAll(new CollectingHandler(), true);
+			fail("MambuApiException expected");
+		} catch (MambuApiException e) {
+			assertSame(exception, e);
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+
+public class PrefetchingPagedIterableTest {
+
+	/**
+	 * Pages over the integers 0..total-1, recording the requested offsets. Pages are completed immediately
+	 */
+	private static class IntegersIterable extends PrefetchingPagedIterable<Integer> {
+
+		private final int total;
+		private final List<Integer> requestedOffsets = new ArrayList<Integer>();
+
+		IntegersIterable(int total, int pageSize, int prefetchPages) {
+			super(pageSize, prefetchPages);
+			this.total = total;
+		}
+
+		@Override
+		protected Future<List<Integer>> getPageAsync(final int offset, final int limit) {
+			requestedOffsets.add(offset);
+			FutureTask<List<Integer>> task = new FutureTask<List<Integer>>(new Callable<List<Integer>>() {
+				@Override
+				public List<Integer> call() throws MambuApiException {
+					if (offset > total) {
+						throw new MambuApiException(400, "Invalid offset");
+					}
+					List<Integer> page = new ArrayList<Integer>();
+					for (int i = offset; i < Math.min(total, offset + limit); i++) {
+						page.add(i);
+					}
+					return page;
+				}
+			});
+			task.run();
+			return task;
+		}
+	}
+
+	@Test
+	public void returnsAllEntitiesInOrder() {
+
+		IntegersIterable iterable = new IntegersIterable(25, 10, 2);
+
+		int expected = 0;
+		for (Integer value : iterable) {
+			assertEquals(expected++, value.intValue());
+		}
+		assertEquals(25, expected);
+	}
+
+	@Test
+	public void boundsLookAheadWindow() {
+
+		IntegersIterable iterable = new IntegersIterable(1000, 10, 2);
+
+		Iterator<Integer> iterator = iterable.iterator();
+		iterator.hasNext();
+		// The current page and two look-ahead pages
+		assertEquals("[0, 10, 20]", iterable.requestedOffsets.toString());
+
+		for (int i = 0; i < 11; i++) {
+			iterator.next();
+		}
+		assertEquals("[0, 10, 20, 30]", iterable.requestedOffsets.toString());
+	}
+
+	@Test
+	public void throwsMambuApiRuntimeException() {
+
+		final MambuApiException exception = new MambuApiException(500, "Server error");
+		PrefetchingPagedIterable<Integer> iterable = new PrefetchingPagedIterable<Integer>(10, 1) {
+			@Override
+			protected Future<List<Integer>> getPageAsync(int offset, int limit) {
+				FutureTask<List<Integer>> task = new FutureTask<List<Integer>>(new Callable<List<Integer>>() {
+					@Override
+					public List<Integer> call() throws MambuApiException {
+						throw exception;
+					}
+				});
+				task.run();
+				return task;
+			}
+		};
+
+		try {
+			iterable.iterator().next();
+			fail("MambuApiRuntimeException expected");
+		} catch (MambuApiRuntimeException e) {
+			assertSame(exception, e.getMambuApiException());
+		}
+	}
+
+}
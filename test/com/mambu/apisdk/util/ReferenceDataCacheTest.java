@@ -0,0 +1,175 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mambu.accounts.shared.model.TransactionChannel;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.LoanProduct;
+
+public class ReferenceDataCacheTest {
+
+	/**
+	 * Loader returning the number of calls made
+	 */
+	private static class CountingLoader implements Callable<Integer> {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public Integer call() {
+			return calls.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void cachesDefaultClasses() {
+
+		ReferenceDataCache cache = new ReferenceDataCache();
+
+		assertTrue(cache.isCachedClass(LoanProduct.class));
+		assertFalse(cache.isCachedClass(LoanAccount.class));
+		cache.addCachedClass(LoanAccount.class);
+		assertTrue(cache.isCachedClass(LoanAccount.class));
+	}
+
+	@Test
+	public void expiresResults() throws Exception {
+
+		ManualTicker ticker = new ManualTicker();
+		ReferenceDataCache cache = new ReferenceDataCache(50, 10, ticker);
+		CountingLoader loader = new CountingLoader();
+
+		assertEquals(Integer.valueOf(1), cache.get("products", loader));
+		ticker.advance(49);
+		assertEquals(Integer.valueOf(1), cache.get("products", loader));
+		ticker.advance(1);
+		assertEquals(Integer.valueOf(2), cache.get("products", loader));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws Exception {
+
+		ReferenceDataCache cache = new ReferenceDataCache(60000, 2);
+		CountingLoader first = new CountingLoader();
+		CountingLoader second = new CountingLoader();
+		CountingLoader third = new CountingLoader();
+
+		cache.get("first", first);
+		cache.get("second", second);
+		// Use the first result, so that the second one is the least recently used
+		cache.get("first", first);
+		cache.get("third", third);
+
+		assertEquals(2, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(Integer.valueOf(1), cache.get("first", first));
+		assertEquals(Integer.valueOf(2), cache.get("second", second));
+	}
+
+	@Test
+	public void refreshReloadsResults() throws Exception {
+
+		ReferenceDataCache cache = new ReferenceDataCache();
+		CountingLoader loader = new CountingLoader();
+
+		cache.get("channels", loader);
+		cache.refresh();
+
+		assertEquals(Integer.valueOf(2), cache.get("channels", loader));
+		assertEquals(2, loader.calls.get());
+	}
+
+	@Test
+	public void loadsSnapshotAndRevalidatesInBackground() throws Exception {
+
+		final ApiDefinition getChannels = new ApiDefinition(ApiType.GET_LIST, TransactionChannel.class);
+		final List<TransactionChannel> channels = GsonUtils.createGson().fromJson(
+				"[{\"encodedKey\":\"8a1\",\"id\":\"CASH\",\"name\":\"Cash\"}]",
+				ServiceExecutor.getCollectionType(TransactionChannel.class));
+		String key = "https://demo.mambutest.com/api/transactionchannels";
+
+		File file = File.createTempFile("referencedata", ".snapshot");
+		try {
+			ReferenceDataCache cache = new ReferenceDataCache();
+			cache.get(key, getChannels, new Callable<List<TransactionChannel>>() {
+				@Override
+				public List<TransactionChannel> call() {
+					return channels;
+				}
+			});
+			cache.saveSnapshot(file);
+
+			// Restarted cache returns the results from the snapshot without waiting for the request
+			final CountDownLatch revalidated = new CountDownLatch(1);
+			ReferenceDataCache restarted = new ReferenceDataCache();
+			assertEquals(1, restarted.setSnapshotFile(file));
+			List<TransactionChannel> loaded = restarted.get(key, getChannels,
+					new Callable<List<TransactionChannel>>() {
+						@Override
+						public List<TransactionChannel> call() {
+							revalidated.countDown();
+							return channels;
+						}
+					});
+
+			assertEquals(1, loaded.size());
+			assertEquals("CASH", loaded.get(0).getId());
+			assertEquals("Cash", loaded.get(0).getName());
+			assertTrue(revalidated.await(5, TimeUnit.SECONDS));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void keepsSnapshotResultsForRestOfTimeToLive() throws Exception {
+
+		final ApiDefinition getChannels = new ApiDefinition(ApiType.GET_LIST, TransactionChannel.class);
+		final List<TransactionChannel> channels = GsonUtils.createGson().fromJson("[{\"id\":\"CASH\"}]",
+				ServiceExecutor.getCollectionType(TransactionChannel.class));
+		Callable<List<TransactionChannel>> loader = new Callable<List<TransactionChannel>>() {
+			@Override
+			public List<TransactionChannel> call() {
+				return channels;
+			}
+		};
+
+		File file = File.createTempFile("referencedata", ".snapshot");
+		try {
+			ManualTicker ticker = new ManualTicker();
+			ReferenceDataCache cache = new ReferenceDataCache(60000, 10, ticker);
+			cache.get("expired", getChannels, loader);
+			ticker.advance(60000);
+			cache.get("live", getChannels, loader);
+			ticker.advance(30000);
+			cache.saveSnapshot(file);
+
+			// The expired result is not saved, the live one is restored with its age
+			ManualTicker restartedTicker = new ManualTicker();
+			ReferenceDataCache restarted = new ReferenceDataCache(60000, 10, restartedTicker);
+			assertEquals(1, restarted.loadSnapshot(file));
+			// Expired after the rest of its time to live: requested again
+			restartedTicker.advance(30000);
+			CountingLoader reloader = new CountingLoader();
+			assertEquals(Integer.valueOf(1), restarted.get("live", reloader));
+			assertEquals(1, restarted.getMisses());
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+public class RequestCoalescerTest {
+
+	@Test
+	public void concurrentIdenticalRequestsShareOneCall() throws Exception {
+
+		final RequestCoalescer coalescer = new RequestCoalescer();
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Callable<Object> request = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				calls.incrementAndGet();
+				started.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return new Object();
+			}
+		};
+
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Object>> results = new ArrayList<Future<Object>>();
+			Callable<Object> caller = new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return coalescer.execute("https://demo.mambutest.com/api/loanproducts/1", request);
+				}
+			};
+			results.add(threads.submit(caller));
+			started.await(5, TimeUnit.SECONDS);
+			for (int i = 0; i < 3; i++) {
+				results.add(threads.submit(caller));
+			}
+			awaitWaiters(coalescer, "https://demo.mambutest.com/api/loanproducts/1", 3);
+			release.countDown();
+
+			Object result = results.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<Object> other : results) {
+				assertSame(result, other.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, calls.get());
+
+			// Requests are not cached once completed
+			coalescer.execute("https://demo.mambutest.com/api/loanproducts/1", request);
+			assertEquals(2, calls.get());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void waiterRetriesWhenFirstCallerDeadlineExceeded() throws Exception {
+
+		final RequestCoalescer coalescer = new RequestCoalescer();
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Object result = new Object();
+
+		// The first call fails with its caller's deadline, the next one succeeds
+		final Callable<Object> request = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				if (calls.incrementAndGet() > 1) {
+					return result;
+				}
+				started.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				throw new MambuApiException(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE, "Request deadline exceeded");
+			}
+		};
+
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = threads.submit(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					RequestContext previousContext = RequestContext.current().withDeadline(60000).attach();
+					try {
+						return coalescer.execute("key", request);
+					} finally {
+						RequestContext.restore(previousContext);
+					}
+				}
+			});
+			started.await(5, TimeUnit.SECONDS);
+			// Waiter without a deadline
+			Future<Object> waiter = threads.submit(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return coalescer.execute("key", request);
+				}
+			});
+			awaitWaiters(coalescer, "key", 1);
+			release.countDown();
+
+			try {
+				first.get(5, TimeUnit.SECONDS);
+				fail("Expected MambuApiException");
+			} catch (ExecutionException e) {
+				assertEquals(Integer.valueOf(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE),
+						((MambuApiException) e.getCause()).getErrorCode());
+			}
+			assertSame(result, waiter.get(5, TimeUnit.SECONDS));
+			assertEquals(2, calls.get());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void throwsRequestException() {
+
+		RequestCoalescer coalescer = new RequestCoalescer();
+		try {
+			coalescer.execute("key", new Callable<Object>() {
+				@Override
+				public Object call() throws MambuApiException {
+					throw new MambuApiException(404, "Not found");
+				}
+			});
+			fail("Expected MambuApiException");
+		} catch (MambuApiException e) {
+			assertEquals(Integer.valueOf(404), e.getErrorCode());
+		}
+	}
+
+	// Wait until the callers are waiting for the request in flight
+	private static void awaitWaiters(RequestCoalescer coalescer, String key, int waiters) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (coalescer.getWaiters(key) < waiters) {
+			if (System.nanoTime() - deadline > 0) {
+				fail("Callers not waiting for the request in flight");
+			}
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.params.HttpConnectionParams;
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RequestExecutorImplTest {
+
+	@Test
+	public void readStreamPreservesLineBreaks() throws IOException {
+
+		String json = "[{\"id\":\"1\"},\n{\"id\":\"2\"}\r\n]";
+		byte[] bytes = json.getBytes("UTF-8");
+
+		assertEquals(json, RequestExecutorImpl.readStream(new ByteArrayInputStream(bytes), "UTF-8", bytes.length));
+	}
+
+	@Test
+	public void readStreamUsesCharset() throws IOException {
+
+		String json = "{\"name\":\"Zoë Åström\"}";
+
+		byte[] utf8 = json.getBytes("UTF-8");
+		assertEquals(json, RequestExecutorImpl.readStream(new ByteArrayInputStream(utf8), "UTF-8", -1));
+
+		byte[] latin1 = json.getBytes("ISO-8859-1");
+		assertEquals(json, RequestExecutorImpl.readStream(new ByteArrayInputStream(latin1), "ISO-8859-1", 0));
+	}
+
+	@Test
+	public void readsInvalidCharsetAsUtf8() {
+
+		BasicHttpEntity entity = new BasicHttpEntity();
+		entity.setContentType("application/json; charset=ISO-8859-1");
+		assertEquals("ISO-8859-1", RequestExecutorImpl.getContentCharset(entity));
+
+		entity.setContentType("application/json");
+		assertEquals("UTF-8", RequestExecutorImpl.getContentCharset(entity));
+
+		// Unsupported and illegal charset names
+		entity.setContentType("application/json; charset=x-unknown-charset");
+		assertEquals("UTF-8", RequestExecutorImpl.getContentCharset(entity));
+		entity.setContentType("application/json; charset=\"utf 8\"");
+		assertEquals("UTF-8", RequestExecutorImpl.getContentCharset(entity));
+	}
+
+	@Test
+	public void appliesTimeouts() throws Exception {
+
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setIdleEvictionInterval(0);
+		settings.setTimeouts(new RequestTimeouts(1000, 2000, 3000));
+		settings.setTimeouts(ApiType.GET_ENTITY, new RequestTimeouts(100, 200, 300));
+		RequestExecutorImpl executor = new RequestExecutorImpl(new URLHelper("demo.mambutest.com"), settings);
+		try {
+			HttpGet request = new HttpGet("https://demo.mambutest.com/api/loans");
+			executor.applyTimeouts(request, RequestContext.current());
+			assertTimeouts(request, 1000, 2000, 3000);
+
+			// API type timeouts
+			executor.applyTimeouts(request, RequestContext.current().withApiType(ApiType.GET_ENTITY));
+			assertTimeouts(request, 100, 200, 300);
+
+			// Per call timeouts, reduced to the time remaining until the deadline
+			RequestContext context = RequestContext.current().withApiType(ApiType.GET_ENTITY)
+					.withTimeouts(new RequestTimeouts(0, 60000, 10)).withDeadline(30000);
+			executor.applyTimeouts(request, context);
+			assertTrue(HttpConnectionParams.getConnectionTimeout(request.getParams()) > 29000);
+			assertTrue(HttpConnectionParams.getSoTimeout(request.getParams()) <= 30000);
+			assertEquals(10L, request.getParams().getLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, -1));
+
+			try {
+				executor.applyTimeouts(request, RequestContext.current().withDeadline(0));
+				fail("Expected MambuApiException");
+			} catch (MambuApiException e) {
+				assertEquals(Integer.valueOf(RequestContext.DEADLINE_EXCEEDED_ERROR_CODE), e.getErrorCode());
+			}
+		} finally {
+			executor.close();
+		}
+	}
+
+	private static void assertTimeouts(HttpGet request, int connectTimeout, int socketTimeout,
+			long connectionRequestTimeout) {
+		assertEquals(connectTimeout, HttpConnectionParams.getConnectionTimeout(request.getParams()));
+		assertEquals(socketTimeout, HttpConnectionParams.getSoTimeout(request.getParams()));
+		assertEquals(connectionRequestTimeout,
+				request.getParams().getLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, -1));
+	}
+
+	@Test
+	public void decodesCompressedContent() throws IOException {
+
+		String json = "[{\"id\":\"1\",\"amount\":\"100\"},{\"id\":\"2\",\"amount\":\"100\"}]";
+		byte[] bytes = json.getBytes("UTF-8");
+
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		GZIPOutputStream gzipOut = new GZIPOutputStream(gzip);
+		gzipOut.write(bytes);
+		gzipOut.close();
+
+		ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+		DeflaterOutputStream zlibOut = new DeflaterOutputStream(zlib);
+		zlibOut.write(bytes);
+		zlibOut.close();
+
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		DeflaterOutputStream rawOut = new DeflaterOutputStream(raw, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+		rawOut.write(bytes);
+		rawOut.close();
+
+		TransferMetrics metrics = new TransferMetrics();
+		assertEquals(json, decode(gzip.toByteArray(), "gzip", metrics));
+		assertEquals(json, decode(zlib.toByteArray(), "deflate", metrics));
+		assertEquals(json, decode(raw.toByteArray(), "Deflate", metrics));
+		assertEquals(json, decode(bytes, null, metrics));
+
+		assertEquals(4, metrics.getResponses());
+		assertEquals(3, metrics.getCompressedResponses());
+		assertEquals(gzip.size() + zlib.size() + raw.size() + bytes.length, metrics.getReceivedBytes());
+		assertEquals(4 * bytes.length, metrics.getDecodedBytes());
+	}
+
+	private static String decode(byte[] content, String contentEncoding, TransferMetrics metrics) throws IOException {
+		InputStream decoded = RequestExecutorImpl.decodeContent(new ByteArrayInputStream(content), contentEncoding,
+				metrics);
+		return RequestExecutorImpl.readStream(decoded, "UTF-8", -1);
+	}
+
+	@Test
+	public void revalidatesCachedEntityReads() throws Exception {
+
+		String json = "{\"id\":\"1\",\"loanAmount\":\"100\"}";
+		AtomicInteger requests = new AtomicInteger();
+		HttpServer server = startLoansServer(json, requests);
+
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setIdleEvictionInterval(0);
+		settings.setResponseCacheEnabled(true);
+		RequestExecutorImpl executor = new RequestExecutorImpl(new URLHelper("demo.mambutest.com"), settings);
+		RequestContext previous = RequestContext.current().withApiType(ApiType.GET_ENTITY).attach();
+		try {
+			String url = "http://localhost:" + server.getAddress().getPort() + "/api/loans/";
+			ResponseCache cache = executor.getResponseCache();
+
+			// Revalidated with the ETag: the stored response string is returned
+			String first = executor.executeRequest(url + "1", Method.GET);
+			String second = executor.executeRequest(url + "1", Method.GET);
+			assertEquals(json, first);
+			assertSame(first, second);
+			assertEquals(2, requests.get());
+			assertEquals(1, cache.getRevalidations());
+
+			// No validators: returned from the cache without a request until the time to live expires
+			executor.executeRequest(url + "2", Method.GET);
+			executor.executeRequest(url + "2", Method.GET);
+			assertEquals(3, requests.get());
+			assertEquals(1, cache.getHits());
+			assertEquals(2, cache.getMisses());
+
+			// Only the entity reads are cached
+			RequestContext.current().withApiType(ApiType.GET_LIST).attach();
+			executor.executeRequest(url + "2", Method.GET);
+			assertEquals(4, requests.get());
+		} finally {
+			RequestContext.restore(previous);
+			executor.close();
+			server.stop(0);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void cachedEntityReadsAreNotLimited() throws Exception {
+
+		AtomicInteger requests = new AtomicInteger();
+		HttpServer server = startLoansServer("{\"id\":\"1\"}", requests);
+
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setIdleEvictionInterval(0);
+		settings.setResponseCacheEnabled(true);
+		// Two requests, then one every 1000 seconds
+		settings.setRequestLimit(Method.GET, new RequestLimit(0.001, 2, 0));
+		RequestExecutorImpl executor = new RequestExecutorImpl(new URLHelper("demo.mambutest.com"), settings);
+		RequestContext previous = RequestContext.current().withApiType(ApiType.GET_ENTITY).attach();
+		try {
+			String url = "http://localhost:" + server.getAddress().getPort() + "/api/loans/";
+
+			// The responses returned from the cache don't wait for the rate limit
+			for (int i = 0; i < 5; i++) {
+				executor.executeRequest(url + "2", Method.GET);
+			}
+			executor.executeRequest(url + "1", Method.GET);
+			assertEquals(2, requests.get());
+			assertEquals(4, executor.getResponseCache().getHits());
+		} finally {
+			RequestContext.restore(previous);
+			executor.close();
+			server.stop(0);
+		}
+	}
+
+	// Start a server answering the loan reads with the json. Loan "1" is revalidated with an ETag
+	private static HttpServer startLoansServer(final String json, final AtomicInteger requests) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/api/loans", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requests.incrementAndGet();
+				byte[] body = json.getBytes("UTF-8");
+				if (exchange.getRequestURI().getPath().endsWith("/1")) {
+					exchange.getResponseHeaders().set("ETag", "\"v1\"");
+					if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+						exchange.sendResponseHeaders(304, -1);
+						exchange.close();
+						return;
+					}
+				}
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+				exchange.close();
+			}
+		});
+		server.start();
+		return server;
+	}
+}
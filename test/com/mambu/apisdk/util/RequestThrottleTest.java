@@ -0,0 +1,81 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class RequestThrottleTest {
+
+	@Test
+	public void noLimitsByDefault() throws MambuApiException {
+
+		RequestThrottle throttle = new RequestThrottle(new HttpClientSettings());
+
+		assertNull(throttle.acquire("https://demo.mambu.com/api/loans", Method.GET));
+	}
+
+	@Test
+	public void limitsInFlightPerDomainAndMethod() throws MambuApiException {
+
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setRequestLimit(new RequestLimit(0, 0, 2));
+		RequestThrottle throttle = new RequestThrottle(settings);
+
+		Semaphore permit = throttle.acquire("https://demo.mambu.com/api/loans", Method.GET);
+		assertNotNull(permit);
+		throttle.acquire("https://demo.mambu.com/api/clients", Method.GET);
+		assertEquals(0, permit.availablePermits());
+
+		// Other domains and methods have their own limits
+		assertEquals(1, throttle.acquire("https://other.mambu.com/api/loans", Method.GET).availablePermits());
+		assertEquals(1, throttle.acquire("https://demo.mambu.com/api/loans", Method.POST).availablePermits());
+
+		throttle.release(permit);
+		assertEquals(1, permit.availablePermits());
+	}
+
+	@Test
+	public void appliesChangedLimits() throws MambuApiException {
+
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setRequestLimit(Method.GET, new RequestLimit(0, 0, 1));
+		RequestThrottle throttle = new RequestThrottle(settings);
+
+		Semaphore permit = throttle.acquire("https://demo.mambu.com/api/loans", Method.GET);
+		assertEquals(0, permit.availablePermits());
+
+		// The new limit is applied to the next request
+		settings.setRequestLimit(Method.GET, new RequestLimit(0, 0, 3));
+		assertEquals(2, throttle.acquire("https://demo.mambu.com/api/loans", Method.GET).availablePermits());
+		throttle.release(permit);
+		assertEquals(1, permit.availablePermits());
+
+		// Removed limit
+		settings.setRequestLimit(Method.GET, null);
+		assertNull(throttle.acquire("https://demo.mambu.com/api/loans", Method.GET));
+	}
+
+	@Test
+	public void tokenBucketLimitsRate() throws InterruptedException {
+
+		// Burst of 2, then one request every 50 milliseconds
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(20, 2);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 4; i++) {
+			rateLimiter.acquire();
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue("Elapsed " + elapsedMillis, elapsedMillis >= 90);
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ResponseCacheTest {
+
+	@Test
+	public void reusesDecodedObjectOfStoredResponse() {
+
+		ResponseCache cache = new ResponseCache();
+		String body = "{\"id\":\"1\"}";
+		Object decoded = new Object();
+
+		cache.put("https://demo.mambutest.com/api/clients/1", body, "\"v1\"", null);
+		cache.putDecoded(body, "OBJECT Client", decoded);
+
+		assertSame(decoded, cache.getDecoded(body, "OBJECT Client"));
+		// Equal but not the stored response string
+		assertNull(cache.getDecoded(new String(body), "OBJECT Client"));
+		assertNull(cache.getDecoded(body, "OBJECT ClientExpanded"));
+
+		// Replaced by the modified response
+		cache.put("https://demo.mambutest.com/api/clients/1", "{\"id\":\"1\",\"state\":\"ACTIVE\"}", "\"v2\"", null);
+		assertNull(cache.getDecoded(body, "OBJECT Client"));
+	}
+
+	@Test
+	public void returnsResponsesWithoutValidatorsUntilExpired() {
+
+		ManualTicker ticker = new ManualTicker();
+		ResponseCache cache = new ResponseCache(50, 10, ticker);
+		cache.put("https://demo.mambutest.com/api/loans/1", "{}", null, null);
+		cache.put("https://demo.mambutest.com/api/loans/2", "{}", null, "Wed, 01 Jan 2014 10:00:00 GMT");
+
+		assertTrue(cache.isFresh(cache.get("https://demo.mambutest.com/api/loans/1")));
+		// Responses with validators are always revalidated
+		assertFalse(cache.isFresh(cache.get("https://demo.mambutest.com/api/loans/2")));
+
+		ticker.advance(50);
+		assertFalse(cache.isFresh(cache.get("https://demo.mambutest.com/api/loans/1")));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+
+		ResponseCache cache = new ResponseCache(60000, 2);
+		String first = "{\"id\":\"1\"}";
+		cache.put("https://demo.mambutest.com/api/loans/1", first, "\"v1\"", null);
+		cache.putDecoded(first, "OBJECT LoanAccount", new Object());
+		cache.put("https://demo.mambutest.com/api/loans/2", "{}", "\"v1\"", null);
+		cache.put("https://demo.mambutest.com/api/loans/3", "{}", "\"v1\"", null);
+
+		assertEquals(2, cache.getSize());
+		assertNull(cache.get("https://demo.mambutest.com/api/loans/1"));
+		assertNull(cache.getDecoded(first, "OBJECT LoanAccount"));
+	}
+}
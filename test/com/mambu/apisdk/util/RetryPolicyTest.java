@@ -0,0 +1,73 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+
+public class RetryPolicyTest {
+
+	@Test
+	public void retriesIdempotentRequests() {
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+
+		assertTrue(retryPolicy.shouldRetry(ApiType.GET_LIST, new MambuApiException(new SocketTimeoutException()), 1));
+		assertTrue(retryPolicy.shouldRetry(ApiType.GET_ENTITY, new MambuApiException(503, ""), 1));
+		assertTrue(retryPolicy.shouldRetry(ApiType.GET_ENTITY, new MambuApiException(500,
+				"{\"returnCode\":1,\"returnStatus\":\"INTERNAL_ERROR\"}"), 1));
+
+		assertFalse(retryPolicy.shouldRetry(ApiType.GET_ENTITY, new MambuApiException(400,
+				"{\"returnCode\":100,\"returnStatus\":\"INVALID_LOAN_ACCOUNT_ID\"}"), 1));
+		assertFalse(retryPolicy.shouldRetry(ApiType.GET_ENTITY, new MambuApiException(500, "<html></html>"), 1));
+	}
+
+	@Test
+	public void retriesOtherRequestsOnlyIfNotSent() {
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+
+		assertFalse(retryPolicy.shouldRetry(ApiType.POST_OWNED_ENTITY, new MambuApiException(
+				new SocketTimeoutException()), 1));
+		assertFalse(retryPolicy.shouldRetry(ApiType.POST_OWNED_ENTITY, new MambuApiException(503, ""), 1));
+		assertTrue(retryPolicy.shouldRetry(ApiType.POST_OWNED_ENTITY, new MambuApiException(new ConnectException()),
+				1));
+	}
+
+	@Test
+	public void limitsAttemptsAndBudget() {
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setMaxAttempts(2);
+		retryPolicy.setBudget(0.5, 1);
+		MambuApiException exception = new MambuApiException(503, "");
+
+		assertFalse(retryPolicy.shouldRetry(ApiType.GET_LIST, exception, 2));
+
+		assertTrue(retryPolicy.shouldRetry(ApiType.GET_LIST, exception, 1));
+		// Budget is empty until two more requests are made
+		assertFalse(retryPolicy.shouldRetry(ApiType.GET_LIST, exception, 1));
+		retryPolicy.onRequest();
+		retryPolicy.onRequest();
+		assertTrue(retryPolicy.shouldRetry(ApiType.GET_LIST, exception, 1));
+	}
+
+	@Test
+	public void backoffIsCappedWithJitter() {
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setInitialBackoff(100);
+		retryPolicy.setMaxBackoff(1000);
+
+		for (int attempts = 1; attempts < 40; attempts++) {
+			long backoff = retryPolicy.getBackoff(attempts);
+			assertTrue(backoff >= 0 && backoff <= Math.min(1000, 100L << Math.min(attempts - 1, 30)));
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.clients.shared.model.Client;
+
+public class ServiceExecutorTest extends MambuAPIServiceTest {
+
+	private final static ApiDefinition getClient = new ApiDefinition(ApiType.GET_ENTITY, Client.class);
+
+	private ServiceExecutor serviceExecutor;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		serviceExecutor = new ServiceExecutor(super.mambuApiService);
+	}
+
+	@Test
+	public void multiGetRequestsDuplicateIdsOnce() throws MambuApiException {
+
+		stub("clients/C1", "{\"encodedKey\":\"8a1\",\"id\":\"C1\"}");
+		stub("clients/C2", "{\"encodedKey\":\"8a2\",\"id\":\"C2\"}");
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/clients/C3"), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenThrow(
+				new MambuApiException(404, "{\"returnCode\":300,\"returnStatus\":\"INVALID_CLIENT_ID\"}"));
+
+		// execute
+		MultiGetResult<Client> clients = serviceExecutor.executeMultiGet(getClient,
+				Arrays.asList("C2", "C1", "C3", "C2", "C1"), 2);
+
+		// verify
+		assertEquals(Arrays.asList("C2", "C1"), new ArrayList<String>(clients.getResults().keySet()));
+		assertEquals("C1", clients.get("C1").getId());
+		assertTrue(clients.hasFailures());
+		assertEquals(Integer.valueOf(404), clients.getFailures().get("C3").getErrorCode());
+		verifyRequests("clients/C1", 1);
+		verifyRequests("clients/C2", 1);
+		verifyRequests("clients/C3", 1);
+	}
+
+	@Test
+	public void multiGetWithoutIds() throws MambuApiException {
+
+		// execute
+		MultiGetResult<Client> clients = serviceExecutor.executeMultiGet(getClient, new ArrayList<String>(), 2);
+
+		// verify
+		assertTrue(clients.getResults().isEmpty());
+		assertFalse(clients.hasFailures());
+		Mockito.verify(executor, Mockito.never()).executeRequest(anyString(), any(ParamsMap.class),
+				any(Method.class), any(ContentType.class));
+	}
+
+	@Test
+	public void multiGetRejectsNullIds() throws MambuApiException {
+
+		try {
+			serviceExecutor.executeMultiGet(getClient, null, 2);
+			fail("Null ids must be rejected");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			serviceExecutor.executeMultiGet(getClient, Arrays.asList("C1", null), 2);
+			fail("Null id must be rejected");
+		} catch (IllegalArgumentException e) {
+		}
+		Mockito.verify(executor, Mockito.never()).executeRequest(anyString(), any(ParamsMap.class),
+				any(Method.class), any(ContentType.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void multiGetRejectsListRequests() throws MambuApiException {
+
+		serviceExecutor.executeMultiGet(new ApiDefinition(ApiType.GET_LIST, Client.class), Arrays.asList("C1"), 2);
+	}
+
+	private void stub(String path, String response) throws MambuApiException {
+		Mockito.when(
+				executor.executeRequest(eq("https://demo.mambutest.com/api/" + path), any(ParamsMap.class),
+						eq(Method.GET), eq(ContentType.WWW_FORM))).thenReturn(response);
+	}
+
+	private void verifyRequests(String path, int times) throws MambuApiException {
+		Mockito.verify(executor, Mockito.times(times)).executeRequest(eq("https://demo.mambutest.com/api/" + path),
+				any(ParamsMap.class), eq(Method.GET), eq(ContentType.WWW_FORM));
+	}
+}